@@ -0,0 +1,146 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.ShareItApp;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.item.storage.ItemSearchIndex;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.storage.UserRepository;
+
+import javax.persistence.EntityManager;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Первая страница поиска «дрель» среди вещей, свободных на выходных: items подходящих вещей, у каждой
+ * bookingsPerItem одобренных бронирований, каждая вторая вещь занята в искомый период.
+ * indexFilter — ItemService.searchAvailableItems (кандидаты пачками, занятость по индексу интервалов),
+ * notExistsSubquery — тот же поиск с коррелированным подзапросом к bookings в самом запросе.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AvailableItemSearchBenchmark {
+    private static final int PAGE_SIZE = 20;
+    private static final String TEXT = "дрель";
+    private static final String NOT_EXISTS_QUERY = "select i from Item i " +
+            "where i.available = true and i.id > ?4 and " +
+            "i.id in (select g.itemId from ItemNgram g where g.gram in ?2 group by g.itemId having count(g.gram) = ?3) and " +
+            "(lower(i.name) like lower(concat('%', ?1, '%')) or lower(i.description) like lower(concat('%', ?1, '%'))) and " +
+            "not exists (select b.id from Booking b where b.item.id = i.id and b.status = 'APPROVED' " +
+            "and b.startDate <= ?6 and b.endDate >= ?5) " +
+            "order by i.id";
+
+    @Param({"1000"})
+    private int items;
+
+    @Param({"50"})
+    private int bookingsPerItem;
+
+    private ConfigurableApplicationContext context;
+    private ItemService itemService;
+    private EntityManager entityManager;
+    private Set<String> grams;
+    private LocalDateTime start;
+    private LocalDateTime end;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(ShareItApp.class)
+                .web(WebApplicationType.NONE)
+                .profiles("ci")
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:available-search;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+                        "logging.level.root=WARN",
+                        "logging.level.org.springframework.orm.jpa=WARN",
+                        "logging.level.org.springframework.transaction=WARN",
+                        "logging.level.org.springframework.transaction.interceptor=WARN",
+                        "logging.level.org.springframework.orm.jpa.JpaTransactionManager=WARN")
+                .run();
+        itemService = context.getBean(ItemService.class);
+        entityManager = context.getBean(EntityManager.class);
+        grams = ItemSearchIndex.queryGrams(TEXT);
+
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        User owner = userRepository.save(new User(null, "owner@shareit.ru", "Owner"));
+        User booker = userRepository.save(new User(null, "booker@shareit.ru", "Booker"));
+        List<Item> savedItems = new ArrayList<>();
+        for (int i = 0; i < items; i++) {
+            savedItems.add(new Item(null, "Дрель " + i, "Ударная дрель " + i, true, owner, null));
+        }
+        savedItems = context.getBean(ItemRepository.class).saveAll(savedItems);
+        context.getBean(ItemSearchIndex.class).indexNew(savedItems);
+
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        start = now.plusDays(bookingsPerItem * 2L + 1);
+        end = start.plusDays(2);
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < savedItems.size(); i++) {
+            Item item = savedItems.get(i);
+            for (int j = 0; j < bookingsPerItem; j++) {
+                LocalDateTime bookingStart = now.plusDays(j * 2L);
+                rows.add(row(item, booker, bookingStart, bookingStart.plusDays(1)));
+            }
+            if (i % 2 == 0) {
+                rows.add(row(item, booker, start.plusHours(1), start.plusHours(5)));
+            }
+        }
+        context.getBean(JdbcTemplate.class).batchUpdate("insert into bookings " +
+                "(status, start_date, end_date, item_id, booker_id, owner_id) values (?, ?, ?, ?, ?, ?)", rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<ItemDto> indexFilter() {
+        return itemService.searchAvailableItems(TEXT, start, end, 0, PAGE_SIZE, null);
+    }
+
+    @Benchmark
+    public List<Item> notExistsSubquery() {
+        return entityManager.createQuery(NOT_EXISTS_QUERY, Item.class)
+                .setParameter(1, TEXT)
+                .setParameter(2, grams)
+                .setParameter(3, (long) grams.size())
+                .setParameter(4, Long.MIN_VALUE)
+                .setParameter(5, start)
+                .setParameter(6, end)
+                .setMaxResults(PAGE_SIZE)
+                .getResultList();
+    }
+
+    private static Object[] row(Item item, User booker, LocalDateTime start, LocalDateTime end) {
+        return new Object[]{Booking.BookingStatus.APPROVED.name(), Timestamp.valueOf(start), Timestamp.valueOf(end),
+                item.getId(), booker.getId(), item.getOwner().getId()};
+    }
+}
@@ -0,0 +1,74 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingMapper;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.user.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Маппинг страницы бронирований владельца: rows бронирований на 10 вещах от 5 арендаторов.
+ * toBookingDtoPerRow отображает каждое бронирование отдельно, toBookingDtos — с общими DTO вещей и арендаторов.
+ * Запускать с -prof gc и сравнивать gc.alloc.rate.norm (байт на страницу).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookingPageMapperBenchmark {
+    private static final int ITEMS = 10;
+    private static final int BOOKERS = 5;
+
+    @Param({"20", "100", "1000"})
+    private int rows;
+
+    private List<Booking> page;
+
+    @Setup
+    public void setUp() {
+        User owner = new User(1, "owner@shareit.ru", "Owner");
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < ITEMS; i++) {
+            items.add(new Item((long) i + 1, "Перфоратор " + i, "Электрический, с набором буров", true, owner, null));
+        }
+        List<User> bookers = new ArrayList<>();
+        for (int i = 0; i < BOOKERS; i++) {
+            bookers.add(new User(i + 2, "booker" + i + "@shareit.ru", "Booker " + i));
+        }
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 12, 0);
+        page = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            page.add(new Booking((long) i + 1, Booking.BookingStatus.APPROVED, start.minusDays(i), start.minusDays(i - 1),
+                    items.get(i % ITEMS), bookers.get(i % BOOKERS)));
+        }
+    }
+
+    @Benchmark
+    public List<BookingDto> toBookingDtoPerRow() {
+        return page.stream().map(BookingMapper::toBookingDto).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<BookingDto> toBookingDtos() {
+        return BookingMapper.toBookingDtos(page);
+    }
+}
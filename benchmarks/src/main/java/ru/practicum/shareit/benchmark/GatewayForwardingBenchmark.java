@@ -0,0 +1,155 @@
+package ru.practicum.shareit.benchmark;
+
+import io.netty.channel.ChannelOption;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Нагрузка на режимы проксирования шлюза: пачка из concurrency одновременных запросов к заглушке
+ * сервера с фиксированной задержкой ответа. blocking — RestTemplate на пуле из 200 платформенных
+ * потоков (пул Tomcat по умолчанию), virtual — RestTemplate в виртуальном потоке на запрос (нужна JDK 21,
+ * запуск с -p mode=virtual), reactive — WebClient. Во всех режимах пул соединений ограничен maxConnections.
+ * Пропускная способность в запросах в секунду равна concurrency, делённому на время пачки.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class GatewayForwardingBenchmark {
+    private static final int PLATFORM_THREADS = 200;
+    private static final String BODY = "{\"id\":1,\"name\":\"Дрель\",\"description\":\"Ударная\",\"available\":true}";
+
+    @Param({"blocking", "reactive"})
+    private String mode;
+
+    @Param({"1000", "5000"})
+    private int concurrency;
+
+    @Param({"20"})
+    private int serverLatencyMs;
+
+    @Param({"200"})
+    private int maxConnections;
+
+    private DisposableServer server;
+    private String url;
+    private ExecutorService executor;
+    private CloseableHttpClient httpClient;
+    private RestTemplate restTemplate;
+    private ConnectionProvider connectionProvider;
+    private WebClient webClient;
+
+    @Setup(Level.Trial)
+    public void setUp() throws ReflectiveOperationException {
+        Duration latency = Duration.ofMillis(serverLatencyMs);
+        server = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .route(routes -> routes.get("/items/1", (request, response) -> response
+                        .header("Content-Type", "application/json")
+                        .sendString(Mono.delay(latency).map(tick -> BODY))))
+                .bindNow();
+        url = "http://localhost:" + server.port() + "/items/1";
+
+        switch (mode) {
+            case "blocking":
+                executor = Executors.newFixedThreadPool(PLATFORM_THREADS);
+                restTemplate = pooledRestTemplate();
+                break;
+            case "virtual":
+                executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+                restTemplate = pooledRestTemplate();
+                break;
+            case "reactive":
+                connectionProvider = ConnectionProvider.builder("benchmark")
+                        .maxConnections(maxConnections)
+                        .pendingAcquireMaxCount(-1)
+                        .pendingAcquireTimeout(Duration.ofMinutes(1))
+                        .build();
+                webClient = WebClient.builder()
+                        .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connectionProvider)
+                                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 2000)))
+                        .build();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown mode: " + mode);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (executor != null) executor.shutdownNow();
+        if (httpClient != null) httpClient.close();
+        if (connectionProvider != null) connectionProvider.dispose();
+        server.disposeNow();
+    }
+
+    @Benchmark
+    public void forwardBatch() throws InterruptedException, ExecutionException {
+        if (webClient != null) {
+            Flux.range(0, concurrency)
+                    .flatMap(i -> webClient.get().uri(url).retrieve().bodyToMono(String.class), concurrency)
+                    .then()
+                    .block();
+            return;
+        }
+        List<Future<String>> responses = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            responses.add(executor.submit(() -> restTemplate.getForObject(url, String.class)));
+        }
+        for (Future<String> response : responses) {
+            response.get();
+        }
+    }
+
+    private RestTemplate pooledRestTemplate() {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnections);
+        httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectTimeout(2000)
+                        .setConnectionRequestTimeout((int) TimeUnit.MINUTES.toMillis(1))
+                        .build())
+                .build();
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+    }
+}
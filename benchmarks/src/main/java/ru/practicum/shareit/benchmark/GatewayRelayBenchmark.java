@@ -0,0 +1,114 @@
+package ru.practicum.shareit.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingMapper;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.user.User;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Проксирование в шлюзе страницы из rows бронирований от заглушки сервера. parseAndWrite повторяет
+ * прежний путь BaseClient: тело разбирается в Object (LinkedHashMap) и заново пишется в JSON,
+ * relayBytes — нынешний: байты ответа отдаются клиенту как есть. Время операции — процессор на запрос,
+ * с -prof gc gc.alloc.rate.norm показывает выделенную память на запрос.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GatewayRelayBenchmark {
+    private static final int ITEMS = 10;
+    private static final int BOOKERS = 5;
+
+    @Param({"100", "1000"})
+    private int rows;
+
+    private DisposableServer server;
+    private CloseableHttpClient httpClient;
+    private RestTemplate restTemplate;
+    private ObjectMapper objectMapper;
+    private String url;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        byte[] body = objectMapper.writeValueAsBytes(BookingMapper.toBookingDtos(bookings()));
+        server = HttpServer.create()
+                .host("localhost")
+                .port(0)
+                .route(routes -> routes.get("/bookings", (request, response) -> response
+                        .header("Content-Type", "application/json")
+                        .sendByteArray(Mono.just(body))))
+                .bindNow();
+        url = "http://localhost:" + server.port() + "/bookings";
+        httpClient = HttpClients.createDefault();
+        restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        httpClient.close();
+        server.disposeNow();
+    }
+
+    @Benchmark
+    public void parseAndWrite() throws IOException {
+        Object body = restTemplate.getForObject(url, Object.class);
+        objectMapper.writeValue(OutputStream.nullOutputStream(), body);
+    }
+
+    @Benchmark
+    public void relayBytes() throws IOException {
+        byte[] body = restTemplate.getForObject(url, byte[].class);
+        OutputStream.nullOutputStream().write(body);
+    }
+
+    private List<Booking> bookings() {
+        User owner = new User(1, "owner@shareit.ru", "Owner");
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < ITEMS; i++) {
+            items.add(new Item((long) i + 1, "Перфоратор " + i, "Электрический, с набором буров", true, owner, null));
+        }
+        List<User> bookers = new ArrayList<>();
+        for (int i = 0; i < BOOKERS; i++) {
+            bookers.add(new User(i + 2, "booker" + i + "@shareit.ru", "Booker " + i));
+        }
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 12, 0);
+        List<Booking> page = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            page.add(new Booking((long) i + 1, Booking.BookingStatus.APPROVED, start.minusDays(i), start.minusDays(i - 1),
+                    items.get(i % ITEMS), bookers.get(i % BOOKERS)));
+        }
+        return page;
+    }
+}
@@ -0,0 +1,127 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.ShareItApp;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingService;
+import ru.practicum.shareit.booking.dto.BookItemRequestDto;
+import ru.practicum.shareit.exception.ObjectSaveException;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
+import ru.practicum.shareit.item.storage.ItemAvailabilityCalendar;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.storage.UserRepository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Вопрос «когда вещь свободна» для вещи с bookings одобренными бронированиями на месяц вперёд.
+ * cachedAvailability — календарь из кэша, uncachedAvailability — календарь после сброса кэша вещи
+ * (проверка вещи и один запрос по индексу), failedBookingAttempt — то, что клиент делал раньше:
+ * попытка бронирования на занятый период, которая проходит очередь вещи и падает в транзакции.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ItemAvailabilityBenchmark {
+    @Param({"30", "300"})
+    private int bookings;
+
+    private ConfigurableApplicationContext context;
+    private ItemService itemService;
+    private BookingService bookingService;
+    private ItemAvailabilityCalendar itemAvailabilityCalendar;
+    private long itemId;
+    private int bookerId;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private BookItemRequestDto busyRequest;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(ShareItApp.class)
+                .web(WebApplicationType.NONE)
+                .profiles("ci")
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:item-availability;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+                        "logging.level.root=WARN",
+                        "logging.level.org.springframework.orm.jpa=WARN",
+                        "logging.level.org.springframework.transaction=WARN",
+                        "logging.level.org.springframework.transaction.interceptor=WARN",
+                        "logging.level.org.springframework.orm.jpa.JpaTransactionManager=WARN")
+                .run();
+        itemService = context.getBean(ItemService.class);
+        bookingService = context.getBean(BookingService.class);
+        itemAvailabilityCalendar = context.getBean(ItemAvailabilityCalendar.class);
+
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        User owner = userRepository.save(new User(null, "owner@shareit.ru", "Owner"));
+        bookerId = userRepository.save(new User(null, "booker@shareit.ru", "Booker")).getId();
+        Item item = context.getBean(ItemRepository.class)
+                .save(new Item(null, "Вещь", "Описание вещи", true, owner, null));
+        itemId = item.getId();
+
+        from = LocalDateTime.now().plusDays(1).withNano(0);
+        to = from.plusDays(30);
+        long slotMinutes = 30L * 24 * 60 / bookings;
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < bookings; i++) {
+            LocalDateTime start = from.plusMinutes(i * slotMinutes);
+            rows.add(new Object[]{Booking.BookingStatus.APPROVED.name(), Timestamp.valueOf(start),
+                    Timestamp.valueOf(start.plusMinutes(slotMinutes / 2)), itemId, bookerId, owner.getId()});
+        }
+        context.getBean(JdbcTemplate.class).batchUpdate("insert into bookings " +
+                "(status, start_date, end_date, item_id, booker_id, owner_id) values (?, ?, ?, ?, ?, ?)", rows);
+        busyRequest = new BookItemRequestDto(0, from.plusMinutes(1), from.plusMinutes(2), itemId, bookerId);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ItemAvailabilityDto cachedAvailability() {
+        return itemService.getItemAvailability(itemId, from, to, false);
+    }
+
+    @Benchmark
+    public ItemAvailabilityDto uncachedAvailability() {
+        itemAvailabilityCalendar.invalidate(itemId);
+        return itemService.getItemAvailability(itemId, from, to, false);
+    }
+
+    @Benchmark
+    public Object failedBookingAttempt() {
+        try {
+            return bookingService.create(busyRequest, bookerId);
+        } catch (ObjectSaveException e) {
+            return e;
+        }
+    }
+}
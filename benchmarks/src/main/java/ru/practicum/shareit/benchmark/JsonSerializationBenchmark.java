@@ -0,0 +1,72 @@
+package ru.practicum.shareit.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingMapper;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.item.ItemMapper;
+import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.OwnerItemDto;
+import ru.practicum.shareit.user.User;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сериализация ответов в JSON тем же ObjectMapper, что настраивает Spring Boot для контроллеров.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializationBenchmark {
+    private static final int COMMENTS = 5;
+
+    private ObjectMapper objectMapper;
+    private BookingDto bookingDto;
+    private OwnerItemDto ownerItemDto;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        User owner = new User(1, "owner@shareit.ru", "Owner");
+        User booker = new User(2, "booker@shareit.ru", "Booker");
+        Item item = new Item(1L, "Перфоратор", "Электрический, с набором буров", true, owner, null);
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 12, 0);
+        Booking last = new Booking(1L, Booking.BookingStatus.APPROVED, start.minusDays(10), start.minusDays(8), item, booker);
+        Booking next = new Booking(2L, Booking.BookingStatus.APPROVED, start, start.plusDays(2), item, booker);
+
+        bookingDto = BookingMapper.toBookingDto(next);
+        ownerItemDto = ItemMapper.toOwnerItemDto(item);
+        ownerItemDto.setLastBooking(BookingMapper.toBookingRequestDto(last));
+        ownerItemDto.setNextBooking(BookingMapper.toBookingRequestDto(next));
+        for (long i = 1; i <= COMMENTS; i++) {
+            ownerItemDto.getComments().add(new CommentDto(i, "Отличный перфоратор, рекомендую", "Booker", start.minusDays(i)));
+        }
+    }
+
+    @Benchmark
+    public byte[] bookingDto() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(bookingDto);
+    }
+
+    @Benchmark
+    public byte[] ownerItemDto() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(ownerItemDto);
+    }
+}
@@ -0,0 +1,129 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.ShareItApp;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.storage.UserRepository;
+import ru.practicum.shareit.utils.PageCursor;
+
+import javax.persistence.EntityManager;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Первая страница бронирований владельца, у которого bookings бронирований на items вещах;
+ * столько же бронирований у другого владельца. Сравнивается выборка по bookings.owner_id
+ * (BookingRepository.findByOwnerId) с прежней выборкой через join items по i.owner.id.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OwnerBookingsBenchmark {
+    private static final int PAGE_SIZE = 20;
+    private static final String ITEM_OWNER_JOIN_QUERY = "select b from Booking b join fetch b.item i join fetch i.owner " +
+            "join fetch b.booker where i.owner.id = ?1 and (b.startDate < ?2 or (b.startDate = ?2 and b.id < ?3)) " +
+            "order by b.startDate desc, b.id desc";
+
+    @Param({"100"})
+    private int items;
+
+    @Param({"100000"})
+    private int bookings;
+
+    private ConfigurableApplicationContext context;
+    private BookingRepository bookingRepository;
+    private EntityManager entityManager;
+    private int ownerId;
+    private PageCursor firstPage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(ShareItApp.class)
+                .web(WebApplicationType.NONE)
+                .profiles("ci")
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:owner-bookings;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+                        "logging.level.root=WARN",
+                        "logging.level.org.springframework.orm.jpa=WARN",
+                        "logging.level.org.springframework.transaction=WARN",
+                        "logging.level.org.springframework.transaction.interceptor=WARN",
+                        "logging.level.org.springframework.orm.jpa.JpaTransactionManager=WARN")
+                .run();
+        bookingRepository = context.getBean(BookingRepository.class);
+        entityManager = context.getBean(EntityManager.class);
+        firstPage = PageCursor.descending(null);
+
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        User owner = userRepository.save(new User(null, "owner@shareit.ru", "Owner"));
+        User otherOwner = userRepository.save(new User(null, "other@shareit.ru", "Other"));
+        User booker = userRepository.save(new User(null, "booker@shareit.ru", "Booker"));
+        ownerId = owner.getId();
+
+        List<Item> savedItems = new ArrayList<>();
+        for (int i = 0; i < items; i++) {
+            savedItems.add(new Item(null, "Вещь " + i, "Описание вещи " + i, true, owner, null));
+            savedItems.add(new Item(null, "Чужая вещь " + i, "Описание чужой вещи " + i, true, otherOwner, null));
+        }
+        savedItems = context.getBean(ItemRepository.class).saveAll(savedItems);
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < bookings * 2; i++) {
+            Item item = savedItems.get(i % savedItems.size());
+            LocalDateTime start = now.minusHours(bookings).plusHours(i / 2);
+            rows.add(new Object[]{Booking.BookingStatus.APPROVED.name(), Timestamp.valueOf(start),
+                    Timestamp.valueOf(start.plusMinutes(30)), item.getId(), booker.getId(), item.getOwner().getId()});
+        }
+        context.getBean(JdbcTemplate.class).batchUpdate("insert into bookings " +
+                "(status, start_date, end_date, item_id, booker_id, owner_id) values (?, ?, ?, ?, ?, ?)", rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Booking> findByOwnerId() {
+        return bookingRepository.findByOwnerId(ownerId, firstPage.getTime(), firstPage.getId(),
+                PageRequest.of(0, PAGE_SIZE, Sort.by(Sort.Direction.DESC, "startDate", "id")));
+    }
+
+    @Benchmark
+    public List<Booking> findByItemOwnerJoin() {
+        return entityManager.createQuery(ITEM_OWNER_JOIN_QUERY, Booking.class)
+                .setParameter(1, ownerId)
+                .setParameter(2, firstPage.getTime())
+                .setParameter(3, firstPage.getId())
+                .setMaxResults(PAGE_SIZE)
+                .getResultList();
+    }
+}
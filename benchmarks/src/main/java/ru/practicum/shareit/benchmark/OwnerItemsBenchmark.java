@@ -0,0 +1,114 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.practicum.shareit.ShareItApp;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.item.Comment;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.dto.OwnerItemDto;
+import ru.practicum.shareit.item.storage.CommentRepository;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.item.storage.ItemSummaryUpdater;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.storage.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Список вещей владельца (ItemServiceImpl.getItemsByOwnerId) на H2 в памяти: страница вещей
+ * с историей одобренных бронирований, половина которых в прошлом, половина в будущем.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OwnerItemsBenchmark {
+    private static final int COMMENTS_PER_ITEM = 3;
+
+    @Param({"20"})
+    private int items;
+
+    @Param({"10", "100"})
+    private int bookingsPerItem;
+
+    private ConfigurableApplicationContext context;
+    private ItemService itemService;
+    private int ownerId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(ShareItApp.class)
+                .web(WebApplicationType.NONE)
+                .profiles("ci")
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:benchmark;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+                        "logging.level.root=WARN",
+                        "logging.level.org.springframework.orm.jpa=WARN",
+                        "logging.level.org.springframework.transaction=WARN",
+                        "logging.level.org.springframework.transaction.interceptor=WARN",
+                        "logging.level.org.springframework.orm.jpa.JpaTransactionManager=WARN")
+                .run();
+        itemService = context.getBean(ItemService.class);
+
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        User owner = userRepository.save(new User(null, "owner@shareit.ru", "Owner"));
+        User booker = userRepository.save(new User(null, "booker@shareit.ru", "Booker"));
+        ownerId = owner.getId();
+
+        List<Item> savedItems = new ArrayList<>();
+        for (int i = 0; i < items; i++) {
+            savedItems.add(new Item(null, "Вещь " + i, "Описание вещи " + i, true, owner, null));
+        }
+        savedItems = context.getBean(ItemRepository.class).saveAll(savedItems);
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Booking> bookings = new ArrayList<>();
+        List<Comment> comments = new ArrayList<>();
+        for (Item item : savedItems) {
+            for (int i = 0; i < bookingsPerItem; i++) {
+                LocalDateTime start = i % 2 == 0 ? now.minusDays(2L * i + 2) : now.plusDays(2L * i + 2);
+                bookings.add(new Booking(null, Booking.BookingStatus.APPROVED, start, start.plusDays(1), item, booker));
+            }
+            for (int i = 0; i < COMMENTS_PER_ITEM; i++) {
+                comments.add(new Comment(null, "Комментарий " + i, item, booker, now.minusDays(i)));
+            }
+        }
+        context.getBean(BookingRepository.class).saveAll(bookings);
+        context.getBean(CommentRepository.class).saveAll(comments);
+        ItemSummaryUpdater itemSummaryUpdater = context.getBean(ItemSummaryUpdater.class);
+        savedItems.forEach(item -> itemSummaryUpdater.refresh(item.getId()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Collection<OwnerItemDto> getItemsByOwnerId() {
+        return itemService.getItemsByOwnerId(ownerId, 0, items, null);
+    }
+}
@@ -0,0 +1,118 @@
+package ru.practicum.shareit.benchmark;
+
+import io.netty.channel.ChannelOption;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import ru.practicum.shareit.ShareItApp;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.user.UserDto;
+import ru.practicum.shareit.user.UserService;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сервер на платформенных и на виртуальных потоках Tomcat (shareit.threads.virtual): пачка из concurrency
+ * одновременных GET /items/{id}, каждый из которых идёт в базу через пул Hikari из 20 соединений.
+ * platform — пул Tomcat из 200 потоков, virtual — поток на запрос (нужна JDK 21, на более старой JVM
+ * запуск прерывается, чтобы не измерить платформенный пул под видом виртуального).
+ * Клиент держит concurrency соединений, чтобы одновременность доходила до сервера.
+ * Пропускная способность в запросах в секунду равна concurrency, делённому на время пачки.
+ * Закрепление виртуальных потоков: -Dbenchmark.args="-jvmArgsAppend -Djdk.tracePinnedThreads=short".
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class RequestThreadsBenchmark {
+    @Param({"platform", "virtual"})
+    private String mode;
+
+    @Param({"1000", "5000"})
+    private int concurrency;
+
+    private ConfigurableApplicationContext context;
+    private ConnectionProvider connectionProvider;
+    private WebClient webClient;
+    private String path;
+    private int userId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        boolean virtual = "virtual".equals(mode);
+        if (virtual && Runtime.version().feature() < 21) {
+            throw new IllegalStateException("mode=virtual needs JDK 21, running on " + Runtime.version());
+        }
+        context = new SpringApplicationBuilder(ShareItApp.class)
+                .profiles("ci")
+                .properties(
+                        "server.port=0",
+                        "shareit.threads.virtual=" + virtual,
+                        "spring.datasource.url=jdbc:h2:mem:request-threads;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+                        "logging.level.root=WARN",
+                        "logging.level.org.springframework.orm.jpa=WARN",
+                        "logging.level.org.springframework.transaction=WARN",
+                        "logging.level.org.springframework.transaction.interceptor=WARN",
+                        "logging.level.org.springframework.orm.jpa.JpaTransactionManager=WARN")
+                .run();
+        UserDto owner = context.getBean(UserService.class)
+                .create(new UserDto(null, "owner@shareit.ru", "Owner"));
+        ItemDto item = context.getBean(ItemService.class).create(owner.getId(), ItemDto.builder()
+                .name("Дрель")
+                .description("Ударная")
+                .available(true)
+                .build());
+        userId = owner.getId();
+        path = "/items/" + item.getId();
+
+        connectionProvider = ConnectionProvider.builder("benchmark")
+                .maxConnections(concurrency)
+                .pendingAcquireMaxCount(-1)
+                .pendingAcquireTimeout(Duration.ofMinutes(1))
+                .build();
+        webClient = WebClient.builder()
+                .baseUrl("http://localhost:" + context.getEnvironment().getProperty("local.server.port"))
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connectionProvider)
+                        .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 2000)))
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (connectionProvider != null) connectionProvider.dispose();
+        if (context != null) context.close();
+    }
+
+    @Benchmark
+    public void requestBatch() {
+        Flux.range(0, concurrency)
+                .flatMap(i -> webClient.get()
+                        .uri(path)
+                        .header("X-Sharer-User-Id", String.valueOf(userId))
+                        .retrieve()
+                        .bodyToMono(String.class), concurrency)
+                .then()
+                .block();
+    }
+}
@@ -0,0 +1,46 @@
+package ru.practicum.shareit.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Режим выполнения запросов. При shareit.threads.virtual=true и JVM с поддержкой виртуальных потоков
+ * Tomcat обрабатывает каждый запрос в отдельном виртуальном потоке, и число одновременных запросов
+ * ограничивают пулы соединений, а не пул потоков. На более старой JVM остаётся пул платформенных потоков.
+ * Общая для сервера и шлюза: оба подхватывают её сканированием пакета ru.practicum.shareit.
+ */
+@Slf4j
+@Configuration
+public class RequestExecutionConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "shareit.threads.virtual", havingValue = "true")
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadsCustomizer() {
+        ExecutorService executor = virtualThreadPerTaskExecutor();
+        return protocolHandler -> {
+            if (executor != null) {
+                protocolHandler.setExecutor(executor);
+            }
+        };
+    }
+
+    private static ExecutorService virtualThreadPerTaskExecutor() {
+        try {
+            ExecutorService executor = (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+            log.info("Request handling runs on virtual threads. Pinning diagnostics: -Djdk.tracePinnedThreads=short "
+                    + "or the jdk.VirtualThreadPinned JFR event");
+            return executor;
+        } catch (ReflectiveOperationException e) {
+            log.warn("Virtual threads are not supported by JVM {}, using the platform thread pool", Runtime.version());
+            return null;
+        }
+    }
+}
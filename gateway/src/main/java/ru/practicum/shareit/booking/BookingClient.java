@@ -1,60 +1,61 @@
 package ru.practicum.shareit.booking;
 
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
-import org.springframework.stereotype.Service;
-import org.springframework.web.util.DefaultUriBuilderFactory;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.booking.dto.BookItemRequestDto;
 import ru.practicum.shareit.booking.dto.BookingState;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.ServerTransport;
 
+import java.io.IOException;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 
-@Service
-public class BookingClient extends BaseClient {
-    private static final String API_PREFIX = "/bookings";
+public class BookingClient<R> extends BaseClient<R> {
+    public static final String API_PREFIX = "/bookings";
 
-    @Autowired
-    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
-        super(
-                builder
-                        .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
-        );
+    public BookingClient(ServerTransport<R> transport) {
+        super(transport);
     }
 
-    public ResponseEntity<Object> getBookings(int userId, BookingState state, Integer from, Integer size) {
-        Map<String, Object> parameters = Map.of(
+    public R getBookings(int userId, BookingState state, Integer from, Integer size, String after) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
                 "state", state.name(),
                 "from", from,
                 "size", size
-        );
-        return get("?state={state}&from={from}&size={size}", userId, parameters);
+        ));
+        return get(withCursor("?state={state}&from={from}&size={size}", parameters, after), userId, parameters);
     }
 
-    public ResponseEntity<Object> bookItem(int userId, BookItemRequestDto requestDto) {
+    public ResponseEntity<StreamingResponseBody> exportBookings(int userId, BookingState state) throws IOException {
+        return getStream("/export?state={state}", userId, Map.of("state", state.name()));
+    }
+
+    public ResponseEntity<StreamingResponseBody> exportBookingsByItemsOwner(int userId, BookingState state)
+            throws IOException {
+        return getStream("/owner/export?state={state}", userId, Map.of("state", state.name()));
+    }
+
+    public R bookItem(int userId, BookItemRequestDto requestDto) {
         return post("", userId, requestDto);
     }
 
-    public ResponseEntity<Object> getBooking(int userId, Long bookingId) {
+    public R getBooking(int userId, Long bookingId) {
         return get("/" + bookingId, userId);
     }
 
-    public ResponseEntity<Object> approve(int userId, long bookingId, boolean approved) {
+    public R approve(int userId, long bookingId, boolean approved) {
         return patch("/" + bookingId + "?approved={approved}", userId, Collections.singletonMap("approved", approved), null);
     }
 
-    public ResponseEntity<Object> getBookingsByItemsOwner(int userId, BookingState state, Integer from, Integer size) {
-        Map<String, Object> parameters = Map.of(
+    public R getBookingsByItemsOwner(int userId, BookingState state, Integer from, Integer size,
+                                     String after) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
                 "state", state.name(),
                 "from", from,
                 "size", size
-        );
-        return get("/owner?state={state}&from={from}&size={size}", userId, parameters);
+        ));
+        return get(withCursor("/owner?state={state}&from={from}&size={size}", parameters, after), userId, parameters);
     }
 }
\ No newline at end of file
@@ -2,6 +2,8 @@ package ru.practicum.shareit.booking;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
@@ -13,36 +15,54 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Mono;
+import ru.practicum.shareit.client.ServerClientFactory;
 import ru.practicum.shareit.booking.dto.BookItemRequestDto;
 import ru.practicum.shareit.booking.dto.BookingState;
 
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.io.IOException;
 import java.time.LocalDateTime;
 
-@Controller
+/**
+ * Обработчики возвращают то, что даёт транспорт клиента: ResponseEntity в блокирующем режиме и Mono
+ * в реактивном. Режим выбирает shareit-gateway.reactive.enabled, регистрируется один из вложенных классов.
+ */
 @RequestMapping(path = "/bookings")
 @RequiredArgsConstructor
 @Slf4j
 @Validated
-public class BookingController {
-    private final BookingClient bookingClient;
+public abstract class BookingController<R> {
+    private final BookingClient<R> bookingClient;
 
     @GetMapping
-    public ResponseEntity<Object> findBookingsBySearchState(@RequestHeader("X-Sharer-User-Id") int userId,
-                                                            @RequestParam(name = "state", defaultValue = "all") String stateParam,
-                                                            @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
-                                                            @Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
+    public R findBookingsBySearchState(@RequestHeader("X-Sharer-User-Id") int userId,
+                                       @RequestParam(name = "state", defaultValue = "all") String stateParam,
+                                       @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
+                                       @Positive @RequestParam(name = "size", defaultValue = "10") Integer size,
+                                       @RequestParam(required = false) String after) {
         BookingState state = BookingState.from(stateParam)
                 .orElseThrow(() -> new IllegalArgumentException("Unknown state: " + stateParam));
-        log.info("Get booking with state {}, userId={}, from={}, size={}", stateParam, userId, from, size);
-        return bookingClient.getBookings(userId, state, from, size);
+        log.info("Get booking with state {}, userId={}, from={}, size={}, after={}", stateParam, userId, from, size, after);
+        return bookingClient.getBookings(userId, state, from, size, after);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportBookings(
+            @RequestHeader("X-Sharer-User-Id") int userId,
+            @RequestParam(name = "state", defaultValue = "all") String stateParam) throws IOException {
+        BookingState state = BookingState.from(stateParam)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown state: " + stateParam));
+        log.info("Export bookings with state {}, userId={}", stateParam, userId);
+        return bookingClient.exportBookings(userId, state);
     }
 
     @PostMapping
-    public ResponseEntity<Object> create(@RequestHeader("X-Sharer-User-Id") int userId,
-                                         @RequestBody @Valid BookItemRequestDto requestDto) {
+    public R create(@RequestHeader("X-Sharer-User-Id") int userId,
+                    @RequestBody @Valid BookItemRequestDto requestDto) {
         if (!requestDto.getStart().isBefore(requestDto.getEnd()) ||
                 requestDto.getStart().isBefore(LocalDateTime.now())) {
             throw new IllegalArgumentException(String.format("Вещь недоступна для бронирования! Id=%d", requestDto.getItemId()));
@@ -52,26 +72,55 @@ public class BookingController {
     }
 
     @GetMapping("/{bookingId}")
-    public ResponseEntity<Object> findById(@PathVariable long bookingId, @RequestHeader("X-Sharer-User-Id") int userId) {
+    public R findById(@PathVariable long bookingId, @RequestHeader("X-Sharer-User-Id") int userId) {
         log.info("Get booking {}, userId={}", bookingId, userId);
         return bookingClient.getBooking(userId, bookingId);
     }
 
     @PatchMapping("/{bookingId}")
-    public ResponseEntity<Object> approve(@PathVariable long bookingId, @RequestHeader("X-Sharer-User-Id") int userId,
-                                          @RequestParam("approved") boolean approved) {
+    public R approve(@PathVariable long bookingId, @RequestHeader("X-Sharer-User-Id") int userId,
+                     @RequestParam("approved") boolean approved) {
         log.info("Approving booking {}, userId={}", bookingId, userId);
         return bookingClient.approve(userId, bookingId, approved);
     }
 
     @GetMapping("/owner")
-    public ResponseEntity<Object> findBookingsByItemsOwner(@RequestHeader("X-Sharer-User-Id") int userId,
-                                                           @RequestParam(name = "state", defaultValue = "all") String stateParam,
-                                                           @PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
-                                                           @Positive @RequestParam(defaultValue = "20") Integer size) {
+    public R findBookingsByItemsOwner(@RequestHeader("X-Sharer-User-Id") int userId,
+                                      @RequestParam(name = "state", defaultValue = "all") String stateParam,
+                                      @PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
+                                      @Positive @RequestParam(defaultValue = "20") Integer size,
+                                      @RequestParam(required = false) String after) {
+        BookingState state = BookingState.from(stateParam)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown state: " + stateParam));
+        log.info("Get items owner bookings with state {}, userId={}, from={}, size={}, after={}", stateParam, userId, from, size, after);
+        return bookingClient.getBookingsByItemsOwner(userId, state, from, size, after);
+    }
+
+    @GetMapping("/owner/export")
+    public ResponseEntity<StreamingResponseBody> exportBookingsByItemsOwner(
+            @RequestHeader("X-Sharer-User-Id") int userId,
+            @RequestParam(name = "state", defaultValue = "all") String stateParam) throws IOException {
         BookingState state = BookingState.from(stateParam)
                 .orElseThrow(() -> new IllegalArgumentException("Unknown state: " + stateParam));
-        log.info("Get items owner bookings with state {}, userId={}, from={}, size={}", stateParam, userId, from, size);
-        return bookingClient.getBookingsByItemsOwner(userId, state, from, size);
+        log.info("Export items owner bookings with state {}, userId={}", stateParam, userId);
+        return bookingClient.exportBookingsByItemsOwner(userId, state);
+    }
+
+    @Controller
+    @ConditionalOnProperty(name = "shareit-gateway.reactive.enabled", havingValue = "false", matchIfMissing = true)
+    public static class Blocking extends BookingController<ResponseEntity<Object>> {
+        @Autowired
+        public Blocking(ServerClientFactory clientFactory) {
+            super(new BookingClient<>(clientFactory.blockingTransport(BookingClient.API_PREFIX)));
+        }
+    }
+
+    @Controller
+    @ConditionalOnProperty(name = "shareit-gateway.reactive.enabled", havingValue = "true")
+    public static class Reactive extends BookingController<Mono<ResponseEntity<Object>>> {
+        @Autowired
+        public Reactive(ServerClientFactory clientFactory) {
+            super(new BookingClient<>(clientFactory.reactiveTransport(BookingClient.API_PREFIX)));
+        }
     }
 }
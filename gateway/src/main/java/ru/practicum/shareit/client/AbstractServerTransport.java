@@ -0,0 +1,121 @@
+package ru.practicum.shareit.client;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Общая часть транспортов. Тела ответов не разбираются: шлюз отдаёт клиенту байты сервера вместе со статусом,
+ * Content-Type и остальными заголовками ответа, кроме относящихся к самому соединению.
+ */
+abstract class AbstractServerTransport<R> implements ServerTransport<R> {
+    private static final Set<String> CONNECTION_HEADERS = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+
+    static {
+        CONNECTION_HEADERS.addAll(List.of(HttpHeaders.CONNECTION, HttpHeaders.CONTENT_LENGTH,
+                HttpHeaders.TRANSFER_ENCODING, "Keep-Alive"));
+    }
+
+    protected final RestTemplate rest;
+    protected final RestTemplate streamingRest;
+    protected final ClientHttpRequestFactory exportRequestFactory;
+    protected final String apiPrefix;
+    @Nullable
+    protected final GatewayResponseCache responseCache;
+
+    protected AbstractServerTransport(RestTemplate rest, RestTemplate streamingRest,
+                                      ClientHttpRequestFactory exportRequestFactory, String apiPrefix,
+                                      @Nullable GatewayResponseCache responseCache) {
+        this.rest = rest;
+        this.streamingRest = streamingRest;
+        this.exportRequestFactory = exportRequestFactory;
+        this.apiPrefix = apiPrefix;
+        this.responseCache = responseCache;
+    }
+
+    /**
+     * Ответ сервера открывается напрямую через фабрику запросов, а не через RestTemplate.execute, который
+     * закрывает его до возврата из обработчика. Ошибки сервера не разбираются: статус и тело передаются как есть.
+     */
+    @Override
+    public ResponseEntity<StreamingResponseBody> getStream(String path, @Nullable Integer userId,
+                                                           Map<String, ?> parameters) throws IOException {
+        ClientHttpRequest request = exportRequestFactory.createRequest(expand(path, parameters), HttpMethod.GET);
+        request.getHeaders().addAll(defaultHeaders(userId));
+        ClientHttpResponse serverResponse = request.execute();
+        try {
+            HttpHeaders headers = new HttpHeaders();
+            serverResponse.getHeaders().forEach((name, values) -> {
+                if (!CONNECTION_HEADERS.contains(name)) {
+                    headers.addAll(name, values);
+                }
+            });
+            return ResponseEntity.status(serverResponse.getRawStatusCode()).headers(headers).body(out -> {
+                try (serverResponse) {
+                    StreamUtils.copy(serverResponse.getBody(), out);
+                }
+            });
+        } catch (IOException | RuntimeException e) {
+            serverResponse.close();
+            throw e;
+        }
+    }
+
+    protected URI expand(String path, @Nullable Map<String, ?> parameters) {
+        return parameters != null
+                ? rest.getUriTemplateHandler().expand(path, parameters)
+                : rest.getUriTemplateHandler().expand(path);
+    }
+
+    protected void invalidateOnSuccess(ResponseEntity<Object> response, @Nullable Integer userId, URI uri) {
+        if (responseCache != null && response.getStatusCode().is2xxSuccessful()) {
+            responseCache.invalidate(userId, uri);
+        }
+    }
+
+    protected static HttpHeaders defaultHeaders(@Nullable Integer userId) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+        if (userId != null) {
+            headers.set("X-Sharer-User-Id", String.valueOf(userId));
+        }
+        return headers;
+    }
+
+    protected static ResponseEntity<Object> relay(HttpStatusCodeException e) {
+        return relay(e.getRawStatusCode(), e.getResponseHeaders(), e.getResponseBodyAsByteArray());
+    }
+
+    protected static ResponseEntity<Object> relay(int status, @Nullable HttpHeaders serverHeaders, @Nullable byte[] body) {
+        HttpHeaders headers = new HttpHeaders();
+        if (serverHeaders != null) {
+            serverHeaders.forEach((name, values) -> {
+                if (!CONNECTION_HEADERS.contains(name)) {
+                    headers.addAll(name, values);
+                }
+            });
+        }
+        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(status).headers(headers);
+        if (body == null || body.length == 0) {
+            return responseBuilder.build();
+        }
+        return responseBuilder.body(body);
+    }
+}
@@ -0,0 +1,80 @@
+package ru.practicum.shareit.client;
+
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Map;
+
+/**
+ * Запрос к серверу через RestTemplate в потоке запроса шлюза; обработчик возвращает готовый ResponseEntity.
+ */
+class BlockingServerTransport extends AbstractServerTransport<ResponseEntity<Object>> {
+
+    BlockingServerTransport(RestTemplate rest, RestTemplate streamingRest, ClientHttpRequestFactory exportRequestFactory,
+                            String apiPrefix, @Nullable GatewayResponseCache responseCache) {
+        super(rest, streamingRest, exportRequestFactory, apiPrefix, responseCache);
+    }
+
+    @Override
+    public <T> ResponseEntity<Object> exchange(HttpMethod method, String path, @Nullable Integer userId,
+                                               @Nullable Map<String, ?> parameters, @Nullable T body) {
+        if (responseCache == null) {
+            return send(method, path, userId, parameters, body);
+        }
+        URI uri = expand(path, parameters);
+        if (method == HttpMethod.GET) {
+            return responseCache.get(apiPrefix, userId, uri, () -> send(method, path, userId, parameters, body));
+        }
+        ResponseEntity<Object> response = send(method, path, userId, parameters, body);
+        invalidateOnSuccess(response, userId, uri);
+        return response;
+    }
+
+    @Override
+    public ResponseEntity<Object> postStream(String path, @Nullable Integer userId, MediaType contentType,
+                                             InputStream body) {
+        HttpHeaders headers = defaultHeaders(userId);
+        headers.setContentType(contentType);
+        ResponseEntity<Object> response;
+        try {
+            ResponseEntity<byte[]> shareitServerResponse = streamingRest.execute(path, HttpMethod.POST, request -> {
+                request.getHeaders().addAll(headers);
+                StreamUtils.copy(body, request.getBody());
+            }, streamingRest.responseEntityExtractor(byte[].class));
+            response = relay(shareitServerResponse.getStatusCodeValue(), shareitServerResponse.getHeaders(),
+                    shareitServerResponse.getBody());
+        } catch (HttpStatusCodeException e) {
+            response = relay(e);
+        }
+        invalidateOnSuccess(response, userId, expand(path, null));
+        return response;
+    }
+
+    private <T> ResponseEntity<Object> send(HttpMethod method, String path, @Nullable Integer userId,
+                                            @Nullable Map<String, ?> parameters, @Nullable T body) {
+        HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders(userId));
+
+        ResponseEntity<byte[]> shareitServerResponse;
+        try {
+            if (parameters != null) {
+                shareitServerResponse = rest.exchange(path, method, requestEntity, byte[].class, parameters);
+            } else {
+                shareitServerResponse = rest.exchange(path, method, requestEntity, byte[].class);
+            }
+        } catch (HttpStatusCodeException e) {
+            return relay(e);
+        }
+        return relay(shareitServerResponse.getStatusCodeValue(), shareitServerResponse.getHeaders(),
+                shareitServerResponse.getBody());
+    }
+}
@@ -0,0 +1,180 @@
+package ru.practicum.shareit.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Кэш ответов сервера на GET-запросы. Ответы хранятся по пользователю и полному адресу запроса
+ * в отдельном разделе на каждый префикс API; память раздела ограничена суммарным размером тел ответов.
+ * Изменяющий запрос через этот шлюз делает устаревшими ответы своего пользователя и ответы всех
+ * пользователей по изменённому ресурсу (/items/42, /bookings/7 и вложенные адреса). Остальные
+ * ответы других пользователей, как и ответы других экземпляров шлюза, устаревают не дольше ttl.
+ */
+@Component
+public class GatewayResponseCache {
+    private static final List<String> API_PREFIXES = List.of("/users", "/items", "/bookings", "/requests");
+    // Ключ, ссылки и заголовки ответа поверх тела
+    private static final int ENTRY_OVERHEAD = 512;
+
+    private final boolean enabled;
+    private final Map<String, Cache<String, CachedResponse>> partitions;
+    // Отметки последних изменений по пользователю и по ресурсу. Живут ttl: более старые ответы уже истекли
+    private final Cache<String, Long> userChanges;
+    private final Cache<String, Long> resourceChanges;
+    private final AtomicLong clock = new AtomicLong();
+
+    @Autowired
+    public GatewayResponseCache(@Value("${shareit-gateway.response-cache.enabled:true}") boolean enabled,
+                                @Value("${shareit-gateway.response-cache.ttl:2s}") Duration ttl,
+                                @Value("${shareit-gateway.response-cache.max-bytes:67108864}") long maxBytes,
+                                MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        long partitionBytes = Math.max(1, maxBytes / API_PREFIXES.size());
+        this.partitions = API_PREFIXES.stream()
+                .collect(Collectors.toUnmodifiableMap(Function.identity(),
+                        prefix -> createPartition(prefix, ttl, partitionBytes, meterRegistry)));
+        this.userChanges = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .build();
+        this.resourceChanges = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public ResponseEntity<Object> get(String apiPrefix, @Nullable Integer userId, URI uri,
+                                      Supplier<ResponseEntity<Object>> loader) {
+        Cache<String, CachedResponse> partition = partitions.get(apiPrefix);
+        if (!enabled || partition == null) {
+            return loader.get();
+        }
+        String key = userId + " " + uri;
+        String resource = resource(uri);
+        ResponseEntity<Object> cached = lookup(partition, key, userId, resource);
+        if (cached != null) {
+            return cached;
+        }
+        long loadedAt = clock.incrementAndGet();
+        ResponseEntity<Object> response = loader.get();
+        store(partition, key, userId, resource, loadedAt, response);
+        return response;
+    }
+
+    public Mono<ResponseEntity<Object>> getAsync(String apiPrefix, @Nullable Integer userId, URI uri,
+                                                 Supplier<Mono<ResponseEntity<Object>>> loader) {
+        Cache<String, CachedResponse> partition = partitions.get(apiPrefix);
+        if (!enabled || partition == null) {
+            return loader.get();
+        }
+        String key = userId + " " + uri;
+        String resource = resource(uri);
+        return Mono.defer(() -> {
+            ResponseEntity<Object> cached = lookup(partition, key, userId, resource);
+            if (cached != null) {
+                return Mono.just(cached);
+            }
+            long loadedAt = clock.incrementAndGet();
+            return loader.get().doOnNext(response -> store(partition, key, userId, resource, loadedAt, response));
+        });
+    }
+
+    /**
+     * Отмечает изменение пользователем userId ресурса по адресу uri изменяющего запроса.
+     */
+    public void invalidate(@Nullable Integer userId, URI uri) {
+        long changedAt = clock.incrementAndGet();
+        String resource = resource(uri);
+        userChanges.put(String.valueOf(userId), changedAt);
+        // Запись в коллекцию (POST /items) не трогает чужие списки: они устаревают за ttl
+        if (resource.indexOf('/', 1) > 0) {
+            resourceChanges.put(resource, changedAt);
+        }
+        // Изменение пользователя меняет и то, что видит он сам
+        if (resource.startsWith("/users/")) {
+            userChanges.put(resource.substring("/users/".length()), changedAt);
+        }
+    }
+
+    @Nullable
+    private ResponseEntity<Object> lookup(Cache<String, CachedResponse> partition, String key,
+                                          @Nullable Integer userId, String resource) {
+        CachedResponse cached = partition.getIfPresent(key);
+        return cached != null && cached.loadedAt > lastChange(userId, resource) ? cached.response : null;
+    }
+
+    // Ответ, прочитанный до изменения, может быть устаревшим, поэтому не кэшируется
+    private void store(Cache<String, CachedResponse> partition, String key, @Nullable Integer userId,
+                       String resource, long loadedAt, ResponseEntity<Object> response) {
+        if (response.getStatusCode().is2xxSuccessful() && loadedAt > lastChange(userId, resource)) {
+            partition.put(key, new CachedResponse(response, loadedAt));
+        }
+    }
+
+    long weightedSize(String apiPrefix) {
+        Cache<String, CachedResponse> partition = partitions.get(apiPrefix);
+        partition.cleanUp();
+        return partition.policy().eviction().orElseThrow().weightedSize().orElseThrow();
+    }
+
+    private long lastChange(@Nullable Integer userId, String resource) {
+        Long userChange = userChanges.getIfPresent(String.valueOf(userId));
+        Long resourceChange = resourceChanges.getIfPresent(resource);
+        return Math.max(userChange != null ? userChange : 0, resourceChange != null ? resourceChange : 0);
+    }
+
+    /**
+     * Первые два сегмента пути: /items/42/comment и /items/42/availability относятся к ресурсу /items/42.
+     */
+    static String resource(URI uri) {
+        String path = uri.getPath() != null ? uri.getPath() : "";
+        int first = path.indexOf('/', 1);
+        if (first < 0) {
+            return path;
+        }
+        int second = path.indexOf('/', first + 1);
+        return second < 0 ? path : path.substring(0, second);
+    }
+
+    private static Cache<String, CachedResponse> createPartition(String apiPrefix, Duration ttl, long maxBytes,
+                                                                 MeterRegistry meterRegistry) {
+        Cache<String, CachedResponse> cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumWeight(maxBytes)
+                .weigher((String key, CachedResponse cached) -> cached.weight(key))
+                .recordStats()
+                .build();
+        return CaffeineCacheMetrics.monitor(meterRegistry, cache, "gateway.responses", "prefix", apiPrefix);
+    }
+
+    private static class CachedResponse {
+        private final ResponseEntity<Object> response;
+        private final long loadedAt;
+
+        CachedResponse(ResponseEntity<Object> response, long loadedAt) {
+            this.response = response;
+            this.loadedAt = loadedAt;
+        }
+
+        int weight(String key) {
+            Object body = response.getBody();
+            long bodyLength = body instanceof byte[] ? ((byte[]) body).length : 0;
+            return (int) Math.min(Integer.MAX_VALUE, bodyLength + 2L * key.length() + ENTRY_OVERHEAD);
+        }
+    }
+}
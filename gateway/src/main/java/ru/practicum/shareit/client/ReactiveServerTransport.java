@@ -0,0 +1,83 @@
+package ru.practicum.shareit.client;
+
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Map;
+
+/**
+ * Запрос к серверу через WebClient: поток Tomcat освобождается, пока ответ сервера не получен.
+ */
+class ReactiveServerTransport extends AbstractServerTransport<Mono<ResponseEntity<Object>>> {
+    private static final int STREAM_BUFFER_SIZE = 8192;
+
+    private final WebClient webClient;
+
+    ReactiveServerTransport(RestTemplate rest, RestTemplate streamingRest, ClientHttpRequestFactory exportRequestFactory,
+                            WebClient webClient, String apiPrefix, @Nullable GatewayResponseCache responseCache) {
+        super(rest, streamingRest, exportRequestFactory, apiPrefix, responseCache);
+        this.webClient = webClient;
+    }
+
+    @Override
+    public <T> Mono<ResponseEntity<Object>> exchange(HttpMethod method, String path, @Nullable Integer userId,
+                                                     @Nullable Map<String, ?> parameters, @Nullable T body) {
+        if (responseCache == null) {
+            return send(method, path, userId, parameters, body);
+        }
+        URI uri = expand(path, parameters);
+        if (method == HttpMethod.GET) {
+            return responseCache.getAsync(apiPrefix, userId, uri, () -> send(method, path, userId, parameters, body));
+        }
+        return send(method, path, userId, parameters, body)
+                .doOnNext(response -> invalidateOnSuccess(response, userId, uri));
+    }
+
+    /**
+     * Тело читается из InputStream запроса блокирующе, поэтому чтение вынесено с потоков событий
+     * reactor-netty на boundedElastic: медленная загрузка не задерживает другие запросы на том же потоке.
+     */
+    @Override
+    public Mono<ResponseEntity<Object>> postStream(String path, @Nullable Integer userId, MediaType contentType,
+                                                   InputStream body) {
+        URI uri = expand(path, null);
+        return webClient.post()
+                .uri(path)
+                .headers(headers -> {
+                    headers.addAll(defaultHeaders(userId));
+                    headers.setContentType(contentType);
+                })
+                .body(BodyInserters.fromDataBuffers(DataBufferUtils.readInputStream(() -> body,
+                        DefaultDataBufferFactory.sharedInstance, STREAM_BUFFER_SIZE)
+                        .subscribeOn(Schedulers.boundedElastic())))
+                .exchangeToMono(ReactiveServerTransport::toEntity)
+                .doOnNext(response -> invalidateOnSuccess(response, userId, uri));
+    }
+
+    private <T> Mono<ResponseEntity<Object>> send(HttpMethod method, String path, @Nullable Integer userId,
+                                                  @Nullable Map<String, ?> parameters, @Nullable T body) {
+        WebClient.RequestBodySpec request = webClient.method(method)
+                .uri(path, parameters != null ? parameters : Map.of())
+                .headers(headers -> headers.addAll(defaultHeaders(userId)));
+        return (body != null ? request.bodyValue(body) : request)
+                .exchangeToMono(ReactiveServerTransport::toEntity);
+    }
+
+    private static Mono<ResponseEntity<Object>> toEntity(ClientResponse response) {
+        return response.toEntity(byte[].class)
+                .map(entity -> relay(entity.getStatusCodeValue(), entity.getHeaders(), entity.getBody()));
+    }
+}
@@ -0,0 +1,113 @@
+package ru.practicum.shareit.client;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Создаёт транспорты к серверу для префикса API. Реактивный транспорт (WebClient) доступен только
+ * в реактивном режиме (shareit-gateway.reactive.enabled=true), блокирующий выполняет запросы через RestTemplate.
+ */
+@Component
+public class ServerClientFactory {
+    private final String serverUrl;
+    private final RestTemplateBuilder restTemplateBuilder;
+    private final ClientHttpRequestFactory requestFactory;
+    private final ClientHttpRequestFactory exportRequestFactory;
+    private final WebClient.Builder webClientBuilder;
+    private final ReactorClientHttpConnector connector;
+    private final GatewayResponseCache responseCache;
+
+    @Autowired
+    public ServerClientFactory(@Value("${shareit-server.url}") String serverUrl,
+                               RestTemplateBuilder restTemplateBuilder,
+                               ClientHttpRequestFactory requestFactory,
+                               WebClient.Builder webClientBuilder,
+                               ObjectProvider<ReactorClientHttpConnector> connector,
+                               GatewayResponseCache responseCache,
+                               @Value("${shareit-server.http.export-read-timeout:10m}") Duration exportReadTimeout) {
+        this.serverUrl = serverUrl;
+        this.restTemplateBuilder = restTemplateBuilder;
+        this.requestFactory = requestFactory;
+        this.exportRequestFactory = exportRequestFactory(requestFactory, exportReadTimeout);
+        this.webClientBuilder = webClientBuilder;
+        this.connector = connector.getIfAvailable();
+        this.responseCache = responseCache;
+    }
+
+    public ServerTransport<ResponseEntity<Object>> blockingTransport(String apiPrefix) {
+        return new BlockingServerTransport(restTemplate(apiPrefix), streamingRestTemplate(apiPrefix),
+                exportRequestFactory, apiPrefix, responseCache);
+    }
+
+    public ServerTransport<Mono<ResponseEntity<Object>>> reactiveTransport(String apiPrefix) {
+        WebClient webClient = webClient(apiPrefix);
+        if (webClient == null) {
+            throw new IllegalStateException("Reactive transport requires shareit-gateway.reactive.enabled=true");
+        }
+        return new ReactiveServerTransport(restTemplate(apiPrefix), streamingRestTemplate(apiPrefix),
+                exportRequestFactory, webClient, apiPrefix, responseCache);
+    }
+
+    public RestTemplate restTemplate(String apiPrefix) {
+        return restTemplateBuilder
+                .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + apiPrefix))
+                .requestFactory(() -> requestFactory)
+                .build();
+    }
+
+    /**
+     * RestTemplate, который не буферизует тело запроса, а передаёт его серверу по мере чтения.
+     */
+    public RestTemplate streamingRestTemplate(String apiPrefix) {
+        if (!(requestFactory instanceof HttpComponentsClientHttpRequestFactory)) {
+            return restTemplate(apiPrefix);
+        }
+        HttpComponentsClientHttpRequestFactory streamingFactory = new HttpComponentsClientHttpRequestFactory(
+                ((HttpComponentsClientHttpRequestFactory) requestFactory).getHttpClient());
+        streamingFactory.setBufferRequestBody(false);
+        return restTemplateBuilder
+                .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + apiPrefix))
+                .requestFactory(() -> streamingFactory)
+                .build();
+    }
+
+    /**
+     * Фабрика запросов выгрузок: тот же пул соединений, но свой таймаут чтения, потому что сервер отдаёт
+     * выгрузку дольше обычного ответа.
+     */
+    private static ClientHttpRequestFactory exportRequestFactory(ClientHttpRequestFactory requestFactory,
+                                                                 Duration readTimeout) {
+        if (!(requestFactory instanceof HttpComponentsClientHttpRequestFactory)) {
+            return requestFactory;
+        }
+        HttpComponentsClientHttpRequestFactory exportFactory = new HttpComponentsClientHttpRequestFactory(
+                ((HttpComponentsClientHttpRequestFactory) requestFactory).getHttpClient());
+        exportFactory.setReadTimeout((int) readTimeout.toMillis());
+        return exportFactory;
+    }
+
+    @Nullable
+    public WebClient webClient(String apiPrefix) {
+        if (connector == null) {
+            return null;
+        }
+        return webClientBuilder.clone()
+                .uriBuilderFactory(new DefaultUriBuilderFactory(serverUrl + apiPrefix))
+                .clientConnector(connector)
+                .build();
+    }
+}
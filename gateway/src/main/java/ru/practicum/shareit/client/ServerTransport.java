@@ -0,0 +1,35 @@
+package ru.practicum.shareit.client;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+/**
+ * Способ выполнения запросов к серверу. R — то, что возвращают обработчики шлюза: ResponseEntity
+ * в блокирующем режиме и Mono в реактивном, чтобы Spring MVC включал асинхронную обработку только там,
+ * где она что-то даёт.
+ */
+public interface ServerTransport<R> {
+
+    <T> R exchange(HttpMethod method, String path, @Nullable Integer userId, @Nullable Map<String, ?> parameters,
+                   @Nullable T body);
+
+    /**
+     * POST с телом, которое передаётся серверу потоком, без чтения в память шлюза.
+     */
+    R postStream(String path, @Nullable Integer userId, MediaType contentType, InputStream body);
+
+    /**
+     * GET, ответ которого копируется клиенту шлюза по мере получения, без чтения в память. Поток запроса
+     * ждёт только заголовков ответа сервера, тело копирует StreamingResponseBody в асинхронном потоке MVC
+     * с отдельным таймаутом чтения shareit-server.http.export-read-timeout. Одинаково в обоих режимах.
+     */
+    ResponseEntity<StreamingResponseBody> getStream(String path, @Nullable Integer userId, Map<String, ?> parameters)
+            throws IOException;
+}
@@ -1,62 +1,85 @@
 package ru.practicum.shareit.item;
 
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
-import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
-import org.springframework.stereotype.Service;
-import org.springframework.web.util.DefaultUriBuilderFactory;
+import org.springframework.http.MediaType;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.ServerTransport;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.Map;
 
-@Service
-public class ItemClient extends BaseClient {
-    private static final String API_PREFIX = "/items";
-
-    @Autowired
-    public ItemClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
-        super(
-                builder
-                        .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
-        );
+public class ItemClient<R> extends BaseClient<R> {
+    public static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    public static final String API_PREFIX = "/items";
+
+    public ItemClient(ServerTransport<R> transport) {
+        super(transport);
     }
 
-    public ResponseEntity<Object> addItem(int userId, ItemDto itemDto) {
+    public R addItem(int userId, ItemDto itemDto) {
         return post("", userId, itemDto);
     }
 
-    public ResponseEntity<Object> updateItem(int userId, long itemId, ItemDto itemDto) {
+    public R importItems(int userId, InputStream items) {
+        return postStream("/import", userId, NDJSON, items);
+    }
+
+    public R updateItem(int userId, long itemId, ItemDto itemDto) {
         return patch("/" + itemId, userId, itemDto);
     }
 
-    public ResponseEntity<Object> getItemById(long itemId, Integer userId) {
-        return get("/" + itemId, userId);
+    public R getItemById(long itemId, Integer userId, Integer commentsSize) {
+        if (commentsSize == null) {
+            return get("/" + itemId, userId);
+        }
+        return get("/" + itemId + "?commentsSize={commentsSize}", userId, Map.of("commentsSize", commentsSize));
     }
 
-    public ResponseEntity<Object> getItemsByOwnerId(int userId, Integer from, Integer size) {
-        Map<String, ?> parameters = Map.of(
-                "from", from,
+    public R getItemComments(long itemId, Integer userId, Integer size, String after) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
                 "size", size
+        ));
+        return get(withCursor("/" + itemId + "/comments?size={size}", parameters, after), userId, parameters);
+    }
+
+    public R getItemAvailability(long itemId, LocalDateTime from, LocalDateTime to,
+                                 boolean waiting) {
+        Map<String, Object> parameters = Map.of(
+                "from", from,
+                "to", to,
+                "waiting", waiting
         );
-        return get("?from={from}&size={size}", userId, parameters);
+        return get("/" + itemId + "/availability?from={from}&to={to}&waiting={waiting}", null, parameters);
+    }
+
+    public R getItemsByOwnerId(int userId, Integer from, Integer size, String after) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
+                "from", from,
+                "size", size
+        ));
+        return get(withCursor("?from={from}&size={size}", parameters, after), userId, parameters);
     }
 
-    public ResponseEntity<Object> searchItems(String text, Integer from, Integer size) {
-        Map<String, ?> parameters = Map.of(
+    public R searchItems(String text, LocalDateTime start, LocalDateTime end, Integer from,
+                         Integer size, String after) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
                 "text", text,
                 "from", from.toString(),
                 "size", size.toString()
-        );
-        return get("/search?text={text}&from={from}&size={size}", null, parameters);
+        ));
+        String path = "/search?text={text}&from={from}&size={size}";
+        if (start != null) {
+            parameters.put("start", start);
+            parameters.put("end", end);
+            path += "&start={start}&end={end}";
+        }
+        return get(withCursor(path, parameters, after), null, parameters);
     }
 
-    public ResponseEntity<Object> saveComment(int userId, CommentDto commentDto, long itemId) {
+    public R saveComment(int userId, CommentDto commentDto, long itemId) {
         return post("/" + itemId + "/comment", userId, commentDto);
     }
 }
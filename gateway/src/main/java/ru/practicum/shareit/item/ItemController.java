@@ -2,6 +2,9 @@ package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
@@ -13,60 +16,124 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import reactor.core.publisher.Mono;
+import ru.practicum.shareit.client.ServerClientFactory;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.io.IOException;
+import java.time.LocalDateTime;
 
-@Controller
+/**
+ * Обработчики возвращают то, что даёт транспорт клиента: ResponseEntity в блокирующем режиме и Mono
+ * в реактивном. Режим выбирает shareit-gateway.reactive.enabled, регистрируется один из вложенных классов.
+ */
 @RequestMapping(path = "/items")
 @RequiredArgsConstructor
 @Slf4j
 @Validated
-public class ItemController {
-    private final ItemClient itemClient;
+public abstract class ItemController<R> {
+    private final ItemClient<R> itemClient;
 
     @PostMapping
-    public ResponseEntity<Object> addItem(@RequestHeader("X-Sharer-User-Id") int userId, @Valid @RequestBody ItemDto itemDto) {
+    public R addItem(@RequestHeader("X-Sharer-User-Id") int userId, @Valid @RequestBody ItemDto itemDto) {
         log.info("Creating item {}, userId={}", itemDto, userId);
         return itemClient.addItem(userId, itemDto);
     }
 
+    @PostMapping(path = "/import", consumes = "application/x-ndjson")
+    public R importItems(@RequestHeader("X-Sharer-User-Id") int userId,
+                         HttpServletRequest request) throws IOException {
+        log.info("Importing items, userId={}", userId);
+        return itemClient.importItems(userId, request.getInputStream());
+    }
+
     @PatchMapping("/{itemId}")
-    public ResponseEntity<Object> updateItem(@RequestHeader("X-Sharer-User-Id") int userId, @PathVariable long itemId, @RequestBody ItemDto itemDto) {
+    public R updateItem(@RequestHeader("X-Sharer-User-Id") int userId, @PathVariable long itemId, @RequestBody ItemDto itemDto) {
         log.info("Updating item itemId={} item={}, userId={}", itemId, itemDto, userId);
         return itemClient.updateItem(userId, itemId, itemDto);
     }
 
     @GetMapping("/{itemId}")
-    public ResponseEntity<Object> getItemById(@PathVariable long itemId, @RequestHeader(value = "X-Sharer-User-Id", required = false) Integer userId) {
-        log.info("Getting item itemId={}, userId={}", itemId, userId);
-        return itemClient.getItemById(itemId, userId);
+    public R getItemById(@PathVariable long itemId, @RequestHeader(value = "X-Sharer-User-Id", required = false) Integer userId,
+                         @Positive @RequestParam(required = false) Integer commentsSize) {
+        log.info("Getting item itemId={}, userId={}, commentsSize={}", itemId, userId, commentsSize);
+        return itemClient.getItemById(itemId, userId, commentsSize);
+    }
+
+    @GetMapping("/{itemId}/comments")
+    public R getItemComments(@PathVariable long itemId,
+                             @RequestHeader(value = "X-Sharer-User-Id", required = false) Integer userId,
+                             @Positive @RequestParam(defaultValue = "20") Integer size,
+                             @RequestParam(required = false) String after) {
+        log.info("Getting comments itemId={}, userId={}, size={}, after={}", itemId, userId, size, after);
+        return itemClient.getItemComments(itemId, userId, size, after);
+    }
+
+    @GetMapping("/{itemId}/availability")
+    public R getItemAvailability(@PathVariable long itemId,
+                                 @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                 @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                 @RequestParam(defaultValue = "false") boolean waiting) {
+        log.info("Getting availability itemId={}, from={}, to={}, waiting={}", itemId, from, to, waiting);
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException(String.format("Начало периода должно быть раньше окончания! from=%s, to=%s", from, to));
+        }
+        return itemClient.getItemAvailability(itemId, from, to, waiting);
     }
 
     @GetMapping
-    public ResponseEntity<Object> getItemsByOwnerId(@RequestHeader("X-Sharer-User-Id") int userId,
-                                                    @PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
-                                                    @Positive @RequestParam(defaultValue = "20") Integer size) {
-        log.info("Getting items by ownerId userId={}", userId);
-        return itemClient.getItemsByOwnerId(userId, from, size);
+    public R getItemsByOwnerId(@RequestHeader("X-Sharer-User-Id") int userId,
+                               @PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
+                               @Positive @RequestParam(defaultValue = "20") Integer size,
+                               @RequestParam(required = false) String after) {
+        log.info("Getting items by ownerId userId={}, after={}", userId, after);
+        return itemClient.getItemsByOwnerId(userId, from, size, after);
     }
 
     @GetMapping("/search")
-    public ResponseEntity<Object> searchItems(@RequestParam("text") String text,
-                                              @PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
-                                              @Positive @RequestParam(defaultValue = "20") Integer size) {
-        log.info("Searching items by text text={}", text);
-        return itemClient.searchItems(text, from, size);
+    public R searchItems(@RequestParam("text") String text,
+                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+                         @PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
+                         @Positive @RequestParam(defaultValue = "20") Integer size,
+                         @RequestParam(required = false) String after) {
+        log.info("Searching items by text text={}, start={}, end={}, after={}", text, start, end, after);
+        if ((start == null) != (end == null)) {
+            throw new IllegalArgumentException("Для поиска свободных вещей нужно указать start и end!");
+        }
+        if (start != null && !start.isBefore(end)) {
+            throw new IllegalArgumentException(String.format("Начало периода должно быть раньше окончания! start=%s, end=%s", start, end));
+        }
+        return itemClient.searchItems(text, start, end, from, size, after);
     }
 
     @PostMapping("/{itemId}/comment")
-    public ResponseEntity<Object> saveComment(@RequestHeader("X-Sharer-User-Id") int userId,
-                                              @Valid @RequestBody CommentDto commentDto, @PathVariable long itemId) {
+    public R saveComment(@RequestHeader("X-Sharer-User-Id") int userId,
+                         @Valid @RequestBody CommentDto commentDto, @PathVariable long itemId) {
         log.info("Adding items comment userId={} itemId={}", userId, itemId);
         return itemClient.saveComment(userId, commentDto, itemId);
     }
 
+    @Controller
+    @ConditionalOnProperty(name = "shareit-gateway.reactive.enabled", havingValue = "false", matchIfMissing = true)
+    public static class Blocking extends ItemController<ResponseEntity<Object>> {
+        @Autowired
+        public Blocking(ServerClientFactory clientFactory) {
+            super(new ItemClient<>(clientFactory.blockingTransport(ItemClient.API_PREFIX)));
+        }
+    }
+
+    @Controller
+    @ConditionalOnProperty(name = "shareit-gateway.reactive.enabled", havingValue = "true")
+    public static class Reactive extends ItemController<Mono<ResponseEntity<Object>>> {
+        @Autowired
+        public Reactive(ServerClientFactory clientFactory) {
+            super(new ItemClient<>(clientFactory.reactiveTransport(ItemClient.API_PREFIX)));
+        }
+    }
 }
@@ -0,0 +1,93 @@
+package ru.practicum.shareit.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import ru.practicum.shareit.handler.ErrorResponse;
+import ru.practicum.shareit.ratelimit.RateLimiter.EndpointClass;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пропускает запрос к серверу, только если в корзине пользователя есть маркер для его класса,
+ * иначе сразу отвечает 429 с Retry-After. Пользователь определяется по X-Sharer-User-Id,
+ * запросы без него — по адресу клиента.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RateLimitFilter extends OncePerRequestFilter {
+    private static final String USER_HEADER = "X-Sharer-User-Id";
+    private static final Set<String> ROUTES = Set.of("users", "items", "bookings", "requests");
+
+    private final RateLimiter rateLimiter;
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper;
+    private final Map<String, Counter> throttled = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RateLimitFilter(RateLimiter rateLimiter, MeterRegistry meterRegistry, ObjectMapper objectMapper) {
+        this.rateLimiter = rateLimiter;
+        this.meterRegistry = meterRegistry;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !rateLimiter.isEnabled() || request.getRequestURI().startsWith("/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String path = request.getRequestURI();
+        EndpointClass endpointClass = EndpointClass.of(request.getMethod(), path);
+        String userId = request.getHeader(USER_HEADER);
+        String userKey = userId != null ? userId : "addr:" + request.getRemoteAddr();
+        long waitNanos = rateLimiter.tryAcquire(userKey, endpointClass);
+        if (waitNanos == 0) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        String route = route(path);
+        throttled.computeIfAbsent(route + " " + endpointClass, key -> Counter.builder("gateway.ratelimit.throttled")
+                        .tag("route", route)
+                        .tag("class", endpointClass.name())
+                        .register(meterRegistry))
+                .increment();
+        long retryAfter = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        log.debug("Throttled {} {} for {}, retry after {}s", request.getMethod(), path, userKey, retryAfter);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), new ErrorResponse("Too Many Requests",
+                String.format("Слишком много запросов! Повторите через %d с.", retryAfter)));
+    }
+
+    // Метка маршрута — префикс API, чтобы число счётчиков не зависело от id в адресах
+    private static String route(String path) {
+        int start = path.startsWith("/") ? 1 : 0;
+        int end = path.indexOf('/', start);
+        String prefix = end < 0 ? path.substring(start) : path.substring(start, end);
+        return ROUTES.contains(prefix) ? "/" + prefix : "other";
+    }
+}
@@ -0,0 +1,124 @@
+package ru.practicum.shareit.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Ограничение частоты запросов пользователя по классам запросов. Корзина маркеров каждого класса
+ * хранится как одно «теоретическое время прихода» следующего запроса (GCRA) и меняется через CAS
+ * без блокировок. Корзины пользователей лежат в Caffeine с ограничением числа пользователей и
+ * истечением после простоя; простой не короче времени полного наполнения корзины, поэтому
+ * вытесненная корзина и новая одинаково полны.
+ */
+@Component
+public class RateLimiter {
+    private final boolean enabled;
+    private final long[] emissionIntervals = new long[EndpointClass.values().length];
+    private final long[] burstTolerances = new long[EndpointClass.values().length];
+    private final Cache<String, AtomicLongArray> buckets;
+    private final LongSupplier nanoClock;
+
+    @Autowired
+    public RateLimiter(@Value("${shareit-gateway.rate-limit.enabled:true}") boolean enabled,
+                       @Value("${shareit-gateway.rate-limit.read.capacity:100}") int readCapacity,
+                       @Value("${shareit-gateway.rate-limit.read.per-second:50}") double readPerSecond,
+                       @Value("${shareit-gateway.rate-limit.write.capacity:20}") int writeCapacity,
+                       @Value("${shareit-gateway.rate-limit.write.per-second:10}") double writePerSecond,
+                       @Value("${shareit-gateway.rate-limit.bulk.capacity:2}") int bulkCapacity,
+                       @Value("${shareit-gateway.rate-limit.bulk.per-second:0.1}") double bulkPerSecond,
+                       @Value("${shareit-gateway.rate-limit.max-users:1000000}") long maxUsers,
+                       @Value("${shareit-gateway.rate-limit.idle-expiry:10m}") Duration idleExpiry,
+                       MeterRegistry meterRegistry) {
+        this(enabled, readCapacity, readPerSecond, writeCapacity, writePerSecond, bulkCapacity, bulkPerSecond,
+                maxUsers, idleExpiry, meterRegistry, System::nanoTime);
+    }
+
+    RateLimiter(boolean enabled, int readCapacity, double readPerSecond, int writeCapacity, double writePerSecond,
+                int bulkCapacity, double bulkPerSecond, long maxUsers, Duration idleExpiry, MeterRegistry meterRegistry,
+                LongSupplier nanoClock) {
+        this.enabled = enabled;
+        this.nanoClock = nanoClock;
+        configure(EndpointClass.READ, readCapacity, readPerSecond);
+        configure(EndpointClass.WRITE, writeCapacity, writePerSecond);
+        configure(EndpointClass.BULK, bulkCapacity, bulkPerSecond);
+        long expiryNanos = idleExpiry.toNanos();
+        for (long tolerance : burstTolerances) {
+            expiryNanos = Math.max(expiryNanos, tolerance);
+        }
+        this.buckets = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterAccess(expiryNanos, TimeUnit.NANOSECONDS)
+                .ticker(nanoClock::getAsLong)
+                .recordStats()
+                .<String, AtomicLongArray>build(), "gateway.ratelimit.buckets");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Забирает маркер из корзины пользователя. Возвращает 0, если запрос разрешён, иначе время
+     * в наносекундах, через которое в корзине появится маркер.
+     */
+    public long tryAcquire(String userKey, EndpointClass endpointClass) {
+        AtomicLongArray arrivals = buckets.get(userKey, key -> newBuckets());
+        long now = nanoClock.getAsLong();
+        int slot = endpointClass.ordinal();
+        long interval = emissionIntervals[slot];
+        long tolerance = burstTolerances[slot];
+        while (true) {
+            long arrival = arrivals.get(slot);
+            long nextArrival = Math.max(arrival, now) + interval;
+            long wait = nextArrival - now - tolerance;
+            if (wait > 0) {
+                return wait;
+            }
+            if (arrivals.compareAndSet(slot, arrival, nextArrival)) {
+                return 0;
+            }
+        }
+    }
+
+    private void configure(EndpointClass endpointClass, int capacity, double perSecond) {
+        if (capacity < 1 || perSecond <= 0) {
+            throw new IllegalArgumentException(String.format("Некорректный лимит запросов %s: capacity=%d, per-second=%s",
+                    endpointClass, capacity, perSecond));
+        }
+        long interval = (long) Math.ceil(TimeUnit.SECONDS.toNanos(1) / perSecond);
+        emissionIntervals[endpointClass.ordinal()] = interval;
+        burstTolerances[endpointClass.ordinal()] = capacity * interval;
+    }
+
+    private static AtomicLongArray newBuckets() {
+        AtomicLongArray arrivals = new AtomicLongArray(EndpointClass.values().length);
+        for (int i = 0; i < arrivals.length(); i++) {
+            arrivals.set(i, Long.MIN_VALUE);
+        }
+        return arrivals;
+    }
+
+    public enum EndpointClass {
+        READ,
+        WRITE,
+        // Выгрузка и загрузка NDJSON: один запрос читает или пишет всю историю пользователя
+        BULK;
+
+        public static EndpointClass of(String method, String path) {
+            if (path.endsWith("/import") || path.endsWith("/export")) {
+                return BULK;
+            }
+            return "GET".equals(method) || "HEAD".equals(method) ? READ : WRITE;
+        }
+    }
+}
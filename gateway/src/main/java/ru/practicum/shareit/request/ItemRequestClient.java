@@ -1,48 +1,36 @@
 package ru.practicum.shareit.request;
 
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
-import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
-import org.springframework.stereotype.Service;
-import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.ServerTransport;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 
+import java.util.HashMap;
 import java.util.Map;
 
-@Service
-public class ItemRequestClient extends BaseClient {
-    private static final String API_PREFIX = "/requests";
-
-    @Autowired
-    public ItemRequestClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
-        super(
-                builder
-                        .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
-        );
+public class ItemRequestClient<R> extends BaseClient<R> {
+    public static final String API_PREFIX = "/requests";
+
+    public ItemRequestClient(ServerTransport<R> transport) {
+        super(transport);
     }
 
-    public ResponseEntity<Object> create(int userId, ItemRequestDto itemRequestDto) {
+    public R create(int userId, ItemRequestDto itemRequestDto) {
         return post("", userId, itemRequestDto);
     }
 
-    public ResponseEntity<Object> findUserItemRequests(int userId) {
+    public R findUserItemRequests(int userId) {
         return get("", userId);
     }
 
-    public ResponseEntity<Object> findOtherItemRequests(int userId, Integer from, Integer size) {
-        Map<String, ?> parameters = Map.of(
+    public R findOtherItemRequests(int userId, Integer from, Integer size, String after) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
                 "from", from.toString(),
                 "size", size.toString()
-        );
-        return get("/all", userId, parameters);
+        ));
+        return get(withCursor("/all?from={from}&size={size}", parameters, after), userId, parameters);
     }
 
-    public ResponseEntity<Object> findById(int userId, Long requestId) {
+    public R findById(int userId, Long requestId) {
         return get("/" + requestId, userId);
     }
 }
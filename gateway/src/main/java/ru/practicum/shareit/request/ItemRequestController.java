@@ -2,6 +2,8 @@ package ru.practicum.shareit.request;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
@@ -12,47 +14,70 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import reactor.core.publisher.Mono;
+import ru.practicum.shareit.client.ServerClientFactory;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
 
-@Controller
+/**
+ * Обработчики возвращают то, что даёт транспорт клиента: ResponseEntity в блокирующем режиме и Mono
+ * в реактивном. Режим выбирает shareit-gateway.reactive.enabled, регистрируется один из вложенных классов.
+ */
 @RequestMapping(path = "/requests")
 @RequiredArgsConstructor
 @Slf4j
 @Validated
-public class ItemRequestController {
+public abstract class ItemRequestController<R> {
 
-    private final ItemRequestClient itemRequestClient;
+    private final ItemRequestClient<R> itemRequestClient;
 
     @PostMapping
-    public ResponseEntity<Object> create(@RequestHeader("X-Sharer-User-Id") int userId,
-                                         @Valid @RequestBody ItemRequestDto itemRequestDto) {
+    public R create(@RequestHeader("X-Sharer-User-Id") int userId,
+                    @Valid @RequestBody ItemRequestDto itemRequestDto) {
         log.info("Creating item request {}, userId={}", itemRequestDto, userId);
         return itemRequestClient.create(userId, itemRequestDto);
     }
 
     @GetMapping
-    public ResponseEntity<Object> findUserItemRequests(@RequestHeader("X-Sharer-User-Id") int userId) {
+    public R findUserItemRequests(@RequestHeader("X-Sharer-User-Id") int userId) {
         log.info("Find user item requests userId={}", userId);
         return itemRequestClient.findUserItemRequests(userId);
     }
 
     @GetMapping("/all")
-    public ResponseEntity<Object> findOtherItemRequests(@RequestHeader("X-Sharer-User-Id") int userId,
-                                                        @PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
-                                                        @Positive @RequestParam(defaultValue = "20") Integer size) {
-        log.info("Find item requests userId={}, from={}, size={}", userId, from, size);
-        return itemRequestClient.findOtherItemRequests(userId, from, size);
+    public R findOtherItemRequests(@RequestHeader("X-Sharer-User-Id") int userId,
+                                   @PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
+                                   @Positive @RequestParam(defaultValue = "20") Integer size,
+                                   @RequestParam(required = false) String after) {
+        log.info("Find item requests userId={}, from={}, size={}, after={}", userId, from, size, after);
+        return itemRequestClient.findOtherItemRequests(userId, from, size, after);
     }
 
     @GetMapping("/{requestId}")
-    public ResponseEntity<Object> findById(@RequestHeader("X-Sharer-User-Id") int userId,
-                                           @PathVariable Long requestId) {
+    public R findById(@RequestHeader("X-Sharer-User-Id") int userId,
+                      @PathVariable Long requestId) {
         log.info("Find item request userId={}, requestId={}", userId, requestId);
         return itemRequestClient.findById(userId, requestId);
     }
 
+    @Controller
+    @ConditionalOnProperty(name = "shareit-gateway.reactive.enabled", havingValue = "false", matchIfMissing = true)
+    public static class Blocking extends ItemRequestController<ResponseEntity<Object>> {
+        @Autowired
+        public Blocking(ServerClientFactory clientFactory) {
+            super(new ItemRequestClient<>(clientFactory.blockingTransport(ItemRequestClient.API_PREFIX)));
+        }
+    }
+
+    @Controller
+    @ConditionalOnProperty(name = "shareit-gateway.reactive.enabled", havingValue = "true")
+    public static class Reactive extends ItemRequestController<Mono<ResponseEntity<Object>>> {
+        @Autowired
+        public Reactive(ServerClientFactory clientFactory) {
+            super(new ItemRequestClient<>(clientFactory.reactiveTransport(ItemRequestClient.API_PREFIX)));
+        }
+    }
 }
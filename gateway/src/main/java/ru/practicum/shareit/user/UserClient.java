@@ -1,46 +1,33 @@
 package ru.practicum.shareit.user;
 
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
-import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
-import org.springframework.stereotype.Service;
-import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.client.BaseClient;
+import ru.practicum.shareit.client.ServerTransport;
 import ru.practicum.shareit.user.dto.UserDto;
 
-@Service
-public class UserClient extends BaseClient {
-    private static final String API_PREFIX = "/users";
-
-    @Autowired
-    public UserClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
-        super(
-                builder
-                        .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
-        );
+public class UserClient<R> extends BaseClient<R> {
+    public static final String API_PREFIX = "/users";
+
+    public UserClient(ServerTransport<R> transport) {
+        super(transport);
     }
 
-    public ResponseEntity<Object> findAll() {
+    public R findAll() {
         return get("");
     }
 
-    public ResponseEntity<Object> create(UserDto userDto) {
+    public R create(UserDto userDto) {
         return post("", userDto);
     }
 
-    public ResponseEntity<Object> update(int id, UserDto userDto) {
+    public R update(int id, UserDto userDto) {
         return patch("/" + id, userDto);
     }
 
-    public ResponseEntity<Object> getUserById(int id) {
+    public R getUserById(int id) {
         return get("/" + id);
     }
 
-    public ResponseEntity<Object> deleteUserById(int id) {
+    public R deleteUserById(int id) {
         return delete("/" + id);
     }
 }
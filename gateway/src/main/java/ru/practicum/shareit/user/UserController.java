@@ -2,6 +2,8 @@ package ru.practicum.shareit.user;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
@@ -12,46 +14,69 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import reactor.core.publisher.Mono;
+import ru.practicum.shareit.client.ServerClientFactory;
 import ru.practicum.shareit.user.dto.UserDto;
 
 import javax.validation.Valid;
 
-@Controller
+/**
+ * Обработчики возвращают то, что даёт транспорт клиента: ResponseEntity в блокирующем режиме и Mono
+ * в реактивном. Режим выбирает shareit-gateway.reactive.enabled, регистрируется один из вложенных классов.
+ */
 @RequestMapping(path = "/users")
 @RequiredArgsConstructor
 @Slf4j
 @Validated
-public class UserController {
+public abstract class UserController<R> {
 
-    private final UserClient userClient;
+    private final UserClient<R> userClient;
 
     @GetMapping
-    public ResponseEntity<Object> findAll() {
+    public R findAll() {
         log.info("Find all users");
         return userClient.findAll();
     }
 
     @PostMapping
-    public ResponseEntity<Object> create(@Valid @RequestBody UserDto userDto) {
+    public R create(@Valid @RequestBody UserDto userDto) {
         log.info("Create user {}", userDto);
         return userClient.create(userDto);
     }
 
     @PatchMapping(value = "/{id}")
-    public ResponseEntity<Object> update(@PathVariable int id, @RequestBody UserDto userDto) {
+    public R update(@PathVariable int id, @RequestBody UserDto userDto) {
         log.info("Updating userId={}, user {}", id, userDto);
         return userClient.update(id, userDto);
     }
 
     @GetMapping(value = "/{id}")
-    public ResponseEntity<Object> getUserById(@PathVariable int id) {
+    public R getUserById(@PathVariable int id) {
         log.info("Getting user userId={}", id);
         return userClient.getUserById(id);
     }
 
     @DeleteMapping(value = "/{id}")
-    public ResponseEntity<Object> deleteUserById(@PathVariable int id) {
+    public R deleteUserById(@PathVariable int id) {
         log.info("User deleting userId={}", id);
         return userClient.deleteUserById(id);
     }
+
+    @Controller
+    @ConditionalOnProperty(name = "shareit-gateway.reactive.enabled", havingValue = "false", matchIfMissing = true)
+    public static class Blocking extends UserController<ResponseEntity<Object>> {
+        @Autowired
+        public Blocking(ServerClientFactory clientFactory) {
+            super(new UserClient<>(clientFactory.blockingTransport(UserClient.API_PREFIX)));
+        }
+    }
+
+    @Controller
+    @ConditionalOnProperty(name = "shareit-gateway.reactive.enabled", havingValue = "true")
+    public static class Reactive extends UserController<Mono<ResponseEntity<Object>>> {
+        @Autowired
+        public Reactive(ServerClientFactory clientFactory) {
+            super(new UserClient<>(clientFactory.reactiveTransport(UserClient.API_PREFIX)));
+        }
+    }
 }
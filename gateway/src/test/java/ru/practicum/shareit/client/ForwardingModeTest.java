@@ -0,0 +1,215 @@
+package ru.practicum.shareit.client;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.DelegatingServletInputStream;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.LoopResources;
+import ru.practicum.shareit.ShareItGateway;
+import ru.practicum.shareit.item.ItemController;
+
+import javax.servlet.ServletInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Шлюз в обоих режимах перед заглушкой сервера. Блокирующий режим отвечает без асинхронной обработки,
+ * реактивный возвращает Mono. Выгрузки в обоих режимах копируются асинхронно.
+ */
+public class ForwardingModeTest {
+    private static final int IMPORT_LINES = 2000;
+    private static final String BODY = "{\"id\":1,\"name\":\"Drill\",\"description\":\"Cordless\",\"available\":true}";
+    private static final String EXPORT = "{\"id\":1,\"status\":\"WAITING\"}\n{\"id\":2,\"status\":\"APPROVED\"}\n";
+
+    // Свои потоки: закрытие контекста шлюза освобождает общие ресурсы reactor-netty
+    private static LoopResources loops;
+    private static DisposableServer server;
+
+    @BeforeAll
+    static void startServer() {
+        loops = LoopResources.create("stub-server");
+        server = HttpServer.create()
+                .runOn(loops)
+                .host("127.0.0.1")
+                .port(0)
+                .route(routes -> routes.get("/items/1", (request, response) -> response
+                        .header("Content-Type", "application/json")
+                        .header("X-Next-Cursor", "next")
+                        .sendString(Mono.just(BODY)))
+                        .get("/bookings/export", (request, response) -> response
+                                .header("Content-Type", "application/x-ndjson")
+                                .sendString(Mono.just(EXPORT)))
+                        .post("/items/import", (request, response) -> response
+                                .header("Content-Type", "application/json")
+                                .sendString(request.receive().aggregate().asString()
+                                        .map(body -> "{\"imported\":" + body.lines().count() + "}"))))
+                .bindNow();
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.disposeNow();
+        loops.dispose();
+    }
+
+    @Test
+    void testBlockingModeRespondsWithoutAsyncDispatch() throws Exception {
+        try (ConfigurableApplicationContext context = start(false)) {
+            Assertions.assertTrue(context.getBean(ItemController.class) instanceof ItemController.Blocking);
+
+            mockMvc(context).perform(get("/items/1").header("X-Sharer-User-Id", 1))
+                    .andExpect(request().asyncNotStarted())
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("X-Next-Cursor", "next"))
+                    .andExpect(content().json(BODY));
+        }
+    }
+
+    @Test
+    void testBlockingModeStreamsExportAsynchronously() throws Exception {
+        try (ConfigurableApplicationContext context = start(false)) {
+            MockMvc mockMvc = mockMvc(context);
+
+            MvcResult result = mockMvc.perform(get("/bookings/export").header("X-Sharer-User-Id", 1))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("Content-Type", "application/x-ndjson"))
+                    .andExpect(content().string(EXPORT));
+        }
+    }
+
+    @Test
+    void testReactiveModeRespondsWithMono() throws Exception {
+        try (ConfigurableApplicationContext context = start(true)) {
+            Assertions.assertTrue(context.getBean(ItemController.class) instanceof ItemController.Reactive);
+            MockMvc mockMvc = mockMvc(context);
+
+            MvcResult result = mockMvc.perform(get("/items/1").header("X-Sharer-User-Id", 1))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("X-Next-Cursor", "next"))
+                    .andExpect(content().json(BODY));
+        }
+    }
+
+    @Test
+    void testReactiveModeStreamsSlowImportOffEventLoop() throws Exception {
+        try (ConfigurableApplicationContext context = start(true)) {
+            MockMvc mockMvc = mockMvc(context);
+            SlowNdjsonStream items = new SlowNdjsonStream(IMPORT_LINES);
+            RequestBuilder upload = servletContext -> {
+                MockHttpServletRequest request = new MockHttpServletRequest(servletContext, "POST", "/items/import") {
+                    @Override
+                    public ServletInputStream getInputStream() {
+                        return new DelegatingServletInputStream(items);
+                    }
+                };
+                request.setContentType("application/x-ndjson");
+                request.addHeader("X-Sharer-User-Id", 1);
+                return request;
+            };
+
+            MvcResult result = mockMvc.perform(upload)
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(content().json("{\"imported\":" + IMPORT_LINES + "}"));
+            Assertions.assertFalse(items.readers.isEmpty());
+            Assertions.assertTrue(items.readers.stream().noneMatch(name -> name.startsWith("reactor-http")),
+                    "Тело читалось на потоках событий: " + items.readers);
+        }
+    }
+
+    private static ConfigurableApplicationContext start(boolean reactive) {
+        return new SpringApplicationBuilder(ShareItGateway.class)
+                .run("--server.port=0",
+                        "--shareit-server.url=http://127.0.0.1:" + server.port(),
+                        "--shareit-gateway.reactive.enabled=" + reactive);
+    }
+
+    private static MockMvc mockMvc(ConfigurableApplicationContext context) {
+        return MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+    }
+
+    /**
+     * Тело импорта, которое отдаётся с задержкой на каждом чтении, как медленная загрузка клиента.
+     * Запоминает потоки, на которых его читали.
+     */
+    private static class SlowNdjsonStream extends InputStream {
+        private final Set<String> readers = ConcurrentHashMap.newKeySet();
+        private final int lines;
+        private int line;
+        private byte[] current = new byte[0];
+        private int position;
+
+        SlowNdjsonStream(int lines) {
+            this.lines = lines;
+        }
+
+        @Override
+        public int read() {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            readers.add(Thread.currentThread().getName());
+            if (position == current.length) {
+                if (line == lines) {
+                    return -1;
+                }
+                current = nextChunk();
+                position = 0;
+                pause();
+            }
+            int count = Math.min(length, current.length - position);
+            System.arraycopy(current, position, buffer, offset, count);
+            position += count;
+            return count;
+        }
+
+        private byte[] nextChunk() {
+            StringBuilder chunk = new StringBuilder();
+            for (int i = 0; i < 100 && line < lines; i++, line++) {
+                chunk.append("{\"name\":\"Drill ").append(line)
+                        .append("\",\"description\":\"Cordless\",\"available\":true}\n");
+            }
+            return chunk.toString().getBytes(StandardCharsets.UTF_8);
+        }
+
+        private static void pause() {
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
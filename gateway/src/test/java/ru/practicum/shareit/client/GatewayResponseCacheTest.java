@@ -0,0 +1,175 @@
+package ru.practicum.shareit.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+public class GatewayResponseCacheTest {
+    private static final URI ITEMS = URI.create("http://localhost:9090/items");
+    private static final URI ITEM = URI.create("http://localhost:9090/items/42");
+    private static final URI ITEM_AVAILABILITY = URI.create("http://localhost:9090/items/42/availability");
+    private static final URI OTHER_ITEM = URI.create("http://localhost:9090/items/43");
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void testGetReturnsCachedResponseForSameUserAndUri() {
+        GatewayResponseCache cache = cache(1024 * 1024);
+
+        ResponseEntity<Object> first = get(cache, 1, ITEMS);
+        ResponseEntity<Object> second = get(cache, 1, ITEMS);
+
+        Assertions.assertSame(first, second);
+        Assertions.assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testGetMissesForOtherUserOrUri() {
+        GatewayResponseCache cache = cache(1024 * 1024);
+
+        get(cache, 1, ITEMS);
+        get(cache, 2, ITEMS);
+        get(cache, 1, ITEM);
+
+        Assertions.assertEquals(3, loads.get());
+    }
+
+    @Test
+    void testGetDoesNotCacheErrorResponses() {
+        GatewayResponseCache cache = cache(1024 * 1024);
+        Supplier<ResponseEntity<Object>> notFound = () -> {
+            loads.incrementAndGet();
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        };
+
+        cache.get("/items", 1, ITEM, notFound);
+        cache.get("/items", 1, ITEM, notFound);
+
+        Assertions.assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testGetBypassesDisabledCache() {
+        GatewayResponseCache cache = new GatewayResponseCache(false, Duration.ofMinutes(1), 1024 * 1024,
+                new SimpleMeterRegistry());
+
+        get(cache, 1, ITEMS);
+        get(cache, 1, ITEMS);
+
+        Assertions.assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testInvalidateDropsWriterResponsesOnly() {
+        GatewayResponseCache cache = cache(1024 * 1024);
+        get(cache, 1, ITEMS);
+        get(cache, 2, ITEMS);
+
+        cache.invalidate(1, ITEMS);
+        get(cache, 1, ITEMS);
+        get(cache, 2, ITEMS);
+
+        Assertions.assertEquals(3, loads.get());
+    }
+
+    @Test
+    void testInvalidateDropsChangedResourceForAllUsers() {
+        GatewayResponseCache cache = cache(1024 * 1024);
+        get(cache, 2, ITEM);
+        get(cache, 2, ITEM_AVAILABILITY);
+        get(cache, 2, OTHER_ITEM);
+
+        cache.invalidate(1, URI.create("http://localhost:9090/items/42/comment"));
+        get(cache, 2, ITEM);
+        get(cache, 2, ITEM_AVAILABILITY);
+        get(cache, 2, OTHER_ITEM);
+
+        Assertions.assertEquals(5, loads.get());
+    }
+
+    @Test
+    void testInvalidateOfUserDropsThatUserResponses() {
+        GatewayResponseCache cache = cache(1024 * 1024);
+        get(cache, 5, ITEMS);
+
+        cache.invalidate(null, URI.create("http://localhost:9090/users/5"));
+        get(cache, 5, ITEMS);
+
+        Assertions.assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testGetDoesNotCacheResponseLoadedBeforeChange() {
+        GatewayResponseCache cache = cache(1024 * 1024);
+        Supplier<ResponseEntity<Object>> racingLoader = () -> {
+            loads.incrementAndGet();
+            cache.invalidate(1, ITEM);
+            return ResponseEntity.ok(new byte[16]);
+        };
+
+        cache.get("/items", 2, ITEM, racingLoader);
+        get(cache, 2, ITEM);
+
+        Assertions.assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testGetAsyncSharesEntriesAndChangeStamps() {
+        GatewayResponseCache cache = cache(1024 * 1024);
+        Supplier<Mono<ResponseEntity<Object>>> loader = () -> Mono.fromSupplier(() -> {
+            loads.incrementAndGet();
+            return ResponseEntity.ok(new byte[16]);
+        });
+
+        Mono<ResponseEntity<Object>> response = cache.getAsync("/items", 1, ITEM, loader);
+        Assertions.assertEquals(0, loads.get());
+        ResponseEntity<Object> first = response.block();
+        Assertions.assertSame(first, get(cache, 1, ITEM));
+        Assertions.assertSame(first, cache.getAsync("/items", 1, ITEM, loader).block());
+
+        cache.invalidate(2, ITEM);
+        cache.getAsync("/items", 1, ITEM, loader).block();
+
+        Assertions.assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testPartitionWeightIsBoundedByBodyBytes() {
+        GatewayResponseCache cache = cache(4 * 20_000);
+
+        for (int i = 0; i < 50; i++) {
+            URI uri = URI.create("http://localhost:9090/items?from=" + i);
+            cache.get("/items", 1, uri, () -> ResponseEntity.ok(new byte[2_000]));
+        }
+
+        long weight = cache.weightedSize("/items");
+        Assertions.assertTrue(weight <= 20_000, "weight " + weight);
+        Assertions.assertTrue(weight >= 2_000, "weight " + weight);
+    }
+
+    @Test
+    void testResourceIsFirstTwoPathSegments() {
+        Assertions.assertEquals("/items/42", GatewayResponseCache.resource(ITEM_AVAILABILITY));
+        Assertions.assertEquals("/items/42", GatewayResponseCache.resource(ITEM));
+        Assertions.assertEquals("/items", GatewayResponseCache.resource(URI.create("http://localhost:9090/items?from=0")));
+    }
+
+    private GatewayResponseCache cache(long maxBytes) {
+        return new GatewayResponseCache(true, Duration.ofMinutes(1), maxBytes, new SimpleMeterRegistry());
+    }
+
+    private ResponseEntity<Object> get(GatewayResponseCache cache, Integer userId, URI uri) {
+        return cache.get("/items", userId, uri, () -> {
+            loads.incrementAndGet();
+            return ResponseEntity.ok(new byte[16]);
+        });
+    }
+}
@@ -0,0 +1,84 @@
+package ru.practicum.shareit.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class RateLimitFilterTest {
+    private final AtomicLong clock = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RateLimitFilter filter = new RateLimitFilter(new RateLimiter(true, 100, 50, 2, 0.4, 2, 0.1, 1000,
+            Duration.ofMinutes(10), meterRegistry, clock::get), meterRegistry, new ObjectMapper());
+
+    @Test
+    void testDoFilterPassesRequestsWithinBurst() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            MockFilterChain chain = new MockFilterChain();
+            MockHttpServletResponse response = post("/items/1/comment", "1", chain);
+
+            Assertions.assertEquals(HttpStatus.OK.value(), response.getStatus());
+            Assertions.assertNotNull(chain.getRequest());
+        }
+    }
+
+    @Test
+    void testDoFilterRejectsWithRetryAfter() throws Exception {
+        post("/items/1/comment", "1", new MockFilterChain());
+        post("/items/1/comment", "1", new MockFilterChain());
+        MockFilterChain chain = new MockFilterChain();
+
+        MockHttpServletResponse response = post("/items/1/comment", "1", chain);
+
+        Assertions.assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), response.getStatus());
+        // Один маркер в 2.5 с, ожидание округляется вверх до целых секунд
+        Assertions.assertEquals("3", response.getHeader(HttpHeaders.RETRY_AFTER));
+        Assertions.assertTrue(response.getContentAsString().contains("Too Many Requests"));
+        Assertions.assertNull(chain.getRequest());
+        Assertions.assertEquals(1.0, meterRegistry.get("gateway.ratelimit.throttled")
+                .tag("route", "/items")
+                .tag("class", "WRITE")
+                .counter().count());
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(3));
+        Assertions.assertEquals(HttpStatus.OK.value(), post("/items/1/comment", "1", new MockFilterChain()).getStatus());
+    }
+
+    @Test
+    void testDoFilterLimitsUsersSeparately() throws Exception {
+        post("/bookings", "1", new MockFilterChain());
+        post("/bookings", "1", new MockFilterChain());
+
+        Assertions.assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(),
+                post("/bookings", "1", new MockFilterChain()).getStatus());
+        Assertions.assertEquals(HttpStatus.OK.value(), post("/bookings", "2", new MockFilterChain()).getStatus());
+        Assertions.assertEquals(HttpStatus.OK.value(), post("/bookings", null, new MockFilterChain()).getStatus());
+    }
+
+    @Test
+    void testDoFilterSkipsActuator() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            Assertions.assertEquals(HttpStatus.OK.value(),
+                    post("/actuator/health", "1", new MockFilterChain()).getStatus());
+        }
+    }
+
+    private MockHttpServletResponse post(String path, String userId, MockFilterChain chain) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        if (userId != null) {
+            request.addHeader("X-Sharer-User-Id", userId);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+}
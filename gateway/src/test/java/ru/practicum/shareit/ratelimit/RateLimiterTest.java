@@ -0,0 +1,118 @@
+package ru.practicum.shareit.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.ratelimit.RateLimiter.EndpointClass;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class RateLimiterTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final AtomicLong clock = new AtomicLong(1_000 * SECOND);
+
+    @Test
+    void testTryAcquireAdmitsBurstUpToCapacity() {
+        RateLimiter rateLimiter = rateLimiter(5, 1);
+
+        for (int i = 0; i < 5; i++) {
+            Assertions.assertEquals(0, rateLimiter.tryAcquire("1", EndpointClass.WRITE));
+        }
+        Assertions.assertEquals(SECOND, rateLimiter.tryAcquire("1", EndpointClass.WRITE));
+    }
+
+    @Test
+    void testTryAcquireRefillsOverTime() {
+        RateLimiter rateLimiter = rateLimiter(2, 2);
+        rateLimiter.tryAcquire("1", EndpointClass.WRITE);
+        rateLimiter.tryAcquire("1", EndpointClass.WRITE);
+        Assertions.assertEquals(SECOND / 2, rateLimiter.tryAcquire("1", EndpointClass.WRITE));
+
+        clock.addAndGet(SECOND / 4);
+        Assertions.assertEquals(SECOND / 4, rateLimiter.tryAcquire("1", EndpointClass.WRITE));
+
+        clock.addAndGet(SECOND / 4);
+        Assertions.assertEquals(0, rateLimiter.tryAcquire("1", EndpointClass.WRITE));
+        Assertions.assertTrue(rateLimiter.tryAcquire("1", EndpointClass.WRITE) > 0);
+
+        // После долгого простоя корзина полна, но не больше ёмкости
+        clock.addAndGet(60 * SECOND);
+        Assertions.assertEquals(0, rateLimiter.tryAcquire("1", EndpointClass.WRITE));
+        Assertions.assertEquals(0, rateLimiter.tryAcquire("1", EndpointClass.WRITE));
+        Assertions.assertTrue(rateLimiter.tryAcquire("1", EndpointClass.WRITE) > 0);
+    }
+
+    @Test
+    void testTryAcquireKeepsSeparateBucketsPerUserAndClass() {
+        RateLimiter rateLimiter = rateLimiter(1, 1);
+
+        Assertions.assertEquals(0, rateLimiter.tryAcquire("1", EndpointClass.WRITE));
+        Assertions.assertTrue(rateLimiter.tryAcquire("1", EndpointClass.WRITE) > 0);
+        Assertions.assertEquals(0, rateLimiter.tryAcquire("2", EndpointClass.WRITE));
+        Assertions.assertEquals(0, rateLimiter.tryAcquire("1", EndpointClass.READ));
+    }
+
+    @Test
+    void testConcurrentTryAcquireNeverAdmitsMoreThanBurst() throws Exception {
+        int capacity = 50;
+        int threads = 16;
+        int attemptsPerThread = 200;
+        RateLimiter rateLimiter = rateLimiter(capacity, 0.001);
+        AtomicInteger admitted = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                workers.add(executor.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < attemptsPerThread; j++) {
+                        if (rateLimiter.tryAcquire("1", EndpointClass.WRITE) == 0) {
+                            admitted.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Assertions.assertEquals(capacity, admitted.get());
+    }
+
+    @Test
+    void testEndpointClassOf() {
+        Assertions.assertEquals(EndpointClass.READ, EndpointClass.of("GET", "/items/1"));
+        Assertions.assertEquals(EndpointClass.READ, EndpointClass.of("HEAD", "/items"));
+        Assertions.assertEquals(EndpointClass.WRITE, EndpointClass.of("PATCH", "/bookings/1"));
+        Assertions.assertEquals(EndpointClass.BULK, EndpointClass.of("POST", "/items/import"));
+        Assertions.assertEquals(EndpointClass.BULK, EndpointClass.of("GET", "/bookings/export"));
+    }
+
+    @Test
+    void testConstructorRejectsInvalidLimit() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> rateLimiter(0, 1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> rateLimiter(1, 0));
+    }
+
+    private RateLimiter rateLimiter(int writeCapacity, double writePerSecond) {
+        return new RateLimiter(true, 100, 50, writeCapacity, writePerSecond, 2, 0.1, 1000,
+                Duration.ofMinutes(10), new SimpleMeterRegistry(), clock::get);
+    }
+}
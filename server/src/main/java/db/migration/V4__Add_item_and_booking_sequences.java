@@ -0,0 +1,40 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Переводит id вещей и бронирований с IDENTITY на последовательности с шагом 50: Hibernate резервирует
+ * блок id одним обращением и может вставлять строки пакетами. Последовательность начинается после текущего
+ * максимального id, а значение по умолчанию колонки берётся из неё же, чтобы вставки мимо JPA
+ * не пересекались с выданными блоками. На Java, потому что стартовое значение зависит от данных.
+ */
+public class V4__Add_item_and_booking_sequences extends BaseJavaMigration {
+    public static final int ALLOCATION_SIZE = 50;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        boolean postgres = "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName());
+        try (Statement statement = connection.createStatement()) {
+            for (String table : List.of("items", "bookings")) {
+                String sequence = table + "_seq";
+                long start;
+                try (ResultSet maxId = statement.executeQuery("select coalesce(max(id), 0) from " + table)) {
+                    maxId.next();
+                    start = maxId.getLong(1) + ALLOCATION_SIZE;
+                }
+                statement.execute("create sequence " + sequence + " start with " + start +
+                        " increment by " + ALLOCATION_SIZE);
+                statement.execute("alter table " + table + " alter column id drop identity");
+                statement.execute("alter table " + table + " alter column id set default " +
+                        (postgres ? "nextval('" + sequence + "')" : "next value for " + sequence));
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Однократно строит поисковый индекс item_ngrams для вещей, созданных до его появления. Граммы строит
+ * собственная копия токенизатора на момент миграции, а не ItemSearchIndex: если токенизатор приложения
+ * изменится, эта миграция должна давать прежний результат. Вещи читаются порциями по id, строки индекса
+ * пишутся пакетами. Прежнее содержимое таблицы удаляется, чтобы результат не зависел от того, успело
+ * ли его заполнить приложение.
+ */
+public class V6__Backfill_item_ngrams extends BaseJavaMigration {
+    private static final int DEFAULT_CHUNK_SIZE = 500;
+    private static final int GRAM_SIZE = 3;
+
+    private final int chunkSize;
+
+    public V6__Backfill_item_ngrams() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    public V6__Backfill_item_ngrams(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("delete from item_ngrams");
+        }
+        try (PreparedStatement select = connection.prepareStatement("select id, name, description from items " +
+                "where available = true and id > ? order by id limit " + chunkSize);
+             PreparedStatement insert = connection.prepareStatement(
+                     "insert into item_ngrams (gram, item_id) values (?, ?)")) {
+            long afterId = 0;
+            int rows = chunkSize;
+            while (rows == chunkSize) {
+                rows = 0;
+                select.setLong(1, afterId);
+                try (ResultSet items = select.executeQuery()) {
+                    while (items.next()) {
+                        afterId = items.getLong("id");
+                        Set<String> grams = grams(items.getString("name"));
+                        grams.addAll(grams(items.getString("description")));
+                        for (String gram : grams) {
+                            insert.setString(1, gram);
+                            insert.setLong(2, afterId);
+                            insert.addBatch();
+                        }
+                        rows++;
+                    }
+                }
+                insert.executeBatch();
+            }
+        }
+    }
+
+    // Все подстроки длиной от 1 до 3 символов в нижнем регистре без учёта локали
+    private static Set<String> grams(String text) {
+        Set<String> grams = new LinkedHashSet<>();
+        if (text == null) return grams;
+        String lower = text.toLowerCase(Locale.ROOT);
+        for (int size = 1; size <= GRAM_SIZE; size++) {
+            for (int i = 0; i + size <= lower.length(); i++) {
+                grams.add(lower.substring(i, i + size));
+            }
+        }
+        return grams;
+    }
+}
@@ -0,0 +1,38 @@
+package db.migration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+
+/**
+ * На PostgreSQL запрещает пересечение одобренных бронирований одной вещи ограничением исключения:
+ * одобрения разных бронирований не ждут друг друга, а из двух пересекающихся фиксируется только первое.
+ * Интервалы закрытые, как в проверках BookingRepository. Если расширение btree_gist недоступно или
+ * в данных уже есть пересечения, ограничение не создаётся, и одобрения остаются на счётчике в строке
+ * вещи (ApprovedOverlapGuard). На Java, потому что результат зависит от базы и данных.
+ */
+@Slf4j
+public class V7__Add_approved_booking_overlap_constraint extends BaseJavaMigration {
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        if (!"PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())) {
+            return;
+        }
+        Savepoint savepoint = connection.setSavepoint();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create extension if not exists btree_gist");
+            statement.execute("alter table bookings add constraint ex_bookings_approved_overlap exclude using gist " +
+                    "(item_id with =, tsrange(start_date, end_date, '[]') with &&) where (status = 'APPROVED')");
+            connection.releaseSavepoint(savepoint);
+        } catch (SQLException e) {
+            connection.rollback(savepoint);
+            log.warn("Approved booking overlap constraint not created, approvals fall back to the item row lock", e);
+        }
+    }
+}
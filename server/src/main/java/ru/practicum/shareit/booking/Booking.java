@@ -8,6 +8,7 @@ import lombok.Setter;
 import ru.practicum.shareit.item.Item;
 import ru.practicum.shareit.user.User;
 
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
@@ -17,7 +18,10 @@ import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.PrePersist;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
+import javax.persistence.Version;
 import java.time.LocalDateTime;
 
 @Entity
@@ -29,7 +33,8 @@ import java.time.LocalDateTime;
 @Builder
 public class Booking {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bookings_seq")
+    @SequenceGenerator(name = "bookings_seq", sequenceName = "bookings_seq", allocationSize = 50)
     private Long id;
     @Enumerated(EnumType.STRING)
     private BookingStatus status;
@@ -43,6 +48,20 @@ public class Booking {
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "booker_id", nullable = false)
     private User booker;
+    @Column(name = "owner_id", nullable = false)
+    private Integer ownerId;
+    @Version
+    private Long version;
+
+    public Booking(Long id, BookingStatus status, LocalDateTime startDate, LocalDateTime endDate, Item item, User booker) {
+        this(id, status, startDate, endDate, item, booker, null, null);
+    }
+
+    @PrePersist
+    private void fillOwnerId() {
+        // Владелец вещи дублируется в бронировании, чтобы выборки владельца шли по индексу bookings без join
+        ownerId = item.getOwner().getId();
+    }
 
     public enum BookingStatus {
         APPROVED,
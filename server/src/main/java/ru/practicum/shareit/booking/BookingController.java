@@ -1,7 +1,9 @@
 package ru.practicum.shareit.booking;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
@@ -12,18 +14,26 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.booking.dto.BookItemRequestDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.utils.PageCursor;
+
+import java.util.List;
 
 @RestController
 @RequestMapping(path = "/bookings")
 public class BookingController {
 
+    public static final String NDJSON = "application/x-ndjson";
+
     private final BookingService bookingService;
+    private final BookingExporter bookingExporter;
 
     @Autowired
-    public BookingController(BookingService bookingService) {
+    public BookingController(BookingService bookingService, BookingExporter bookingExporter) {
         this.bookingService = bookingService;
+        this.bookingExporter = bookingExporter;
     }
 
     @PostMapping
@@ -47,16 +57,47 @@ public class BookingController {
     public ResponseEntity<Object> findBookingsBySearchState(@RequestHeader("X-Sharer-User-Id") int userId,
                                                             @RequestParam(value = "state", defaultValue = "ALL") BookingState bookingState,
                                                             @RequestParam(defaultValue = "0") Integer from,
-                                                            @RequestParam(defaultValue = "20") Integer size) {
-        return new ResponseEntity<>(bookingService.findBookingsBySearchState(userId, bookingState, from, size), HttpStatus.OK);
+                                                            @RequestParam(defaultValue = "20") Integer size,
+                                                            @RequestParam(required = false) String after) {
+        return withNextCursor(bookingService.findBookingsBySearchState(userId, bookingState, from, size, after), size);
     }
 
     @GetMapping("/owner")
     public ResponseEntity<Object> findBookingsByItemsOwner(@RequestHeader("X-Sharer-User-Id") int userId,
                                                            @RequestParam(value = "state", defaultValue = "ALL") BookingState bookingState,
                                                            @RequestParam(defaultValue = "0") Integer from,
-                                                           @RequestParam(defaultValue = "20") Integer size) {
-        return new ResponseEntity<>(bookingService.findBookingsByItemsOwner(userId, bookingState, from, size), HttpStatus.OK);
+                                                           @RequestParam(defaultValue = "20") Integer size,
+                                                           @RequestParam(required = false) String after) {
+        return withNextCursor(bookingService.findBookingsByItemsOwner(userId, bookingState, from, size, after), size);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportBookingsBySearchState(@RequestHeader("X-Sharer-User-Id") int userId,
+                                                                             @RequestParam(value = "state", defaultValue = "ALL") BookingState bookingState) {
+        return ndjson(bookingExporter.exportByBooker(userId, bookingState));
+    }
+
+    @GetMapping("/owner/export")
+    public ResponseEntity<StreamingResponseBody> exportBookingsByItemsOwner(@RequestHeader("X-Sharer-User-Id") int userId,
+                                                                            @RequestParam(value = "state", defaultValue = "ALL") BookingState bookingState) {
+        return ndjson(bookingExporter.exportByItemsOwner(userId, bookingState));
+    }
+
+    // Выгрузку пишет асинхронный исполнитель MVC: поток Tomcat освобождается, а число одновременных
+    // выгрузок, каждая из которых держит соединение с базой, ограничено пулом исполнителя
+    private static ResponseEntity<StreamingResponseBody> ndjson(StreamingResponseBody bookings) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(bookings);
+    }
+
+    private ResponseEntity<Object> withNextCursor(List<BookingDto> bookings, int size) {
+        HttpHeaders headers = new HttpHeaders();
+        if (!bookings.isEmpty() && bookings.size() == size) {
+            BookingDto last = bookings.get(bookings.size() - 1);
+            headers.set(PageCursor.HEADER, PageCursor.encode(last.getStart(), last.getId()));
+        }
+        return new ResponseEntity<>(bookings, headers, HttpStatus.OK);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,134 @@
+package ru.practicum.shareit.booking;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.exception.BadRequestException;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.user.UserDto;
+import ru.practicum.shareit.user.storage.UserRepository;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+
+import static ru.practicum.shareit.utils.Helper.checkUserExists;
+
+/**
+ * Выгрузка истории бронирований в NDJSON (BookingDto в строке) в порядке start desc, id desc.
+ * Строки читаются однонаправленным курсором JDBC порциями по fetch-size и сразу пишутся в поток,
+ * поэтому память не зависит от числа бронирований. Курсор держится в read-only транзакции:
+ * без неё драйвер PostgreSQL игнорирует fetch size и читает весь результат.
+ */
+@Component
+public class BookingExporter {
+    private static final String SELECT = "select b.id, b.status, b.start_date, b.end_date, " +
+            "i.id as item_id, i.name as item_name, i.description as item_description, i.available as item_available, " +
+            "i.user_id as item_owner_id, i.request_id as item_request_id, " +
+            "u.id as booker_id, u.email as booker_email, u.name as booker_name " +
+            "from bookings b join items i on i.id = b.item_id join users u on u.id = b.booker_id ";
+    private static final String ORDER = " order by b.start_date desc, b.id desc";
+
+    private final UserRepository userRepository;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectWriter bookingWriter;
+
+    @Autowired
+    public BookingExporter(UserRepository userRepository, DataSource dataSource,
+                           PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+                           @Value("${shareit.bookings.export.fetch-size:1000}") int fetchSize) {
+        this.userRepository = userRepository;
+        JdbcTemplate cursorTemplate = new JdbcTemplate(dataSource);
+        cursorTemplate.setFetchSize(fetchSize);
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(cursorTemplate);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.bookingWriter = objectMapper.writerFor(BookingDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    public StreamingResponseBody exportByBooker(int userId, BookingState bookingState) {
+        return export("b.booker_id", userId, bookingState);
+    }
+
+    public StreamingResponseBody exportByItemsOwner(int userId, BookingState bookingState) {
+        return export("b.owner_id", userId, bookingState);
+    }
+
+    // Пользователь и состояние проверяются сразу, чтобы ошибка ушла обычным ответом до начала выгрузки
+    private StreamingResponseBody export(String userColumn, int userId, BookingState bookingState) {
+        checkUserExists(userRepository, userId);
+        MapSqlParameterSource parameters = new MapSqlParameterSource("userId", userId)
+                .addValue("now", LocalDateTime.now());
+        String sql = SELECT + "where " + userColumn + " = :userId" + stateCondition(bookingState, parameters) + ORDER;
+        return out -> write(sql, parameters, out);
+    }
+
+    private void write(String sql, MapSqlParameterSource parameters, OutputStream out) throws IOException {
+        try (JsonGenerator generator = bookingWriter.createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.query(sql, parameters, resultSet -> {
+                        try {
+                            bookingWriter.writeValue(generator, toBookingDto(resultSet));
+                            generator.writeRaw('\n');
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static String stateCondition(BookingState bookingState, MapSqlParameterSource parameters) {
+        if (bookingState == null || bookingState == BookingState.ALL) {
+            return "";
+        } else if (bookingState == BookingState.CURRENT) {
+            return " and b.start_date < :now and b.end_date > :now";
+        } else if (bookingState == BookingState.PAST) {
+            return " and b.end_date < :now";
+        } else if (bookingState == BookingState.FUTURE) {
+            return " and b.start_date > :now";
+        } else if (bookingState == BookingState.WAITING || bookingState == BookingState.REJECTED) {
+            parameters.addValue("status", bookingState.name());
+            return " and b.status = :status";
+        }
+        throw new BadRequestException(String.format("Unknown state: %s", bookingState));
+    }
+
+    private static BookingDto toBookingDto(ResultSet resultSet) throws SQLException {
+        return BookingDto.builder()
+                .id(resultSet.getLong("id"))
+                .status(Booking.BookingStatus.valueOf(resultSet.getString("status")))
+                .start(resultSet.getTimestamp("start_date").toLocalDateTime())
+                .end(resultSet.getTimestamp("end_date").toLocalDateTime())
+                .item(ItemDto.builder()
+                        .id(resultSet.getLong("item_id"))
+                        .name(resultSet.getString("item_name"))
+                        .description(resultSet.getString("item_description"))
+                        .available(resultSet.getBoolean("item_available"))
+                        .ownerId(resultSet.getInt("item_owner_id"))
+                        .requestId(resultSet.getObject("item_request_id", Long.class))
+                        .build())
+                .booker(new UserDto(resultSet.getInt("booker_id"), resultSet.getString("booker_email"),
+                        resultSet.getString("booker_name")))
+                .build();
+    }
+}
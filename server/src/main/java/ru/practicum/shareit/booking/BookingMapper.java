@@ -4,19 +4,51 @@ import ru.practicum.shareit.booking.dto.BookItemRequestDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.item.Item;
 import ru.practicum.shareit.item.ItemMapper;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.storage.ItemDetailRow;
 import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserDto;
 import ru.practicum.shareit.user.UserMapper;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 public class BookingMapper {
     public static BookingDto toBookingDto(Booking booking) {
-        return BookingDto.builder()
-                .id(booking.getId())
-                .status(booking.getStatus())
-                .start(booking.getStartDate())
-                .end(booking.getEndDate())
-                .item(ItemMapper.toItemDto(booking.getItem()))
-                .booker(UserMapper.toUserDto(booking.getBooker()))
-                .build();
+        return new BookingDto(booking.getId(),
+                booking.getStatus(),
+                booking.getStartDate(),
+                booking.getEndDate(),
+                ItemMapper.toItemDto(booking.getItem()),
+                UserMapper.toUserDto(booking.getBooker()));
+    }
+
+    // Вещь и арендатор, повторяющиеся на странице, отображаются в один и тот же DTO
+    public static List<BookingDto> toBookingDtos(List<Booking> bookings) {
+        List<BookingDto> bookingDtos = new ArrayList<>(bookings.size());
+        Map<Long, ItemDto> items = new HashMap<>();
+        Map<Integer, UserDto> bookers = new HashMap<>();
+        for (Booking booking : bookings) {
+            ItemDto item = items.get(booking.getItem().getId());
+            if (item == null) {
+                item = ItemMapper.toItemDto(booking.getItem());
+                items.put(item.getId(), item);
+            }
+            UserDto booker = bookers.get(booking.getBooker().getId());
+            if (booker == null) {
+                booker = UserMapper.toUserDto(booking.getBooker());
+                bookers.put(booker.getId(), booker);
+            }
+            bookingDtos.add(new BookingDto(booking.getId(),
+                    booking.getStatus(),
+                    booking.getStartDate(),
+                    booking.getEndDate(),
+                    item,
+                    booker));
+        }
+        return bookingDtos;
     }
 
     public static BookItemRequestDto toBookingRequestDto(Booking booking) {
@@ -27,6 +59,14 @@ public class BookingMapper {
                 booking.getBooker().getId());
     }
 
+    public static BookItemRequestDto toBookingRequestDto(long itemId, ItemDetailRow booking) {
+        return new BookItemRequestDto(booking.getId(),
+                booking.getStartDate(),
+                booking.getEndDate(),
+                itemId,
+                booking.getBookerId());
+    }
+
     public static Booking toBookingEntity(BookItemRequestDto bookItemRequestDto, Item item, User booker) {
         return Booking.builder()
                 .startDate(bookItemRequestDto.getStart())
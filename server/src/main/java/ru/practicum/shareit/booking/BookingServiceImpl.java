@@ -1,30 +1,36 @@
 package ru.practicum.shareit.booking;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.dto.BookItemRequestDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.storage.ApprovedOverlapGuard;
+import ru.practicum.shareit.booking.storage.BookingIntervalIndex;
 import ru.practicum.shareit.booking.storage.BookingRepository;
 import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.exception.ObjectNotFoundException;
 import ru.practicum.shareit.exception.ObjectSaveException;
 import ru.practicum.shareit.exception.ObjectUpdateException;
 import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.item.storage.ItemAvailabilityCalendar;
 import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.item.storage.ItemSummaryUpdater;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.storage.UserRepository;
+import ru.practicum.shareit.utils.PageCursor;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 import static ru.practicum.shareit.booking.Booking.BookingStatus.APPROVED;
 import static ru.practicum.shareit.booking.Booking.BookingStatus.REJECTED;
 import static ru.practicum.shareit.booking.Booking.BookingStatus.WAITING;
-import static ru.practicum.shareit.utils.Helper.findUserById;
+import static ru.practicum.shareit.utils.Helper.checkUserExists;
+import static ru.practicum.shareit.utils.Helper.getUserReference;
 
 @Service
 @Transactional(readOnly = true)
@@ -32,23 +38,40 @@ public class BookingServiceImpl implements BookingService {
     private final BookingRepository bookingRepository;
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
-    private static final Sort bookingStartDateSortDesc = Sort.by(Sort.Direction.DESC, "startDate");
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final ItemSummaryUpdater itemSummaryUpdater;
+    private final ItemAvailabilityCalendar itemAvailabilityCalendar;
+    private final ApprovedOverlapGuard approvedOverlapGuard;
+    private static final Sort bookingStartDateSortDesc = Sort.by(Sort.Direction.DESC, "startDate", "id");
 
     @Autowired
     public BookingServiceImpl(BookingRepository bookingRepository,
-                              ItemRepository itemRepository, UserRepository userRepository) {
+                              ItemRepository itemRepository, UserRepository userRepository,
+                              BookingIntervalIndex bookingIntervalIndex, ItemSummaryUpdater itemSummaryUpdater,
+                              ItemAvailabilityCalendar itemAvailabilityCalendar,
+                              ApprovedOverlapGuard approvedOverlapGuard) {
         this.bookingRepository = bookingRepository;
         this.itemRepository = itemRepository;
         this.userRepository = userRepository;
+        this.bookingIntervalIndex = bookingIntervalIndex;
+        this.itemSummaryUpdater = itemSummaryUpdater;
+        this.itemAvailabilityCalendar = itemAvailabilityCalendar;
+        this.approvedOverlapGuard = approvedOverlapGuard;
     }
 
+    /**
+     * Занятость проверяется только по индексу интервалов, без обращения к базе и без блокировок: создание
+     * лишь добавляет бронирование в WAITING. Индекс может ещё не знать об одобрении на другом узле или
+     * о только что зафиксированном; такое бронирование останется в WAITING, а пересечение одобренных
+     * бронирований исключает approve, который проверяет его в базе.
+     */
     @Override
     @Transactional
     public BookingDto create(BookItemRequestDto bookItemRequestDto, int userId) {
-        User booker = findUserById(userRepository, userId);
+        User booker = getUserReference(userRepository, userId);
         Optional<Item> item = itemRepository.findById(bookItemRequestDto.getItemId());
         if (item.isPresent()) {
-            if (!item.get().getAvailable() || bookingRepository.hasApprovedBookingInPeriod(bookItemRequestDto.getItemId(),
+            if (!item.get().getAvailable() || bookingIntervalIndex.hasOverlap(bookItemRequestDto.getItemId(),
                     bookItemRequestDto.getStart(), bookItemRequestDto.getEnd())) {
                 throw new ObjectSaveException(String.format("Вещь недоступна для бронирования! Id=%d", item.get().getId()));
             } else if (item.get().getOwner().getId() == userId) {
@@ -56,12 +79,21 @@ public class BookingServiceImpl implements BookingService {
             }
             Booking booking = BookingMapper.toBookingEntity(bookItemRequestDto, item.get(), booker);
             booking.setStatus(WAITING);
-            return BookingMapper.toBookingDto(bookingRepository.save(booking));
+            booking = bookingRepository.save(booking);
+            itemAvailabilityCalendar.invalidate(item.get().getId());
+            return BookingMapper.toBookingDto(booking);
         } else {
             throw new ObjectNotFoundException(String.format("Вещь не найдена! Id=%d", bookItemRequestDto.getItemId()));
         }
     }
 
+    /**
+     * Смена статуса — одна условная запись: бронирование переходит из WAITING, только если его версия
+     * не изменилась с момента чтения, а при одобрении ещё и нет одобренного пересечения на эту вещь.
+     * Два одобрения пересекающихся бронирований в READ COMMITTED не видят друг друга, поэтому второе
+     * отсекает ApprovedOverlapGuard: ограничение исключения в базе или, где его нет, очередь одобрений
+     * вещи (BookingApprovalConcurrencyDBTest). Блокировок на чтение нет.
+     */
     @Override
     @Transactional
     public BookingDto approve(Long bookingId, int userId, boolean approve) {
@@ -70,8 +102,32 @@ public class BookingServiceImpl implements BookingService {
             throw new ObjectNotFoundException(String.format("Бронирование не найдено! Id=%d", bookingId));
         if (booking.getStatus() != WAITING)
             throw new BadRequestException(String.format("Изменение статуса бронирования недоступно! Id=%d", bookingId));
-        booking.setStatus(approve ? APPROVED : REJECTED);
-        return BookingMapper.toBookingDto(bookingRepository.save(booking));
+        long itemId = booking.getItem().getId();
+        // Условная запись очищает контекст персистентности, поэтому ответ собирается до неё
+        BookingDto bookingDto = BookingMapper.toBookingDto(booking);
+        if (approve) {
+            approvedOverlapGuard.beforeApprove(itemId);
+            int approved;
+            try {
+                approved = bookingRepository.approveIfWaitingAndFree(bookingId, booking.getVersion(), itemId,
+                        booking.getStartDate(), booking.getEndDate());
+            } catch (DataIntegrityViolationException e) {
+                throw new ObjectSaveException(String.format("Вещь недоступна для бронирования! Id=%d", itemId));
+            }
+            if (approved == 0) {
+                if (bookingRepository.existsOtherApprovedOverlap(itemId, bookingId, booking.getStartDate(), booking.getEndDate())) {
+                    throw new ObjectSaveException(String.format("Вещь недоступна для бронирования! Id=%d", itemId));
+                }
+                throw new BadRequestException(String.format("Изменение статуса бронирования недоступно! Id=%d", bookingId));
+            }
+            bookingIntervalIndex.registerApproved(itemId, booking.getStartDate(), booking.getEndDate());
+            itemSummaryUpdater.refresh(itemId);
+        } else if (bookingRepository.rejectIfWaiting(bookingId, booking.getVersion()) == 0) {
+            throw new BadRequestException(String.format("Изменение статуса бронирования недоступно! Id=%d", bookingId));
+        }
+        itemAvailabilityCalendar.invalidate(itemId);
+        bookingDto.setStatus(approve ? APPROVED : REJECTED);
+        return bookingDto;
     }
 
     @Override
@@ -81,53 +137,57 @@ public class BookingServiceImpl implements BookingService {
     }
 
     @Override
-    public List<BookingDto> findBookingsBySearchState(int userId, BookingState bookingState, Integer from, Integer size) {
-        findUserById(userRepository, userId);
-        PageRequest pageable = PageRequest.of(from > 0 ? from / size : 0, size, bookingStartDateSortDesc);
+    public List<BookingDto> findBookingsBySearchState(int userId, BookingState bookingState, Integer from, Integer size,
+                                                      String after) {
+        checkUserExists(userRepository, userId);
+        PageRequest pageable = PageCursor.pageRequest(from, size, after, bookingStartDateSortDesc);
+        PageCursor cursor = PageCursor.descending(after);
         List<Booking> bookings;
         if (bookingState == null || bookingState == BookingState.ALL) {
-            bookings = bookingRepository.findByBookerId(userId, pageable);
+            bookings = bookingRepository.findByBookerId(userId, cursor.getTime(), cursor.getId(), pageable);
         } else if (bookingState == BookingState.CURRENT) {
-            bookings = bookingRepository.findCurrentBookingsByBookerId(userId, pageable);
+            bookings = bookingRepository.findCurrentBookingsByBookerId(userId, cursor.getTime(), cursor.getId(), pageable);
         } else if (bookingState == BookingState.PAST) {
-            bookings = bookingRepository.findPastBookingsByBookerId(userId, pageable);
+            bookings = bookingRepository.findPastBookingsByBookerId(userId, cursor.getTime(), cursor.getId(), pageable);
         } else if (bookingState == BookingState.FUTURE) {
-            bookings = bookingRepository.findFutureBookingsByBookerId(userId, pageable);
+            bookings = bookingRepository.findFutureBookingsByBookerId(userId, cursor.getTime(), cursor.getId(), pageable);
         } else if (bookingState == BookingState.WAITING) {
-            bookings = bookingRepository.findBookingsByBookerIdAndBookingStatus(userId, WAITING, pageable);
+            bookings = bookingRepository.findBookingsByBookerIdAndBookingStatus(userId, WAITING, cursor.getTime(), cursor.getId(), pageable);
         } else if (bookingState == BookingState.REJECTED) {
-            bookings = bookingRepository.findBookingsByBookerIdAndBookingStatus(userId, REJECTED, pageable);
+            bookings = bookingRepository.findBookingsByBookerIdAndBookingStatus(userId, REJECTED, cursor.getTime(), cursor.getId(), pageable);
         } else {
             throw new BadRequestException(String.format("Unknown state: %s", bookingState));
         }
-        return bookings.stream().map(BookingMapper::toBookingDto).collect(Collectors.toList());
+        return BookingMapper.toBookingDtos(bookings);
     }
 
     @Override
-    public List<BookingDto> findBookingsByItemsOwner(int userId, BookingState bookingState, Integer from, Integer size) {
-        findUserById(userRepository, userId);
-        PageRequest pageable = PageRequest.of(from > 0 ? from / size : 0, size, bookingStartDateSortDesc);
+    public List<BookingDto> findBookingsByItemsOwner(int userId, BookingState bookingState, Integer from, Integer size,
+                                                     String after) {
+        checkUserExists(userRepository, userId);
+        PageRequest pageable = PageCursor.pageRequest(from, size, after, bookingStartDateSortDesc);
+        PageCursor cursor = PageCursor.descending(after);
         List<Booking> bookings;
         if (bookingState == null || bookingState == BookingState.ALL) {
-            bookings = bookingRepository.findByOwnerId(userId, pageable);
+            bookings = bookingRepository.findByOwnerId(userId, cursor.getTime(), cursor.getId(), pageable);
         } else if (bookingState == BookingState.CURRENT) {
-            bookings = bookingRepository.findCurrentBookingsByOwnerId(userId, pageable);
+            bookings = bookingRepository.findCurrentBookingsByOwnerId(userId, cursor.getTime(), cursor.getId(), pageable);
         } else if (bookingState == BookingState.PAST) {
-            bookings = bookingRepository.findPastBookingsByOwnerId(userId, pageable);
+            bookings = bookingRepository.findPastBookingsByOwnerId(userId, cursor.getTime(), cursor.getId(), pageable);
         } else if (bookingState == BookingState.FUTURE) {
-            bookings = bookingRepository.findFutureBookingsByOwnerId(userId, pageable);
+            bookings = bookingRepository.findFutureBookingsByOwnerId(userId, cursor.getTime(), cursor.getId(), pageable);
         } else if (bookingState == BookingState.WAITING) {
-            bookings = bookingRepository.findBookingsByOwnerIdAndBookingStatus(userId, WAITING, pageable);
+            bookings = bookingRepository.findBookingsByOwnerIdAndBookingStatus(userId, WAITING, cursor.getTime(), cursor.getId(), pageable);
         } else if (bookingState == BookingState.REJECTED) {
-            bookings = bookingRepository.findBookingsByOwnerIdAndBookingStatus(userId, REJECTED, pageable);
+            bookings = bookingRepository.findBookingsByOwnerIdAndBookingStatus(userId, REJECTED, cursor.getTime(), cursor.getId(), pageable);
         } else {
             throw new BadRequestException(String.format("Unknown state: %s", bookingState));
         }
-        return bookings.stream().map(BookingMapper::toBookingDto).collect(Collectors.toList());
+        return BookingMapper.toBookingDtos(bookings);
     }
 
     private Booking getById(Long bookingId, int userId) {
-        findUserById(userRepository, userId);
+        checkUserExists(userRepository, userId);
         Optional<Booking> booking = bookingRepository.findById(bookingId);
         if (booking.isEmpty() || (booking.get().getBooker().getId() != userId &&
                 booking.get().getItem().getOwner().getId() != userId)) {
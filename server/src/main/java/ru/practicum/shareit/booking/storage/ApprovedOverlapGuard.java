@@ -0,0 +1,46 @@
+package ru.practicum.shareit.booking.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.storage.ItemRepository;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+
+/**
+ * Не даёт одобрить пересекающиеся бронирования одной вещи. Если в базе есть ограничение исключения
+ * ex_bookings_approved_overlap (миграция V7, только PostgreSQL), одобрение ничего не блокирует:
+ * второе из двух пересекающихся нарушает ограничение. Иначе (H2, ограничение не создано) одобрения
+ * вещи идут по очереди через счётчик в её строке, и проверка пересечения видит уже зафиксированные
+ * соседние одобрения. Наличие ограничения проверяется один раз при старте.
+ */
+@Slf4j
+@Component
+public class ApprovedOverlapGuard {
+    private final ItemRepository itemRepository;
+    private final boolean enforcedByDatabase;
+
+    @Autowired
+    public ApprovedOverlapGuard(ItemRepository itemRepository, DataSource dataSource) throws MetaDataAccessException {
+        this.itemRepository = itemRepository;
+        String product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+        this.enforcedByDatabase = "PostgreSQL".equals(product) && Boolean.TRUE.equals(new JdbcTemplate(dataSource)
+                .queryForObject("select exists (select 1 from pg_constraint where conname = 'ex_bookings_approved_overlap')",
+                        Boolean.class));
+        log.info("Approved booking overlaps are guarded by {}",
+                enforcedByDatabase ? "the exclusion constraint" : "the item row lock");
+    }
+
+    /**
+     * Вызывается в транзакции одобрения до условной записи бронирования.
+     */
+    public void beforeApprove(long itemId) {
+        if (!enforcedByDatabase) {
+            itemRepository.incrementApprovalVersion(itemId);
+        }
+    }
+}
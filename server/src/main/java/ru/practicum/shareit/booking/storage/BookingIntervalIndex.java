@@ -0,0 +1,151 @@
+package ru.practicum.shareit.booking.storage;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.Booking;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Индекс одобренных бронирований по вещам. Для каждой вещи хранится отсортированное множество
+ * непересекающихся интервалов занятости, поэтому проверка пересечения выполняется за O(log n)
+ * без обращения к базе. Интервалы вещи загружаются из таблицы bookings при первом обращении —
+ * вне блокировок индекса, чтобы запрос к базе не задерживал другие вещи. Число вещей в индексе
+ * ограничено, вытесненная вещь при следующем обращении загружается заново.
+ */
+@Component
+public class BookingIntervalIndex {
+    private final BookingRepository bookingRepository;
+    private final Cache<Long, ItemIntervals> index;
+    private final AtomicLong approvals = new AtomicLong();
+
+    @Autowired
+    public BookingIntervalIndex(BookingRepository bookingRepository,
+                                @Value("${shareit.bookings.interval-index.max-items:100000}") long maxItems) {
+        this.bookingRepository = bookingRepository;
+        this.index = Caffeine.newBuilder()
+                .maximumSize(maxItems)
+                .build();
+    }
+
+    public boolean hasOverlap(long itemId, LocalDateTime start, LocalDateTime end) {
+        ItemIntervals intervals = index.getIfPresent(itemId);
+        if (intervals == null) {
+            intervals = load(List.of(itemId)).get(itemId);
+        }
+        return intervals.overlaps(start, end);
+    }
+
+    /**
+     * Вещи из itemIds, занятые одобренными бронированиями в период. Непрогретые вещи загружаются
+     * одним запросом на всю пачку, дальше проверка идёт по индексу без обращения к базе.
+     */
+    public Set<Long> findBusy(Collection<Long> itemIds, LocalDateTime start, LocalDateTime end) {
+        Map<Long, ItemIntervals> intervalsByItem = new HashMap<>(index.getAllPresent(itemIds));
+        Set<Long> missing = new HashSet<>(itemIds);
+        missing.removeAll(intervalsByItem.keySet());
+        if (!missing.isEmpty()) {
+            intervalsByItem.putAll(load(missing));
+        }
+        Set<Long> busy = new HashSet<>();
+        for (Long itemId : itemIds) {
+            if (intervalsByItem.get(itemId).overlaps(start, end)) {
+                busy.add(itemId);
+            }
+        }
+        return busy;
+    }
+
+    public void registerApproved(long itemId, LocalDateTime start, LocalDateTime end) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    add(itemId, start, end);
+                }
+            });
+        } else {
+            add(itemId, start, end);
+        }
+    }
+
+    private void add(long itemId, LocalDateTime start, LocalDateTime end) {
+        approvals.incrementAndGet();
+        // Непрогретую вещь не трогаем: при первом обращении интервалы будут прочитаны из базы целиком
+        ItemIntervals intervals = index.getIfPresent(itemId);
+        if (intervals != null) {
+            intervals.add(start, end);
+        }
+    }
+
+    /**
+     * Читает интервалы вещей одним запросом и кладёт их в индекс, если их туда не положил параллельный
+     * запрос. Возвращает интервалы всех вещей из itemIds.
+     */
+    private Map<Long, ItemIntervals> load(Collection<Long> itemIds) {
+        Map<Long, ItemIntervals> loaded = new HashMap<>();
+        for (Long itemId : itemIds) {
+            loaded.put(itemId, new ItemIntervals());
+        }
+        long approvalsBefore = approvals.get();
+        for (Booking booking : bookingRepository.findApprovedBookings(loaded.keySet(), Sort.by("startDate"))) {
+            loaded.get(booking.getItem().getId()).add(booking.getStartDate(), booking.getEndDate());
+        }
+        Map<Long, ItemIntervals> result = new HashMap<>();
+        loaded.forEach((itemId, intervals) -> {
+            ItemIntervals present = index.asMap().putIfAbsent(itemId, intervals);
+            result.put(itemId, present != null ? present : intervals);
+        });
+        // Одобрение, зафиксированное после чтения, могло пропустить ещё не добавленные вещи:
+        // такие вещи убираем, и при следующем обращении они загрузятся заново
+        if (approvals.get() != approvalsBefore) {
+            loaded.forEach(index.asMap()::remove);
+        }
+        return result;
+    }
+
+    private static class ItemIntervals {
+        private final NavigableMap<LocalDateTime, LocalDateTime> intervals = new TreeMap<>();
+
+        synchronized boolean overlaps(LocalDateTime start, LocalDateTime end) {
+            Map.Entry<LocalDateTime, LocalDateTime> candidate = intervals.floorEntry(end);
+            return candidate != null && !candidate.getValue().isBefore(start);
+        }
+
+        synchronized void add(LocalDateTime start, LocalDateTime end) {
+            LocalDateTime mergedStart = start;
+            LocalDateTime mergedEnd = end;
+            Map.Entry<LocalDateTime, LocalDateTime> previous = intervals.floorEntry(start);
+            if (previous != null && !previous.getValue().isBefore(start)) {
+                mergedStart = previous.getKey();
+                if (previous.getValue().isAfter(mergedEnd)) {
+                    mergedEnd = previous.getValue();
+                }
+            }
+            Map.Entry<LocalDateTime, LocalDateTime> next = intervals.ceilingEntry(mergedStart);
+            while (next != null && !next.getKey().isAfter(mergedEnd)) {
+                if (next.getValue().isAfter(mergedEnd)) {
+                    mergedEnd = next.getValue();
+                }
+                intervals.remove(next.getKey());
+                next = intervals.higherEntry(next.getKey());
+            }
+            intervals.put(mergedStart, mergedEnd);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package ru.practicum.shareit.booking.storage;
+
+import java.time.LocalDateTime;
+
+/**
+ * Период бронирования вещи без самой сущности Booking.
+ */
+public interface BookingPeriod {
+    LocalDateTime getStartDate();
+
+    LocalDateTime getEndDate();
+}
@@ -3,6 +3,7 @@ package ru.practicum.shareit.booking.storage;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.booking.Booking;
 
@@ -12,52 +13,101 @@ import java.util.List;
 
 public interface BookingRepository extends JpaRepository<Booking, Long> {
 
-    @Query("select b from Booking b where b.booker.id = ?1")
-    List<Booking> findByBookerId(Integer id, Pageable page);
-
-    @Query("select b from Booking b " +
-            "where b.booker.id = ?1 and b.startDate < CURRENT_TIMESTAMP and b.endDate > CURRENT_TIMESTAMP")
-    List<Booking> findCurrentBookingsByBookerId(Integer id, Pageable page);
-
-    @Query("select b from Booking b where b.booker.id = ?1 and b.endDate < CURRENT_TIMESTAMP")
-    List<Booking> findPastBookingsByBookerId(Integer id, Pageable page);
-
-    @Query("select b from Booking b where b.booker.id = ?1 and b.startDate > CURRENT_TIMESTAMP")
-    List<Booking> findFutureBookingsByBookerId(Integer userId, Pageable page);
-
-    @Query("select b from Booking b where b.booker.id = ?1 and b.status = ?2")
-    List<Booking> findBookingsByBookerIdAndBookingStatus(Integer id, Booking.BookingStatus status, Pageable page);
-
-    @Query("select b from Booking b where b.item.owner.id = ?1")
-    List<Booking> findByOwnerId(Integer id, Pageable page);
-
-    @Query("select b from Booking b " +
-            "where b.item.owner.id = ?1 and b.startDate < CURRENT_TIMESTAMP and b.endDate > CURRENT_TIMESTAMP")
-    List<Booking> findCurrentBookingsByOwnerId(Integer id, Pageable page);
-
-    @Query("select b from Booking b where b.item.owner.id = ?1 and b.endDate < CURRENT_TIMESTAMP")
-    List<Booking> findPastBookingsByOwnerId(Integer id, Pageable page);
-
-    @Query("select b from Booking b where b.item.owner.id = ?1 and b.startDate > CURRENT_TIMESTAMP")
-    List<Booking> findFutureBookingsByOwnerId(Integer userId, Pageable page);
-
-    @Query("select b from Booking b where b.item.owner.id = ?1 and b.status = ?2")
-    List<Booking> findBookingsByOwnerIdAndBookingStatus(Integer id, Booking.BookingStatus status, Pageable page);
+    @Query("select b from Booking b join fetch b.item i join fetch i.owner join fetch b.booker " +
+            "where b.booker.id = ?1 " +
+            "and (b.startDate < ?2 or (b.startDate = ?2 and b.id < ?3))")
+    List<Booking> findByBookerId(Integer id, LocalDateTime afterStartDate, Long afterId, Pageable page);
+
+    @Query("select b from Booking b join fetch b.item i join fetch i.owner join fetch b.booker " +
+            "where b.booker.id = ?1 and b.startDate < CURRENT_TIMESTAMP and b.endDate > CURRENT_TIMESTAMP " +
+            "and (b.startDate < ?2 or (b.startDate = ?2 and b.id < ?3))")
+    List<Booking> findCurrentBookingsByBookerId(Integer id, LocalDateTime afterStartDate, Long afterId, Pageable page);
+
+    @Query("select b from Booking b join fetch b.item i join fetch i.owner join fetch b.booker " +
+            "where b.booker.id = ?1 and b.endDate < CURRENT_TIMESTAMP " +
+            "and (b.startDate < ?2 or (b.startDate = ?2 and b.id < ?3))")
+    List<Booking> findPastBookingsByBookerId(Integer id, LocalDateTime afterStartDate, Long afterId, Pageable page);
+
+    @Query("select b from Booking b join fetch b.item i join fetch i.owner join fetch b.booker " +
+            "where b.booker.id = ?1 and b.startDate > CURRENT_TIMESTAMP " +
+            "and (b.startDate < ?2 or (b.startDate = ?2 and b.id < ?3))")
+    List<Booking> findFutureBookingsByBookerId(Integer userId, LocalDateTime afterStartDate, Long afterId, Pageable page);
+
+    @Query("select b from Booking b join fetch b.item i join fetch i.owner join fetch b.booker " +
+            "where b.booker.id = ?1 and b.status = ?2 " +
+            "and (b.startDate < ?3 or (b.startDate = ?3 and b.id < ?4))")
+    List<Booking> findBookingsByBookerIdAndBookingStatus(Integer id, Booking.BookingStatus status, LocalDateTime afterStartDate, Long afterId, Pageable page);
+
+    @Query("select b from Booking b join fetch b.item i join fetch i.owner join fetch b.booker " +
+            "where b.ownerId = ?1 " +
+            "and (b.startDate < ?2 or (b.startDate = ?2 and b.id < ?3))")
+    List<Booking> findByOwnerId(Integer id, LocalDateTime afterStartDate, Long afterId, Pageable page);
+
+    @Query("select b from Booking b join fetch b.item i join fetch i.owner join fetch b.booker " +
+            "where b.ownerId = ?1 and b.startDate < CURRENT_TIMESTAMP and b.endDate > CURRENT_TIMESTAMP " +
+            "and (b.startDate < ?2 or (b.startDate = ?2 and b.id < ?3))")
+    List<Booking> findCurrentBookingsByOwnerId(Integer id, LocalDateTime afterStartDate, Long afterId, Pageable page);
+
+    @Query("select b from Booking b join fetch b.item i join fetch i.owner join fetch b.booker " +
+            "where b.ownerId = ?1 and b.endDate < CURRENT_TIMESTAMP " +
+            "and (b.startDate < ?2 or (b.startDate = ?2 and b.id < ?3))")
+    List<Booking> findPastBookingsByOwnerId(Integer id, LocalDateTime afterStartDate, Long afterId, Pageable page);
+
+    @Query("select b from Booking b join fetch b.item i join fetch i.owner join fetch b.booker " +
+            "where b.ownerId = ?1 and b.startDate > CURRENT_TIMESTAMP " +
+            "and (b.startDate < ?2 or (b.startDate = ?2 and b.id < ?3))")
+    List<Booking> findFutureBookingsByOwnerId(Integer userId, LocalDateTime afterStartDate, Long afterId, Pageable page);
+
+    @Query("select b from Booking b join fetch b.item i join fetch i.owner join fetch b.booker " +
+            "where b.ownerId = ?1 and b.status = ?2 " +
+            "and (b.startDate < ?3 or (b.startDate = ?3 and b.id < ?4))")
+    List<Booking> findBookingsByOwnerIdAndBookingStatus(Integer id, Booking.BookingStatus status, LocalDateTime afterStartDate, Long afterId, Pageable page);
+
+    @Query("select min(b.endDate) from Booking b " +
+            "where b.item.id = ?1 and b.status = 'APPROVED' and b.startDate <= ?2 and b.endDate >= ?2")
+    LocalDateTime findCurrentBookingEnd(Long itemId, LocalDateTime now);
 
     @Query("select b from Booking b where b.item.id in ?1 and b.status = 'APPROVED'")
     List<Booking> findApprovedBookings(Collection<Long> ids, Sort sort);
 
-    @Query("select b from Booking b where b.item.id = ?1 and b.startDate < CURRENT_TIMESTAMP and b.status = 'APPROVED'")
-    List<Booking> findOwnerLastBooking(Long id, Sort sort);
-
-    @Query("select b from Booking b where b.item.id = ?1 and b.startDate > CURRENT_TIMESTAMP and b.status = 'APPROVED'")
-    List<Booking> findOwnerNextBooking(Long id, Sort sort);
+    // Для каждой вещи подзапрос берёт одно бронирование по индексу (item_id, end_date) или
+    // (item_id, status, start_date, end_date), поэтому работа зависит от числа вещей, а не от истории бронирований
+    @Query(value = "select i.id as itemId, b.id as id, b.start_date as startDate, b.end_date as endDate, " +
+            "b.booker_id as bookerId, 'LAST' as kind from items i join bookings b on b.id = (" +
+            "select l.id from bookings l where l.item_id = i.id and l.end_date < ?2 and l.status = 'APPROVED' " +
+            "order by l.end_date desc, l.id desc limit 1) " +
+            "where i.id in ?1 " +
+            "union all " +
+            "select i.id as itemId, b.id as id, b.start_date as startDate, b.end_date as endDate, " +
+            "b.booker_id as bookerId, 'NEXT' as kind from items i join bookings b on b.id = (" +
+            "select n.id from bookings n where n.item_id = i.id and n.status = 'APPROVED' and n.start_date > ?2 " +
+            "order by n.start_date, n.id limit 1) " +
+            "where i.id in ?1", nativeQuery = true)
+    List<ItemBookingSummary> findLastAndNextBookings(Collection<Long> itemIds, LocalDateTime now);
+
+    @Query("select b.startDate as startDate, b.endDate as endDate from Booking b " +
+            "where b.item.id = ?1 and b.status in ?2 and b.startDate <= ?4 and b.endDate >= ?3 " +
+            "order by b.startDate")
+    List<BookingPeriod> findBookingPeriods(long itemId, Collection<Booking.BookingStatus> statuses,
+                                           LocalDateTime from, LocalDateTime to);
+
+    @Query("select case when count(b) > 0 then true else false end from Booking b " +
+            "where b.item.id = ?1 and b.id <> ?2 and b.status = 'APPROVED' and b.startDate <= ?4 and b.endDate >= ?3")
+    boolean existsOtherApprovedOverlap(long itemId, long bookingId, LocalDateTime start, LocalDateTime end);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Booking b set b.status = 'APPROVED', b.version = b.version + 1 " +
+            "where b.id = ?1 and b.version = ?2 and b.status = 'WAITING' and not exists (" +
+            "select o.id from Booking o where o.item.id = ?3 and o.status = 'APPROVED' " +
+            "and o.startDate <= ?5 and o.endDate >= ?4)")
+    int approveIfWaitingAndFree(long id, Long version, long itemId, LocalDateTime start, LocalDateTime end);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Booking b set b.status = 'REJECTED', b.version = b.version + 1 " +
+            "where b.id = ?1 and b.version = ?2 and b.status = 'WAITING'")
+    int rejectIfWaiting(long id, Long version);
 
     @Query("select b from Booking b where b.booker.id = ?1 and b.item.id = ?2 and b.endDate < CURRENT_TIMESTAMP")
     List<Booking> findExpiredByBookerIdAndItemId(int userId, long itemId);
 
-    @Query("select (count(b) > 0) from Booking b " +
-            "where b.item.id = ?1 and b.status = 'APPROVED' and (b.startDate between ?2 and ?3 or b.endDate between ?2 and ?3)")
-    boolean hasApprovedBookingInPeriod(Long id, LocalDateTime startDate, LocalDateTime endDate);
-
 }
@@ -0,0 +1,23 @@
+package ru.practicum.shareit.booking.storage;
+
+import java.time.LocalDateTime;
+
+/**
+ * Последнее или следующее одобренное бронирование вещи, выбранное в базе.
+ */
+public interface ItemBookingSummary {
+    String LAST = "LAST";
+    String NEXT = "NEXT";
+
+    Long getItemId();
+
+    Long getId();
+
+    LocalDateTime getStartDate();
+
+    LocalDateTime getEndDate();
+
+    Integer getBookerId();
+
+    String getKind();
+}
@@ -1,6 +1,7 @@
 package ru.practicum.shareit.item;
 
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.storage.ItemDetailRow;
 import ru.practicum.shareit.user.User;
 
 public class CommentMapper {
@@ -13,6 +14,24 @@ public class CommentMapper {
                 .build();
     }
 
+    public static CommentDto toCommentDto(ItemDetailRow comment) {
+        return CommentDto.builder()
+                .id(comment.getId())
+                .text(comment.getText())
+                .authorName(comment.getAuthorName())
+                .created(comment.getCreated())
+                .build();
+    }
+
+    public static CommentDto toLatestCommentDto(ItemSummary summary) {
+        return CommentDto.builder()
+                .id(summary.getLatestCommentId())
+                .text(summary.getLatestCommentText())
+                .authorName(summary.getLatestCommentAuthor())
+                .created(summary.getLatestCommentCreated())
+                .build();
+    }
+
     public static Comment toCommentEntity(CommentDto commentDto, User author, Item item) {
         return Comment.builder()
                 .text(commentDto.getText())
@@ -1,5 +1,7 @@
 package ru.practicum.shareit.item;
 
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -11,20 +13,32 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemImportResultDto;
 import ru.practicum.shareit.item.dto.OwnerItemDto;
+import ru.practicum.shareit.utils.PageCursor;
 
-import java.util.Collection;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
 @RequestMapping("/items")
 public class ItemController {
+    public static final String NDJSON = "application/x-ndjson";
+
     private final ItemService itemService;
+    private final ItemImporter itemImporter;
 
-    public ItemController(ItemService itemService) {
+    public ItemController(ItemService itemService, ItemImporter itemImporter) {
         this.itemService = itemService;
+        this.itemImporter = itemImporter;
     }
 
     @PostMapping
@@ -32,6 +46,14 @@ public class ItemController {
         return new ResponseEntity<>(itemService.create(userId, itemDto), HttpStatus.CREATED);
     }
 
+    @PostMapping(path = "/import", consumes = NDJSON)
+    public ResponseEntity<ItemImportResultDto> importItems(@RequestHeader("X-Sharer-User-Id") int userId,
+                                                           InputStream items) throws IOException {
+        // NDJSON всегда в UTF-8, кодировку из Content-Type не учитываем
+        return new ResponseEntity<>(itemImporter.importItems(userId, new InputStreamReader(items, StandardCharsets.UTF_8)),
+                HttpStatus.OK);
+    }
+
     @PatchMapping("/{itemId}")
     public ResponseEntity<ItemDto> updateItem(@RequestHeader("X-Sharer-User-Id") int userId, @PathVariable long itemId,
                                               @RequestBody ItemDto itemDto) {
@@ -40,22 +62,60 @@ public class ItemController {
 
     @GetMapping("/{itemId}")
     public ResponseEntity<OwnerItemDto> getItemById(@PathVariable long itemId,
-                                                    @RequestHeader(value = "X-Sharer-User-Id", required = false) Integer userId) {
-        return new ResponseEntity<>(itemService.getItemById(itemId, userId), HttpStatus.OK);
+                                                    @RequestHeader(value = "X-Sharer-User-Id", required = false) Integer userId,
+                                                    @RequestParam(defaultValue = "20") Integer commentsSize) {
+        OwnerItemDto item = itemService.getItemById(itemId, userId, commentsSize);
+        return new ResponseEntity<>(item, commentsCursor(item.getComments(), commentsSize), HttpStatus.OK);
+    }
+
+    @GetMapping("/{itemId}/comments")
+    public ResponseEntity<List<CommentDto>> getItemComments(@PathVariable long itemId,
+                                                            @RequestHeader(value = "X-Sharer-User-Id", required = false) Integer userId,
+                                                            @RequestParam(defaultValue = "20") Integer size,
+                                                            @RequestParam(required = false) String after) {
+        List<CommentDto> comments = itemService.getItemComments(itemId, userId, size, after);
+        return new ResponseEntity<>(comments, commentsCursor(comments, size), HttpStatus.OK);
+    }
+
+    @GetMapping("/{itemId}/availability")
+    public ResponseEntity<ItemAvailabilityDto> getItemAvailability(@PathVariable long itemId,
+                                                                   @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                                   @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                                   @RequestParam(defaultValue = "false") boolean waiting) {
+        return new ResponseEntity<>(itemService.getItemAvailability(itemId, from, to, waiting), HttpStatus.OK);
     }
 
     @GetMapping
-    public ResponseEntity<Collection<OwnerItemDto>> getItemsByOwnerId(@RequestHeader("X-Sharer-User-Id") int userId,
+    public ResponseEntity<List<OwnerItemDto>> getItemsByOwnerId(@RequestHeader("X-Sharer-User-Id") int userId,
                                                                       @RequestParam(defaultValue = "0") Integer from,
-                                                                      @RequestParam(defaultValue = "20") Integer size) {
-        return new ResponseEntity<>(itemService.getItemsByOwnerId(userId, from, size), HttpStatus.OK);
+                                                                      @RequestParam(defaultValue = "20") Integer size,
+                                                                      @RequestParam(required = false) String after) {
+        List<OwnerItemDto> items = itemService.getItemsByOwnerId(userId, from, size, after);
+        HttpHeaders headers = new HttpHeaders();
+        if (!items.isEmpty() && items.size() == size) {
+            headers.set(PageCursor.HEADER, PageCursor.encode(items.get(items.size() - 1).getId()));
+        }
+        return new ResponseEntity<>(items, headers, HttpStatus.OK);
     }
 
     @GetMapping("/search")
     public ResponseEntity<List<ItemDto>> searchItems(@RequestParam("text") String text,
+                                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+                                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
                                                      @RequestParam(defaultValue = "0") Integer from,
-                                                     @RequestParam(defaultValue = "20") Integer size) {
-        return new ResponseEntity<>(itemService.searchItems(text, from, size), HttpStatus.OK);
+                                                     @RequestParam(defaultValue = "20") Integer size,
+                                                     @RequestParam(required = false) String after) {
+        if ((start == null) != (end == null)) {
+            throw new BadRequestException("Для поиска свободных вещей нужно указать start и end!");
+        }
+        List<ItemDto> items = start == null
+                ? itemService.searchItems(text, from, size, after)
+                : itemService.searchAvailableItems(text, start, end, from, size, after);
+        HttpHeaders headers = new HttpHeaders();
+        if (!items.isEmpty() && items.size() == size) {
+            headers.set(PageCursor.HEADER, PageCursor.encode(items.get(items.size() - 1).getId()));
+        }
+        return new ResponseEntity<>(items, headers, HttpStatus.OK);
     }
 
     @PostMapping("/{itemId}/comment")
@@ -64,4 +124,13 @@ public class ItemController {
         return new ResponseEntity<>(itemService.saveComment(commentDto, userId, itemId), HttpStatus.OK);
     }
 
+    private static HttpHeaders commentsCursor(List<CommentDto> comments, int size) {
+        HttpHeaders headers = new HttpHeaders();
+        if (!comments.isEmpty() && comments.size() == size) {
+            CommentDto last = comments.get(comments.size() - 1);
+            headers.set(PageCursor.HEADER, PageCursor.encode(last.getCreated(), last.getId()));
+        }
+        return headers;
+    }
+
 }
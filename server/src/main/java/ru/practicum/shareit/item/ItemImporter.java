@@ -0,0 +1,203 @@
+package ru.practicum.shareit.item;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemImportErrorDto;
+import ru.practicum.shareit.item.dto.ItemImportResultDto;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.item.storage.ItemSearchIndex;
+import ru.practicum.shareit.item.storage.ItemSummaryUpdater;
+import ru.practicum.shareit.request.ItemRequest;
+import ru.practicum.shareit.request.storage.ItemRequestRepository;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.storage.UserRepository;
+
+import javax.persistence.EntityManager;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static ru.practicum.shareit.utils.Helper.checkUserExists;
+
+/**
+ * Загрузка каталога вещей из NDJSON (одна вещь в строке). Строки читаются потоком и обрабатываются
+ * пачками: запросы пачки проверяются одним запросом, вещи вставляются пакетно в отдельной транзакции.
+ * Ошибочные строки не прерывают загрузку и попадают в отчёт с номером строки. Владелец всех вещей —
+ * загружающий пользователь; строка с ownerId другого пользователя отклоняется.
+ */
+@Slf4j
+@Component
+public class ItemImporter {
+    // Длина name и description в таблице items
+    private static final int MAX_TEXT_LENGTH = 255;
+
+    private final ItemRepository itemRepository;
+    private final UserRepository userRepository;
+    private final ItemRequestRepository itemRequestRepository;
+    private final ItemSearchIndex itemSearchIndex;
+    private final ItemSummaryUpdater itemSummaryUpdater;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectReader itemReader;
+    private final int chunkSize;
+
+    @Autowired
+    public ItemImporter(ItemRepository itemRepository, UserRepository userRepository,
+                        ItemRequestRepository itemRequestRepository, ItemSearchIndex itemSearchIndex,
+                        ItemSummaryUpdater itemSummaryUpdater, EntityManager entityManager,
+                        PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+                        @Value("${shareit.items.import.chunk-size:500}") int chunkSize) {
+        this.itemRepository = itemRepository;
+        this.userRepository = userRepository;
+        this.itemRequestRepository = itemRequestRepository;
+        this.itemSearchIndex = itemSearchIndex;
+        this.itemSummaryUpdater = itemSummaryUpdater;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.itemReader = objectMapper.readerFor(ItemDto.class);
+        this.chunkSize = chunkSize;
+    }
+
+    public ItemImportResultDto importItems(int userId, Reader source) throws IOException {
+        checkUserExists(userRepository, userId);
+        ItemImportResultDto result = new ItemImportResultDto();
+        BufferedReader reader = new BufferedReader(source);
+        List<Row> chunk = new ArrayList<>(chunkSize);
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) continue;
+            try {
+                JsonNode node = itemReader.readTree(line);
+                ItemDto itemDto = itemReader.readValue(node);
+                chunk.add(new Row(lineNumber, itemDto, node.hasNonNull("ownerId") ? itemDto.getOwnerId() : null));
+            } catch (JsonProcessingException e) {
+                result.getErrors().add(new ItemImportErrorDto(lineNumber, "Некорректная строка: " + e.getOriginalMessage()));
+            }
+            if (chunk.size() == chunkSize) {
+                importChunk(userId, chunk, result);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(userId, chunk, result);
+        }
+        log.info("Imported {} items for userId={}, rejected {} lines", result.getImported(), userId,
+                result.getErrors().size());
+        return result;
+    }
+
+    /**
+     * Сохраняет пачку одной транзакцией. Если база отвергла пачку, строки сохраняются по одной,
+     * чтобы в отчёт попали только те, что не удалось сохранить.
+     */
+    private void importChunk(int userId, List<Row> chunk, ItemImportResultDto result) {
+        try {
+            saveRows(userId, chunk, result);
+        } catch (DataAccessException e) {
+            log.warn("Import chunk of {} lines failed, retrying line by line", chunk.size(), e);
+            for (Row row : chunk) {
+                try {
+                    saveRows(userId, List.of(row), result);
+                } catch (DataAccessException rowException) {
+                    result.getErrors().add(new ItemImportErrorDto(row.line,
+                            "Строка не сохранена: " + rowException.getMostSpecificCause().getMessage()));
+                }
+            }
+        }
+    }
+
+    private void saveRows(int userId, List<Row> rows, ItemImportResultDto result) {
+        List<ItemImportErrorDto> errors = new ArrayList<>();
+        int imported = transactionTemplate.execute(status -> {
+            Optional<User> owner = userRepository.findById(userId);
+            Set<Long> requestIds = rows.stream()
+                    .map(row -> row.item.getRequestId())
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toSet());
+            Map<Long, ItemRequest> requests = itemRequestRepository.findAllById(requestIds).stream()
+                    .collect(Collectors.toMap(ItemRequest::getId, Function.identity()));
+
+            List<Item> items = new ArrayList<>(rows.size());
+            for (Row row : rows) {
+                String error = owner.isEmpty()
+                        ? String.format("Пользователь не найден! Id=%d", userId)
+                        : validate(userId, row, requests);
+                if (error != null) {
+                    errors.add(new ItemImportErrorDto(row.line, error));
+                    continue;
+                }
+                ItemDto itemDto = row.item;
+                itemDto.setId(null);
+                items.add(ItemMapper.toItemEntity(itemDto, owner.get(),
+                        itemDto.getRequestId() != null ? requests.get(itemDto.getRequestId()) : null));
+            }
+            itemRepository.saveAll(items);
+            itemSearchIndex.indexNew(items);
+            itemSummaryUpdater.registerAll(items);
+            entityManager.flush();
+            entityManager.clear();
+            return items.size();
+        });
+        result.setImported(result.getImported() + imported);
+        result.getErrors().addAll(errors);
+    }
+
+    private static String validate(int userId, Row row, Map<Long, ItemRequest> requests) {
+        ItemDto itemDto = row.item;
+        if (itemDto.getName() == null || itemDto.getName().isBlank()) {
+            return "Не указано название вещи";
+        }
+        if (itemDto.getName().length() > MAX_TEXT_LENGTH) {
+            return String.format("Название вещи длиннее %d символов", MAX_TEXT_LENGTH);
+        }
+        if (itemDto.getDescription() == null || itemDto.getDescription().isBlank()) {
+            return "Не указано описание вещи";
+        }
+        if (itemDto.getDescription().length() > MAX_TEXT_LENGTH) {
+            return String.format("Описание вещи длиннее %d символов", MAX_TEXT_LENGTH);
+        }
+        if (itemDto.getAvailable() == null) {
+            return "Не указана доступность вещи";
+        }
+        if (row.ownerId != null && row.ownerId != userId) {
+            return String.format("Вещь можно загрузить только от имени её владельца! Id=%d", row.ownerId);
+        }
+        if (itemDto.getRequestId() != null && !requests.containsKey(itemDto.getRequestId())) {
+            return String.format("Запрос не найден! Id=%d", itemDto.getRequestId());
+        }
+        return null;
+    }
+
+    private static class Row {
+        private final long line;
+        private final ItemDto item;
+        // ownerId из строки, null — если в строке его нет
+        private final Integer ownerId;
+
+        private Row(long line, ItemDto item, Integer ownerId) {
+            this.line = line;
+            this.item = item;
+            this.ownerId = ownerId;
+        }
+    }
+}
@@ -1,24 +1,54 @@
 package ru.practicum.shareit.item;
 
+import ru.practicum.shareit.booking.dto.BookItemRequestDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.OwnerItemDto;
+import ru.practicum.shareit.item.storage.ItemDetailRow;
 import ru.practicum.shareit.request.ItemRequest;
 import ru.practicum.shareit.user.User;
 
 public class ItemMapper {
     public static ItemDto toItemDto(Item item) {
-        return ItemDto.builder()
+        return new ItemDto(item.getId(),
+                item.getName(),
+                item.getDescription(),
+                item.getAvailable(),
+                item.getOwner().getId(),
+                item.getItemRequest() != null ? item.getItemRequest().getId() : null);
+    }
+
+    public static OwnerItemDto toOwnerItemDto(Item item) {
+        return new OwnerItemDto(toItemDto(item));
+    }
+
+    public static OwnerItemDto toOwnerItemDto(ItemDetailRow item) {
+        return new OwnerItemDto(ItemDto.builder()
                 .id(item.getId())
                 .name(item.getName())
                 .description(item.getDescription())
                 .available(item.getAvailable())
-                .ownerId(item.getOwner().getId())
-                .requestId(item.getItemRequest() != null ? item.getItemRequest().getId() : null)
-                .build();
+                .ownerId(item.getOwnerId())
+                .requestId(item.getRequestId())
+                .build());
     }
 
-    public static OwnerItemDto toOwnerItemDto(Item item) {
-        return new OwnerItemDto(toItemDto(item));
+    public static OwnerItemDto toOwnerItemDto(ItemSummary summary) {
+        OwnerItemDto ownerItemDto = toOwnerItemDto(summary.getItem());
+        if (summary.getLastBookingId() != null) {
+            ownerItemDto.setLastBooking(new BookItemRequestDto(summary.getLastBookingId(),
+                    summary.getLastBookingStart(),
+                    summary.getLastBookingEnd(),
+                    summary.getItemId(),
+                    summary.getLastBookerId()));
+        }
+        if (summary.getNextBookingId() != null) {
+            ownerItemDto.setNextBooking(new BookItemRequestDto(summary.getNextBookingId(),
+                    summary.getNextBookingStart(),
+                    summary.getNextBookingEnd(),
+                    summary.getItemId(),
+                    summary.getNextBookerId()));
+        }
+        return ownerItemDto;
     }
 
     public static Item toItemEntity(ItemDto itemDto, User user, ItemRequest itemRequest) {
@@ -0,0 +1,54 @@
+package ru.practicum.shareit.item;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+import java.io.Serializable;
+
+@Entity
+@Table(name = "item_ngrams")
+@IdClass(ItemNgram.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemNgram implements Persistable<ItemNgram.Key> {
+    @Id
+    private String gram;
+    @Id
+    @Column(name = "item_id")
+    private Long itemId;
+
+    @Override
+    @Transient
+    public Key getId() {
+        return new Key(gram, itemId);
+    }
+
+    // Строки индекса только вставляются и удаляются, поэтому save не должен делать select перед insert
+    @Override
+    @Transient
+    public boolean isNew() {
+        return true;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private String gram;
+        private Long itemId;
+    }
+}
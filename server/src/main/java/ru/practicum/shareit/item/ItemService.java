@@ -1,10 +1,11 @@
 package ru.practicum.shareit.item;
 
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.OwnerItemDto;
 
-import java.util.Collection;
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface ItemService {
@@ -12,11 +13,18 @@ public interface ItemService {
 
     ItemDto update(Integer userId, Long itemId, ItemDto itemDto);
 
-    Collection<OwnerItemDto> getItemsByOwnerId(int userId, Integer from, Integer size);
+    List<OwnerItemDto> getItemsByOwnerId(int userId, Integer from, Integer size, String after);
 
-    List<ItemDto> searchItems(String text, Integer from, Integer size);
+    List<ItemDto> searchItems(String text, Integer from, Integer size, String after);
 
-    OwnerItemDto getItemById(long itemId, Integer userId);
+    List<ItemDto> searchAvailableItems(String text, LocalDateTime start, LocalDateTime end, Integer from, Integer size,
+                                       String after);
+
+    OwnerItemDto getItemById(long itemId, Integer userId, int commentsLimit);
+
+    ItemAvailabilityDto getItemAvailability(long itemId, LocalDateTime from, LocalDateTime to, boolean includeWaiting);
+
+    List<CommentDto> getItemComments(long itemId, Integer userId, Integer size, String after);
 
     CommentDto saveComment(CommentDto commentDto, int userId, long itemId);
 }
@@ -5,71 +5,103 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.Booking;
 import ru.practicum.shareit.booking.BookingMapper;
+import ru.practicum.shareit.booking.dto.BookItemRequestDto;
+import ru.practicum.shareit.booking.storage.BookingIntervalIndex;
 import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.exception.ObjectAccessException;
 import ru.practicum.shareit.exception.ObjectNotFoundException;
 import ru.practicum.shareit.exception.ObjectSaveException;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.OwnerItemDto;
 import ru.practicum.shareit.item.storage.CommentRepository;
+import ru.practicum.shareit.item.storage.ItemAvailabilityCalendar;
+import ru.practicum.shareit.item.storage.ItemDetailRow;
 import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.item.storage.ItemSearchIndex;
+import ru.practicum.shareit.item.storage.ItemSummaryRepository;
+import ru.practicum.shareit.item.storage.ItemSummaryUpdater;
+import ru.practicum.shareit.item.storage.OwnerItemRow;
 import ru.practicum.shareit.request.ItemRequest;
 import ru.practicum.shareit.request.storage.ItemRequestRepository;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.storage.UserRepository;
+import ru.practicum.shareit.utils.PageCursor;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
-import static ru.practicum.shareit.utils.Helper.findUserById;
+import static ru.practicum.shareit.utils.Helper.checkUserExists;
+import static ru.practicum.shareit.utils.Helper.getUserReference;
 
 @Service
 @Transactional(readOnly = true)
 public class ItemServiceImpl implements ItemService {
+    private static final int AVAILABLE_SEARCH_BATCH_SIZE = 100;
 
     private final ItemRepository itemRepository;
     private final UserRepository userRepository;
     private final BookingRepository bookingRepository;
     private final CommentRepository commentRepository;
     private final ItemRequestRepository itemRequestRepository;
+    private final ItemSearchIndex itemSearchIndex;
+    private final ItemSummaryRepository itemSummaryRepository;
+    private final ItemSummaryUpdater itemSummaryUpdater;
+    private final ItemAvailabilityCalendar itemAvailabilityCalendar;
+    private final BookingIntervalIndex bookingIntervalIndex;
 
     @Autowired
     public ItemServiceImpl(ItemRepository itemRepository, UserRepository userRepository,
                            BookingRepository bookingRepository, CommentRepository commentRepository,
-                           ItemRequestRepository itemRequestRepository) {
+                           ItemRequestRepository itemRequestRepository, ItemSearchIndex itemSearchIndex,
+                           ItemSummaryRepository itemSummaryRepository, ItemSummaryUpdater itemSummaryUpdater,
+                           ItemAvailabilityCalendar itemAvailabilityCalendar, BookingIntervalIndex bookingIntervalIndex) {
         this.itemRepository = itemRepository;
         this.userRepository = userRepository;
         this.bookingRepository = bookingRepository;
         this.commentRepository = commentRepository;
         this.itemRequestRepository = itemRequestRepository;
+        this.itemSearchIndex = itemSearchIndex;
+        this.itemSummaryRepository = itemSummaryRepository;
+        this.itemSummaryUpdater = itemSummaryUpdater;
+        this.itemAvailabilityCalendar = itemAvailabilityCalendar;
+        this.bookingIntervalIndex = bookingIntervalIndex;
     }
 
     @Override
     @Transactional
     public ItemDto create(Integer userId, ItemDto itemDto) {
-        Optional<User> owner = userRepository.findById(userId);
-        if (owner.isEmpty()) {
-            throw new ObjectNotFoundException(String.format("Пользователь не найден! Id=%d", userId));
-        }
+        User owner = getUserReference(userRepository, userId);
         itemDto.setOwnerId(userId);
-        return ItemMapper.toItemDto(itemRepository.save(ItemMapper.toItemEntity(itemDto, owner.get(),
-                getItemRequestById(itemDto.getRequestId()))));
+        Item item = itemRepository.save(ItemMapper.toItemEntity(itemDto, owner,
+                getItemRequestById(itemDto.getRequestId())));
+        itemSearchIndex.index(item);
+        itemSummaryUpdater.register(item);
+        return ItemMapper.toItemDto(item);
     }
 
     @Override
     @Transactional
     public ItemDto update(Integer userId, Long itemId, ItemDto itemDto) {
-        User user = findUserById(userRepository, userId);
-        ItemDto tempItemDto = getItemById(itemId, userId);
+        User user = getUserReference(userRepository, userId);
+        Optional<Item> item = itemRepository.findById(itemId);
+        if (item.isEmpty()) {
+            throw new ObjectNotFoundException(String.format("Вещь не найдена! Id=%d", itemId));
+        }
+        ItemDto tempItemDto = ItemMapper.toItemDto(item.get());
         if (tempItemDto.getOwnerId() != userId) {
             throw new ObjectAccessException(
                     String.format("Ошибка доступа к вещи. Доступ к изменению информации о вещи запрещен! Id пользователя=%d", userId));
@@ -83,88 +115,175 @@ public class ItemServiceImpl implements ItemService {
 
         if (itemDto.getDescription() != null && !itemDto.getDescription().isBlank())
             tempItemDto.setDescription(itemDto.getDescription());
-        Item item = ItemMapper.toItemEntity(tempItemDto, user, getItemRequestById(itemDto.getRequestId()));
-        return ItemMapper.toItemDto(itemRepository.save(item));
+        Item updatedItem = itemRepository.save(ItemMapper.toItemEntity(tempItemDto, user, getItemRequestById(itemDto.getRequestId())));
+        itemSearchIndex.index(updatedItem);
+        return ItemMapper.toItemDto(updatedItem);
     }
 
+    /**
+     * Список строится по вещам владельца, сводка присоединяется к ним. Сводка, которой ещё нет или которая
+     * устарела (validUntil в прошлом, а фоновый пересчёт до неё не дошёл), пересчитывается здесь же.
+     */
     @Override
-    public Collection<OwnerItemDto> getItemsByOwnerId(int userId, Integer from, Integer size) {
-        findUserById(userRepository, userId);
+    @Transactional
+    public List<OwnerItemDto> getItemsByOwnerId(int userId, Integer from, Integer size, String after) {
+        checkUserExists(userRepository, userId);
         Sort sort = Sort.by(Sort.Direction.DESC, "id");
-        PageRequest pageable = PageRequest.of(from > 0 ? from / size : 0, size, sort);
-        List<Item> items = itemRepository.findByOwnerIdIs(userId, pageable);
-        Map<Long, OwnerItemDto> itemMap = items.stream()
-                .collect(Collectors.toMap(Item::getId, ItemMapper::toOwnerItemDto));
-
-        List<Booking> bookings = bookingRepository
-                .findApprovedBookings(itemMap.keySet(), Sort.by(Sort.Direction.DESC, "endDate"));
-
+        PageRequest pageable = PageCursor.pageRequest(from, size, after, sort);
         LocalDateTime now = LocalDateTime.now();
-        for (Booking booking : bookings) {
-            if (booking.getEndDate().isBefore(now) &&
-                    (itemMap.get(booking.getItem().getId()).getLastBooking() == null ||
-                            itemMap.get(booking.getItem().getId())
-                                    .getLastBooking().getEnd()
-                                    .isBefore(booking.getEndDate()))) {
-                itemMap.get(booking.getItem().getId()).setLastBooking(BookingMapper.toBookingRequestDto(booking));
-            } else if (booking.getStartDate().isAfter(now) &&
-                    (itemMap.get(booking.getItem().getId()).getNextBooking() == null ||
-                            itemMap.get(booking.getItem().getId())
-                                    .getNextBooking().getStart()
-                                    .isAfter(booking.getStartDate()))) {
-                itemMap.get(booking.getItem().getId()).setNextBooking(BookingMapper.toBookingRequestDto(booking));
+        List<ItemSummary> summaries = new ArrayList<>();
+        for (OwnerItemRow row : itemSummaryRepository.findOwnerItems(userId, PageCursor.descending(after).getId(), pageable)) {
+            ItemSummary summary = row.getSummary();
+            if (summary == null || summary.getValidUntil() != null && !summary.getValidUntil().isAfter(now)) {
+                summary = itemSummaryUpdater.refresh(row.getItem().getId());
             }
+            summaries.add(summary);
         }
-        List<Comment> comments = commentRepository.findCommentsByItems(itemMap.keySet(), Sort.by(Sort.Direction.DESC, "created"));
-        for (Comment comment : comments) {
-            itemMap.get(comment.getItem().getId()).getComments().add(CommentMapper.toCommentDto(comment));
+
+        // Один комментарий уже лежит в сводке, за остальными идём в comments
+        Set<Long> commentedItemIds = summaries.stream()
+                .filter(summary -> summary.getCommentCount() > 1)
+                .map(ItemSummary::getItemId)
+                .collect(Collectors.toSet());
+        Map<Long, List<CommentDto>> comments = new HashMap<>();
+        if (!commentedItemIds.isEmpty()) {
+            for (Comment comment : commentRepository.findCommentsByItems(commentedItemIds, Sort.by(Sort.Direction.DESC, "created"))) {
+                comments.computeIfAbsent(comment.getItem().getId(), id -> new ArrayList<>())
+                        .add(CommentMapper.toCommentDto(comment));
+            }
+        }
+        List<OwnerItemDto> result = new ArrayList<>(summaries.size());
+        for (ItemSummary summary : summaries) {
+            OwnerItemDto ownerItemDto = ItemMapper.toOwnerItemDto(summary);
+            if (summary.getCommentCount() == 1) {
+                ownerItemDto.getComments().add(CommentMapper.toLatestCommentDto(summary));
+            } else if (summary.getCommentCount() > 1) {
+                ownerItemDto.getComments().addAll(comments.getOrDefault(summary.getItemId(), List.of()));
+            }
+            result.add(ownerItemDto);
         }
-        return itemMap.values();
+        return result;
     }
 
     @Override
     @Transactional
-    public List<ItemDto> searchItems(String text, Integer from, Integer size) {
+    public List<ItemDto> searchItems(String text, Integer from, Integer size, String after) {
         if (text == null || text.isEmpty()) return new ArrayList<>();
         Sort sort = Sort.by("id");
-        PageRequest pageable = PageRequest.of(from > 0 ? from / size : 0, size, sort);
-        List<Item> items = itemRepository.findItemsByText(text, pageable);
-        return items.stream().map(ItemMapper::toItemDto).collect(Collectors.toList());
+        PageRequest pageable = PageCursor.pageRequest(from, size, after, sort);
+        long afterId = PageCursor.ascending(after).getId();
+        return findItemsByText(text, afterId, pageable).stream()
+                .map(ItemMapper::toItemDto)
+                .collect(Collectors.toList());
     }
 
+    /**
+     * Поиск только среди вещей, свободных в период. Кандидаты выбираются по тексту пачками по id,
+     * занятость пачки проверяется по индексу интервалов в памяти, а не подзапросом к bookings;
+     * пачки читаются, пока страница не заполнится свободными вещами.
+     */
     @Override
-    public OwnerItemDto getItemById(long itemId, Integer userId) {
-        findUserById(userRepository, userId);
-        Optional<Item> item = itemRepository.findById(itemId);
-        if (item.isEmpty()) {
-            throw new ObjectNotFoundException(String.format("Вещь не найдена! Id=%d", itemId));
-        } else {
-            OwnerItemDto ownerItemDto = ItemMapper.toOwnerItemDto(item.get());
-            if (userId != null && item.get().getOwner().getId() == userId.intValue()) {
-                List<Booking> lastBooking = bookingRepository.findOwnerLastBooking(item.get().getId(), Sort.by(Sort.Direction.DESC, "endDate"));
-                List<Booking> nextBooking = bookingRepository.findOwnerNextBooking(item.get().getId(), Sort.by("startDate"));
-                ownerItemDto.setLastBooking(!lastBooking.isEmpty() ? BookingMapper.toBookingRequestDto(lastBooking.get(0)) : null);
-                ownerItemDto.setNextBooking(!nextBooking.isEmpty() ? BookingMapper.toBookingRequestDto(nextBooking.get(0)) : null);
-            } else {
-                ownerItemDto = new OwnerItemDto(ItemMapper.toItemDto(item.get()));
+    public List<ItemDto> searchAvailableItems(String text, LocalDateTime start, LocalDateTime end, Integer from,
+                                              Integer size, String after) {
+        if (!start.isBefore(end)) {
+            throw new BadRequestException(String.format("Начало периода должно быть раньше окончания! start=%s, end=%s", start, end));
+        }
+        List<ItemDto> result = new ArrayList<>(size);
+        if (text == null || text.isEmpty()) return result;
+        int skip = after == null || after.isBlank() ? from / size * size : 0;
+        long afterId = PageCursor.ascending(after).getId();
+        PageRequest pageable = PageRequest.of(0, Math.max(size, AVAILABLE_SEARCH_BATCH_SIZE), Sort.by("id"));
+        while (result.size() < size) {
+            List<Item> candidates = findItemsByText(text, afterId, pageable);
+            if (candidates.isEmpty()) break;
+            Set<Long> busy = bookingIntervalIndex.findBusy(candidates.stream()
+                    .map(Item::getId)
+                    .collect(Collectors.toList()), start, end);
+            for (Item item : candidates) {
+                if (busy.contains(item.getId())) continue;
+                if (skip > 0) {
+                    skip--;
+                } else if (result.size() < size) {
+                    result.add(ItemMapper.toItemDto(item));
+                }
             }
-            ownerItemDto.getComments().addAll(commentRepository.findByItem_IdIsOrderByCreatedDesc(itemId)
-                    .stream().map(CommentMapper::toCommentDto)
-                    .collect(Collectors.toList()));
-            return ownerItemDto;
+            if (candidates.size() < pageable.getPageSize()) break;
+            afterId = candidates.get(candidates.size() - 1).getId();
         }
+        return result;
+    }
+
+    private List<Item> findItemsByText(String text, long afterId, PageRequest pageable) {
+        Set<String> grams = ItemSearchIndex.queryGrams(text);
+        return itemRepository.findItemsByTextNgrams(text, grams, grams.size(), afterId, pageable);
+    }
+
+    @Override
+    public OwnerItemDto getItemById(long itemId, Integer userId, int commentsLimit) {
+        checkUserExists(userRepository, userId);
+        List<ItemDetailRow> rows = itemRepository.findItemDetails(itemId, userId, LocalDateTime.now(), commentsLimit);
+        OwnerItemDto ownerItemDto = null;
+        BookItemRequestDto lastBooking = null;
+        BookItemRequestDto nextBooking = null;
+        List<CommentDto> comments = new ArrayList<>();
+        for (ItemDetailRow row : rows) {
+            switch (row.getKind()) {
+                case ItemDetailRow.ITEM:
+                    ownerItemDto = ItemMapper.toOwnerItemDto(row);
+                    break;
+                case ItemDetailRow.LAST:
+                    lastBooking = BookingMapper.toBookingRequestDto(itemId, row);
+                    break;
+                case ItemDetailRow.NEXT:
+                    nextBooking = BookingMapper.toBookingRequestDto(itemId, row);
+                    break;
+                default:
+                    comments.add(CommentMapper.toCommentDto(row));
+            }
+        }
+        if (ownerItemDto == null) {
+            throw new ObjectNotFoundException(String.format("Вещь не найдена! Id=%d", itemId));
+        }
+        ownerItemDto.setLastBooking(lastBooking);
+        ownerItemDto.setNextBooking(nextBooking);
+        comments.sort(Comparator.comparing(CommentDto::getCreated).thenComparing(CommentDto::getId).reversed());
+        ownerItemDto.getComments().addAll(comments);
+        return ownerItemDto;
+    }
+
+    // Ответ из кэша не должен занимать соединение с базой, поэтому транзакция не открывается
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public ItemAvailabilityDto getItemAvailability(long itemId, LocalDateTime from, LocalDateTime to,
+                                                   boolean includeWaiting) {
+        if (!from.isBefore(to)) {
+            throw new BadRequestException(String.format("Начало периода должно быть раньше окончания! from=%s, to=%s", from, to));
+        }
+        return itemAvailabilityCalendar.find(itemId, from, to, includeWaiting);
+    }
+
+    @Override
+    public List<CommentDto> getItemComments(long itemId, Integer userId, Integer size, String after) {
+        checkUserExists(userRepository, userId);
+        PageCursor cursor = PageCursor.descending(after);
+        return commentRepository.findItemComments(itemId, cursor.getTime(), cursor.getId(),
+                        PageRequest.of(0, size, Sort.by(Sort.Direction.DESC, "created", "id")))
+                .stream()
+                .map(CommentMapper::toCommentDto)
+                .collect(Collectors.toList());
     }
 
     @Override
     @Transactional
     public CommentDto saveComment(CommentDto commentDto, int userId, long itemId) {
-        User author = findUserById(userRepository, userId);
+        User author = getUserReference(userRepository, userId);
         Optional<Item> item = itemRepository.findById(itemId);
         if (item.isEmpty()) throw new ObjectNotFoundException(String.format("Вещь не найдена! Id=%x", itemId));
         List<Booking> bookings = bookingRepository.findExpiredByBookerIdAndItemId(userId, itemId);
         if (bookings != null && !bookings.isEmpty()) {
-            Comment comment = CommentMapper.toCommentEntity(commentDto, author, item.get());
-            return CommentMapper.toCommentDto(commentRepository.save(comment));
+            Comment comment = commentRepository.save(CommentMapper.toCommentEntity(commentDto, author, item.get()));
+            itemSummaryUpdater.refresh(itemId);
+            return CommentMapper.toCommentDto(comment);
         } else {
             throw new ObjectSaveException("Вы не можете оставить отзыв этому товару!");
         }
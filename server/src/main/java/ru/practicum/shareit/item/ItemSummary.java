@@ -0,0 +1,54 @@
+package ru.practicum.shareit.item;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.MapsId;
+import javax.persistence.OneToOne;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * Сводка по вещи для списка вещей владельца: последнее и следующее одобренное бронирование,
+ * число комментариев и последний комментарий. Обновляется при записи, см. ItemSummaryUpdater;
+ * validUntil — ближайший момент, когда сводка устареет сама (начало следующего или конец текущего бронирования).
+ */
+@Entity
+@Table(name = "item_summary")
+@Getter
+@Setter
+@NoArgsConstructor
+public class ItemSummary {
+    @Id
+    @Column(name = "item_id")
+    private Long itemId;
+    @MapsId
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "item_id")
+    private Item item;
+    private Long lastBookingId;
+    private LocalDateTime lastBookingStart;
+    private LocalDateTime lastBookingEnd;
+    private Integer lastBookerId;
+    private Long nextBookingId;
+    private LocalDateTime nextBookingStart;
+    private LocalDateTime nextBookingEnd;
+    private Integer nextBookerId;
+    private int commentCount;
+    private Long latestCommentId;
+    private String latestCommentText;
+    private String latestCommentAuthor;
+    private LocalDateTime latestCommentCreated;
+    private LocalDateTime refreshedAt;
+    private LocalDateTime validUntil;
+
+    public ItemSummary(Item item) {
+        this.item = item;
+    }
+}
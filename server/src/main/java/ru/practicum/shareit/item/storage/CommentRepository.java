@@ -1,15 +1,21 @@
 package ru.practicum.shareit.item.storage;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.item.Comment;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
-    List<Comment> findByItem_IdIsOrderByCreatedDesc(Long id);
+    long countByItem_Id(Long itemId);
+
+    @Query("select c from Comment c join fetch c.author " +
+            "where c.item.id = ?1 and (c.created < ?2 or (c.created = ?2 and c.id < ?3))")
+    List<Comment> findItemComments(Long itemId, LocalDateTime afterCreated, Long afterId, Pageable page);
 
     @Query("select c from Comment c where c.item.id in ?1")
     List<Comment> findCommentsByItems(Collection<Long> ids, Sort sort);
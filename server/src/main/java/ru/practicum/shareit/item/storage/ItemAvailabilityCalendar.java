@@ -0,0 +1,137 @@
+package ru.practicum.shareit.item.storage;
+
+import lombok.Value;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.storage.BookingPeriod;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.exception.ObjectNotFoundException;
+import ru.practicum.shareit.item.dto.AvailabilityIntervalDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import static ru.practicum.shareit.booking.Booking.BookingStatus.APPROVED;
+import static ru.practicum.shareit.booking.Booking.BookingStatus.WAITING;
+
+/**
+ * Календарь занятости вещей. Свободные и занятые интервалы периода считаются по бронированиям вещи,
+ * выбранным одним запросом по индексу (item_id, status, start_date, end_date). Посчитанные периоды
+ * хранятся в кэше availability по вещи и сбрасываются целиком после фиксации транзакции, изменившей
+ * её бронирования.
+ */
+@Component
+public class ItemAvailabilityCalendar {
+    public static final String CACHE_NAME = "availability";
+    private static final int MAX_PERIODS_PER_ITEM = 64;
+    private static final List<Booking.BookingStatus> APPROVED_ONLY = List.of(APPROVED);
+    private static final List<Booking.BookingStatus> APPROVED_AND_WAITING = List.of(APPROVED, WAITING);
+
+    private final ItemRepository itemRepository;
+    private final BookingRepository bookingRepository;
+    private final Cache cache;
+
+    @Autowired
+    public ItemAvailabilityCalendar(ItemRepository itemRepository, BookingRepository bookingRepository,
+                                    CacheManager cacheManager) {
+        this.itemRepository = itemRepository;
+        this.bookingRepository = bookingRepository;
+        this.cache = Objects.requireNonNull(cacheManager.getCache(CACHE_NAME), "Не настроен кэш " + CACHE_NAME);
+    }
+
+    public ItemAvailabilityDto find(long itemId, LocalDateTime from, LocalDateTime to, boolean includeWaiting) {
+        ItemPeriods periods = cache.get(itemId, ItemPeriods.class);
+        if (periods == null) {
+            if (!itemRepository.existsById(itemId)) {
+                throw new ObjectNotFoundException(String.format("Вещь не найдена! Id=%d", itemId));
+            }
+            periods = cache.get(itemId, ItemPeriods::new);
+        }
+        // Если вещь успели сбросить, результат попадёт в отсоединённый объект и в кэше не окажется
+        return periods.get(new Period(from, to, includeWaiting), period -> load(itemId, period));
+    }
+
+    public void invalidate(long itemId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.evict(itemId);
+                }
+            });
+        } else {
+            cache.evict(itemId);
+        }
+    }
+
+    private ItemAvailabilityDto load(long itemId, Period period) {
+        List<AvailabilityIntervalDto> intervals = new ArrayList<>();
+        LocalDateTime freeStart = period.from;
+        LocalDateTime busyStart = null;
+        LocalDateTime busyEnd = null;
+        for (BookingPeriod booking : bookingRepository.findBookingPeriods(itemId,
+                period.includeWaiting ? APPROVED_AND_WAITING : APPROVED_ONLY, period.from, period.to)) {
+            LocalDateTime start = booking.getStartDate().isBefore(period.from) ? period.from : booking.getStartDate();
+            LocalDateTime end = booking.getEndDate().isAfter(period.to) ? period.to : booking.getEndDate();
+            if (busyEnd != null && !start.isAfter(busyEnd)) {
+                if (end.isAfter(busyEnd)) {
+                    busyEnd = end;
+                }
+                continue;
+            }
+            if (busyEnd != null) {
+                intervals.add(new AvailabilityIntervalDto(busyStart, busyEnd, false));
+                freeStart = busyEnd;
+            }
+            if (start.isAfter(freeStart)) {
+                intervals.add(new AvailabilityIntervalDto(freeStart, start, true));
+            }
+            busyStart = start;
+            busyEnd = end;
+        }
+        if (busyEnd != null) {
+            intervals.add(new AvailabilityIntervalDto(busyStart, busyEnd, false));
+            freeStart = busyEnd;
+        }
+        if (period.to.isAfter(freeStart)) {
+            intervals.add(new AvailabilityIntervalDto(freeStart, period.to, true));
+        }
+        return new ItemAvailabilityDto(itemId, period.from, period.to, Collections.unmodifiableList(intervals));
+    }
+
+    @Value
+    private static class Period {
+        LocalDateTime from;
+        LocalDateTime to;
+        boolean includeWaiting;
+    }
+
+    private static class ItemPeriods {
+        private final Map<Period, ItemAvailabilityDto> periods = new ConcurrentHashMap<>();
+
+        ItemAvailabilityDto get(Period period, Function<Period, ItemAvailabilityDto> loader) {
+            ItemAvailabilityDto availability = periods.get(period);
+            if (availability == null) {
+                availability = loader.apply(period);
+                // Календарь обычно запрашивает несколько соседних периодов; произвольные периоды не копим
+                if (periods.size() >= MAX_PERIODS_PER_ITEM) {
+                    periods.clear();
+                }
+                periods.put(period, availability);
+            }
+            return availability;
+        }
+    }
+}
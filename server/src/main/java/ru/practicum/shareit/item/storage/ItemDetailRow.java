@@ -0,0 +1,40 @@
+package ru.practicum.shareit.item.storage;
+
+import java.time.LocalDateTime;
+
+/**
+ * Строка выборки карточки вещи: сама вещь (ITEM), последнее и следующее бронирование для владельца
+ * (LAST, NEXT) или один из последних комментариев (COMMENT). Незаполненные для вида строки поля равны null.
+ */
+public interface ItemDetailRow {
+    String ITEM = "ITEM";
+    String LAST = "LAST";
+    String NEXT = "NEXT";
+    String COMMENT = "COMMENT";
+
+    String getKind();
+
+    Long getId();
+
+    String getName();
+
+    String getDescription();
+
+    Boolean getAvailable();
+
+    Integer getOwnerId();
+
+    Long getRequestId();
+
+    LocalDateTime getStartDate();
+
+    LocalDateTime getEndDate();
+
+    Integer getBookerId();
+
+    String getText();
+
+    String getAuthorName();
+
+    LocalDateTime getCreated();
+}
@@ -0,0 +1,14 @@
+package ru.practicum.shareit.item.storage;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import ru.practicum.shareit.item.ItemNgram;
+
+public interface ItemNgramRepository extends JpaRepository<ItemNgram, ItemNgram.Key> {
+
+    @Modifying
+    @Query("delete from ItemNgram g where g.itemId = ?1")
+    void deleteByItemId(Long itemId);
+
+}
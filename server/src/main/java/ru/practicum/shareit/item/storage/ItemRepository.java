@@ -3,25 +3,63 @@ package ru.practicum.shareit.item.storage;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.item.Item;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
 
 public interface ItemRepository extends JpaRepository<Item, Long> {
-
-    List<Item> findByOwnerIdIs(Integer id, Pageable pageable);
+    String NO_ITEM_COLUMNS = "cast(null as varchar) as name, cast(null as varchar) as description, " +
+            "cast(null as boolean) as available, cast(null as int) as ownerId, cast(null as bigint) as requestId";
+    String NO_COMMENT_COLUMNS = "cast(null as varchar) as text, cast(null as varchar) as authorName, " +
+            "cast(null as timestamp) as created";
 
     @Query("select i " +
             "from Item i " +
-            "where i.available = true and " +
+            "where i.available = true and i.id > ?4 and " +
+            "i.id in (select g.itemId from ItemNgram g where g.gram in ?2 group by g.itemId having count(g.gram) = ?3) and " +
             "(lower(i.name) like lower(concat('%', ?1, '%')) or lower(i.description) like lower(concat('%', ?1, '%')))")
-    List<Item> findItemsByText(String text, Pageable pageable);
+    List<Item> findItemsByTextNgrams(String text, Collection<String> grams, long gramCount, Long afterId, Pageable pageable);
+
+    @Query(value = "select 'ITEM' as kind, i.id as id, i.name as name, i.description as description, " +
+            "i.available as available, cast(i.user_id as int) as ownerId, i.request_id as requestId, " +
+            "cast(null as timestamp) as startDate, cast(null as timestamp) as endDate, cast(null as int) as bookerId, " +
+            "cast(null as varchar) as text, cast(null as varchar) as authorName, cast(null as timestamp) as created " +
+            "from items i where i.id = ?1 " +
+            "union all " +
+            "select * from (select 'LAST' as kind, b.id as id, " + NO_ITEM_COLUMNS + ", " +
+            "b.start_date as startDate, b.end_date as endDate, cast(b.booker_id as int) as bookerId, " + NO_COMMENT_COLUMNS + " " +
+            "from bookings b join items i on i.id = b.item_id " +
+            "where b.item_id = ?1 and i.user_id = ?2 and b.status = 'APPROVED' and b.start_date < ?3 " +
+            "order by b.end_date desc limit 1) l " +
+            "union all " +
+            "select * from (select 'NEXT' as kind, b.id as id, " + NO_ITEM_COLUMNS + ", " +
+            "b.start_date as startDate, b.end_date as endDate, cast(b.booker_id as int) as bookerId, " + NO_COMMENT_COLUMNS + " " +
+            "from bookings b join items i on i.id = b.item_id " +
+            "where b.item_id = ?1 and i.user_id = ?2 and b.status = 'APPROVED' and b.start_date > ?3 " +
+            "order by b.start_date limit 1) n " +
+            "union all " +
+            "select * from (select 'COMMENT' as kind, c.id as id, " + NO_ITEM_COLUMNS + ", " +
+            "cast(null as timestamp) as startDate, cast(null as timestamp) as endDate, cast(null as int) as bookerId, " +
+            "c.text as text, u.name as authorName, c.created as created " +
+            "from comments c join users u on u.id = c.user_id " +
+            "where c.item_id = ?1 " +
+            "order by c.created desc, c.id desc limit ?4) c", nativeQuery = true)
+    List<ItemDetailRow> findItemDetails(long itemId, Integer userId, LocalDateTime now, int commentsLimit);
 
     @Query("select i from Item i where i.itemRequest.id in ?1")
     List<Item> findItemsByRequest(Collection<Long> ids, Sort sort);
 
+    @Query("select i from Item i where i.itemRequest.id = ?1")
     List<Item> findByItemRequestId(Long id, Sort sort);
 
+    // countQuery задан, потому что Spring Data 2.7 пытается вывести запрос подсчёта и для native update
+    @Modifying
+    @Query(value = "update items set approval_version = approval_version + 1 where id = ?1",
+            countQuery = "select 1", nativeQuery = true)
+    int incrementApprovalVersion(long itemId);
+
 }
@@ -0,0 +1,102 @@
+package ru.practicum.shareit.item.storage;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.item.ItemNgram;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Инвертированный n-граммный индекс доступных вещей. Для каждой вещи хранятся все подстроки названия
+ * и описания длиной от одного до трёх символов. Поиск по тексту сначала отбирает вещи, содержащие
+ * все триграммы запроса (запрос короче триграммы ищется как одна грамма), и только для них проверяет
+ * like по названию и описанию. Вещи, созданные до появления индекса, индексирует миграция
+ * V6__Backfill_item_ngrams.
+ */
+@Component
+public class ItemSearchIndex {
+    public static final int GRAM_SIZE = 3;
+
+    private final ItemNgramRepository itemNgramRepository;
+
+    @Autowired
+    public ItemSearchIndex(ItemNgramRepository itemNgramRepository) {
+        this.itemNgramRepository = itemNgramRepository;
+    }
+
+    /**
+     * Триграммы текста после normalize.
+     */
+    public static Set<String> ngrams(String text) {
+        Set<String> grams = new LinkedHashSet<>();
+        if (text == null) return grams;
+        String lower = normalize(text);
+        for (int i = 0; i + GRAM_SIZE <= lower.length(); i++) {
+            grams.add(lower.substring(i, i + GRAM_SIZE));
+        }
+        return grams;
+    }
+
+    /**
+     * Граммы запроса: его триграммы, а если запрос короче триграммы — он сам. Любая такая грамма есть
+     * среди indexGrams текста, который содержит запрос.
+     */
+    public static Set<String> queryGrams(String text) {
+        String lower = normalize(text);
+        return lower.length() < GRAM_SIZE ? Set.of(lower) : ngrams(lower);
+    }
+
+    /**
+     * Граммы для индекса: все подстроки текста после normalize длиной от одного до GRAM_SIZE символов.
+     * Миграция V6 строит индекс своей копией этой функции; если функция меняется, индекс перестраивает
+     * новая миграция.
+     */
+    public static Set<String> indexGrams(String text) {
+        Set<String> grams = new LinkedHashSet<>();
+        if (text == null) return grams;
+        String lower = normalize(text);
+        for (int size = 1; size <= GRAM_SIZE; size++) {
+            for (int i = 0; i + size <= lower.length(); i++) {
+                grams.add(lower.substring(i, i + size));
+            }
+        }
+        return grams;
+    }
+
+    // Не зависит от локали сервера: в турецкой "I" иначе стала бы "ı" и не совпала бы с запросом
+    public static String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    @Transactional
+    public void index(Item item) {
+        itemNgramRepository.deleteByItemId(item.getId());
+        itemNgramRepository.saveAll(itemNgrams(item));
+    }
+
+    // Для только что созданных вещей: удалять нечего, строки всех вещей уходят одной пакетной вставкой
+    @Transactional
+    public void indexNew(Collection<Item> items) {
+        itemNgramRepository.saveAll(items.stream()
+                .flatMap(item -> itemNgrams(item).stream())
+                .collect(Collectors.toList()));
+    }
+
+    private static List<ItemNgram> itemNgrams(Item item) {
+        if (!Boolean.TRUE.equals(item.getAvailable())) {
+            return List.of();
+        }
+        Set<String> grams = indexGrams(item.getName());
+        grams.addAll(indexGrams(item.getDescription()));
+        return grams.stream()
+                .map(gram -> new ItemNgram(gram, item.getId()))
+                .collect(Collectors.toList());
+    }
+}
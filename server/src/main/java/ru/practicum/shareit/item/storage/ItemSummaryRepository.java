@@ -0,0 +1,32 @@
+package ru.practicum.shareit.item.storage;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import ru.practicum.shareit.item.ItemSummary;
+
+import javax.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface ItemSummaryRepository extends JpaRepository<ItemSummary, Long> {
+    @Query("select i as item, s as summary from Item i left join ItemSummary s on s.itemId = i.id " +
+            "where i.owner.id = ?1 and i.id < ?2")
+    List<OwnerItemRow> findOwnerItems(Integer ownerId, Long afterId, Pageable pageable);
+
+    // countQuery задан, потому что Spring Data 2.7 пытается вывести запрос подсчёта и для native insert
+    @Modifying
+    @Query(value = "insert into item_summary (item_id, comment_count) values (?1, 0) on conflict do nothing",
+            countQuery = "select 1", nativeQuery = true)
+    void insertIfMissing(Long itemId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from ItemSummary s where s.itemId = ?1")
+    Optional<ItemSummary> findForUpdate(Long itemId);
+
+    @Query("select s.itemId from ItemSummary s where s.validUntil <= ?1")
+    List<Long> findStaleItemIds(LocalDateTime now, Pageable pageable);
+}
@@ -0,0 +1,123 @@
+package ru.practicum.shareit.item.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.booking.storage.ItemBookingSummary;
+import ru.practicum.shareit.item.Comment;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.item.ItemSummary;
+import ru.practicum.shareit.utils.PageCursor;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Поддерживает таблицу item_summary. Строка вещи пересчитывается под блокировкой при одобрении
+ * бронирования и при добавлении комментария; фоновая задача пересчитывает вещи, у которых началось
+ * следующее или закончилось текущее бронирование (validUntil в прошлом), каждую в своей транзакции,
+ * чтобы не держать блокировки строк всей пачки. До её прохода устаревшую или отсутствующую строку
+ * пересчитывает список вещей владельца.
+ */
+@Slf4j
+@Component
+public class ItemSummaryUpdater {
+    private final ItemSummaryRepository itemSummaryRepository;
+    private final BookingRepository bookingRepository;
+    private final CommentRepository commentRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int rollForwardBatchSize;
+
+    @Autowired
+    public ItemSummaryUpdater(ItemSummaryRepository itemSummaryRepository, BookingRepository bookingRepository,
+                              CommentRepository commentRepository, PlatformTransactionManager transactionManager,
+                              @Value("${shareit.items.summary.roll-forward-batch-size:500}") int rollForwardBatchSize) {
+        this.itemSummaryRepository = itemSummaryRepository;
+        this.bookingRepository = bookingRepository;
+        this.commentRepository = commentRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.rollForwardBatchSize = rollForwardBatchSize;
+    }
+
+    @Transactional
+    public void register(Item item) {
+        ItemSummary summary = new ItemSummary(item);
+        summary.setRefreshedAt(LocalDateTime.now());
+        itemSummaryRepository.save(summary);
+    }
+
+    @Transactional
+    public void registerAll(Collection<Item> items) {
+        LocalDateTime now = LocalDateTime.now();
+        itemSummaryRepository.saveAll(items.stream()
+                .map(item -> {
+                    ItemSummary summary = new ItemSummary(item);
+                    summary.setRefreshedAt(now);
+                    return summary;
+                })
+                .collect(Collectors.toList()));
+    }
+
+    @Transactional
+    public ItemSummary refresh(long itemId) {
+        // Строки может не быть, если её ещё не создала запись вещи: вставка без конфликта с параллельным пересчётом
+        itemSummaryRepository.insertIfMissing(itemId);
+        ItemSummary summary = itemSummaryRepository.findForUpdate(itemId).orElseThrow();
+        LocalDateTime now = LocalDateTime.now();
+        ItemBookingSummary last = null;
+        ItemBookingSummary next = null;
+        for (ItemBookingSummary booking : bookingRepository.findLastAndNextBookings(List.of(itemId), now)) {
+            if (ItemBookingSummary.LAST.equals(booking.getKind())) {
+                last = booking;
+            } else {
+                next = booking;
+            }
+        }
+        summary.setLastBookingId(last != null ? last.getId() : null);
+        summary.setLastBookingStart(last != null ? last.getStartDate() : null);
+        summary.setLastBookingEnd(last != null ? last.getEndDate() : null);
+        summary.setLastBookerId(last != null ? last.getBookerId() : null);
+        summary.setNextBookingId(next != null ? next.getId() : null);
+        summary.setNextBookingStart(next != null ? next.getStartDate() : null);
+        summary.setNextBookingEnd(next != null ? next.getEndDate() : null);
+        summary.setNextBookerId(next != null ? next.getBookerId() : null);
+
+        PageCursor first = PageCursor.descending(null);
+        List<Comment> latest = commentRepository.findItemComments(itemId, first.getTime(), first.getId(),
+                PageRequest.of(0, 1, Sort.by(Sort.Direction.DESC, "created", "id")));
+        Comment comment = latest.isEmpty() ? null : latest.get(0);
+        summary.setCommentCount((int) commentRepository.countByItem_Id(itemId));
+        summary.setLatestCommentId(comment != null ? comment.getId() : null);
+        summary.setLatestCommentText(comment != null ? comment.getText() : null);
+        summary.setLatestCommentAuthor(comment != null ? comment.getAuthor().getName() : null);
+        summary.setLatestCommentCreated(comment != null ? comment.getCreated() : null);
+        LocalDateTime currentEnd = bookingRepository.findCurrentBookingEnd(itemId, now);
+        LocalDateTime nextStart = summary.getNextBookingStart();
+        summary.setValidUntil(currentEnd == null || nextStart != null && nextStart.isBefore(currentEnd) ? nextStart : currentEnd);
+        summary.setRefreshedAt(now);
+        return itemSummaryRepository.save(summary);
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.items.summary.roll-forward-interval:PT1M}")
+    public void rollForward() {
+        List<Long> staleItemIds = itemSummaryRepository.findStaleItemIds(LocalDateTime.now(),
+                PageRequest.of(0, rollForwardBatchSize));
+        for (Long itemId : staleItemIds) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> refresh(itemId));
+            } catch (RuntimeException e) {
+                log.warn("Failed to refresh item summary, itemId={}", itemId, e);
+            }
+        }
+    }
+}
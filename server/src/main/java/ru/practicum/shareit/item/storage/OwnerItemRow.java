@@ -0,0 +1,13 @@
+package ru.practicum.shareit.item.storage;
+
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.item.ItemSummary;
+
+/**
+ * Вещь владельца и её сводка; сводки нет, если строку item_summary ещё не создали.
+ */
+public interface OwnerItemRow {
+    Item getItem();
+
+    ItemSummary getSummary();
+}
@@ -1,6 +1,7 @@
 package ru.practicum.shareit.request;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -12,8 +13,10 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.utils.PageCursor;
 
 import java.util.Collection;
+import java.util.List;
 
 @RestController
 @RequestMapping(path = "/requests")
@@ -38,10 +41,17 @@ public class ItemRequestController {
     }
 
     @GetMapping("/all")
-    public ResponseEntity<Collection<ItemRequestDto>> findOtherItemRequests(@RequestHeader("X-Sharer-User-Id") int userId,
-                                                                            @RequestParam(defaultValue = "0") Integer from,
-                                                                            @RequestParam(defaultValue = "20") Integer size) {
-        return new ResponseEntity<>(itemRequestService.findOtherItemRequests(userId, from, size), HttpStatus.OK);
+    public ResponseEntity<List<ItemRequestDto>> findOtherItemRequests(@RequestHeader("X-Sharer-User-Id") int userId,
+                                                                      @RequestParam(defaultValue = "0") Integer from,
+                                                                      @RequestParam(defaultValue = "20") Integer size,
+                                                                      @RequestParam(required = false) String after) {
+        List<ItemRequestDto> itemRequests = itemRequestService.findOtherItemRequests(userId, from, size, after);
+        HttpHeaders headers = new HttpHeaders();
+        if (!itemRequests.isEmpty() && itemRequests.size() == size) {
+            ItemRequestDto last = itemRequests.get(itemRequests.size() - 1);
+            headers.set(PageCursor.HEADER, PageCursor.encode(last.getCreated(), last.getId()));
+        }
+        return new ResponseEntity<>(itemRequests, headers, HttpStatus.OK);
     }
 
     @GetMapping("/{requestId}")
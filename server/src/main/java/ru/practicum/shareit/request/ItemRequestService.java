@@ -3,6 +3,7 @@ package ru.practicum.shareit.request;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 
 import java.util.Collection;
+import java.util.List;
 
 
 public interface ItemRequestService {
@@ -10,7 +11,7 @@ public interface ItemRequestService {
 
     Collection<ItemRequestDto> findUserItemRequests(Integer userId);
 
-    Collection<ItemRequestDto> findOtherItemRequests(int userId, Integer from, Integer size);
+    List<ItemRequestDto> findOtherItemRequests(int userId, Integer from, Integer size, String after);
 
     ItemRequestDto findById(int userId, Long itemRequestId);
 }
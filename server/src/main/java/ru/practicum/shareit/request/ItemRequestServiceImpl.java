@@ -13,14 +13,18 @@ import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.storage.ItemRequestRepository;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.storage.UserRepository;
+import ru.practicum.shareit.utils.PageCursor;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
-import static ru.practicum.shareit.utils.Helper.findUserById;
+import static ru.practicum.shareit.utils.Helper.checkUserExists;
+import static ru.practicum.shareit.utils.Helper.getUserReference;
 
 @Service
 @Transactional(readOnly = true)
@@ -41,29 +45,30 @@ public class ItemRequestServiceImpl implements ItemRequestService {
     @Override
     @Transactional
     public ItemRequestDto create(Integer userId, ItemRequestDto itemRequestDto) {
-        User owner = findUserById(userRepository, userId);
+        User owner = getUserReference(userRepository, userId);
         return ItemRequestMapper.toItemRequestDto(
                 itemRequestRepository.save(ItemRequestMapper.toItemRequestEntity(itemRequestDto, owner)));
     }
 
     @Override
     public Collection<ItemRequestDto> findUserItemRequests(Integer userId) {
-        findUserById(userRepository, userId);
+        checkUserExists(userRepository, userId);
         List<ItemRequest> itemRequests = itemRequestRepository.findByOwnerIdIs(userId, Sort.by(Sort.Direction.DESC, "created"));
         return fillItemRequestsWithItems(itemRequests);
     }
 
     @Override
-    public Collection<ItemRequestDto> findOtherItemRequests(int userId, Integer from, Integer size) {
-        findUserById(userRepository, userId);
-        PageRequest pageable = PageRequest.of(from > 0 ? from / size : 0, size, Sort.by(Sort.Direction.DESC, "created"));
-        List<ItemRequest> itemRequests = itemRequestRepository.findDistinctByOwnerIdNot(userId, pageable);
+    public List<ItemRequestDto> findOtherItemRequests(int userId, Integer from, Integer size, String after) {
+        checkUserExists(userRepository, userId);
+        PageRequest pageable = PageCursor.pageRequest(from, size, after, Sort.by(Sort.Direction.DESC, "created", "id"));
+        PageCursor cursor = PageCursor.descending(after);
+        List<ItemRequest> itemRequests = itemRequestRepository.findOtherItemRequests(userId, cursor.getTime(), cursor.getId(), pageable);
         return fillItemRequestsWithItems(itemRequests);
     }
 
     @Override
     public ItemRequestDto findById(int userId, Long itemRequestId) {
-        findUserById(userRepository, userId);
+        checkUserExists(userRepository, userId);
         Optional<ItemRequest> itemRequest = itemRequestRepository.findById(itemRequestId);
         if (itemRequest.isEmpty()) {
             throw new ObjectNotFoundException(String.format("Запрос вещи не найден! Id=%d", itemRequestId));
@@ -75,13 +80,15 @@ public class ItemRequestServiceImpl implements ItemRequestService {
         }
     }
 
-    private Collection<ItemRequestDto> fillItemRequestsWithItems(List<ItemRequest> itemRequests) {
+    // Запросы отдаются в порядке страницы: по нему контроллер берёт курсор последнего запроса
+    private List<ItemRequestDto> fillItemRequestsWithItems(List<ItemRequest> itemRequests) {
         Map<Long, ItemRequestDto> itemRequestMap = itemRequests.stream()
-                .collect(Collectors.toMap(ItemRequest::getId, ItemRequestMapper::toItemRequestDto));
+                .collect(Collectors.toMap(ItemRequest::getId, ItemRequestMapper::toItemRequestDto,
+                        (first, second) -> first, LinkedHashMap::new));
         List<Item> items = itemRepository.findItemsByRequest(itemRequestMap.keySet(), Sort.by("id"));
         for (Item item : items) {
             itemRequestMap.get(item.getItemRequest().getId()).getItems().add(ItemMapper.toItemDto(item));
         }
-        return itemRequestMap.values();
+        return new ArrayList<>(itemRequestMap.values());
     }
 }
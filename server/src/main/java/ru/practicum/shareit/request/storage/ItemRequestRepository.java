@@ -3,14 +3,19 @@ package ru.practicum.shareit.request.storage;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.request.ItemRequest;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 
 public interface ItemRequestRepository extends JpaRepository<ItemRequest, Long> {
+    @Query("select r from ItemRequest r where r.owner.id = ?1")
     List<ItemRequest> findByOwnerIdIs(Integer id, Sort sort);
 
-    List<ItemRequest> findDistinctByOwnerIdNot(Integer id, Pageable page);
+    @Query("select r from ItemRequest r where r.owner.id <> ?1 " +
+            "and (r.created < ?2 or (r.created = ?2 and r.id < ?3))")
+    List<ItemRequest> findOtherItemRequests(Integer id, LocalDateTime afterCreated, Long afterId, Pageable page);
 
 }
@@ -4,6 +4,7 @@ package ru.practicum.shareit.user;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.user.storage.UserExistenceCache;
 import ru.practicum.shareit.user.storage.UserRepository;
 
 import java.util.List;
@@ -16,10 +17,12 @@ import static ru.practicum.shareit.utils.Helper.findUserById;
 public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
+    private final UserExistenceCache userExistenceCache;
 
     @Autowired
-    public UserServiceImpl(UserRepository userRepository) {
+    public UserServiceImpl(UserRepository userRepository, UserExistenceCache userExistenceCache) {
         this.userRepository = userRepository;
+        this.userExistenceCache = userExistenceCache;
     }
 
     @Override
@@ -55,5 +58,6 @@ public class UserServiceImpl implements UserService {
     public void deleteUserById(int id) {
         getUserById(id);
         userRepository.deleteById(id);
+        userExistenceCache.evictAfterCommit(id);
     }
 }
\ No newline at end of file
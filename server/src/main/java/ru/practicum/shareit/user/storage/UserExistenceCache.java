@@ -0,0 +1,39 @@
+package ru.practicum.shareit.user.storage;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Objects;
+
+/**
+ * Сброс записей кэша UserRepository.existsById. При удалении пользователя запись сбрасывается после
+ * фиксации транзакции: сброшенную раньше параллельный запрос успел бы вернуть в кэш, пока удаление
+ * ещё не видно.
+ */
+@Component
+public class UserExistenceCache {
+    private final Cache cache;
+
+    @Autowired
+    public UserExistenceCache(CacheManager cacheManager) {
+        this.cache = Objects.requireNonNull(cacheManager.getCache(UserRepository.CACHE_NAME),
+                "Не настроен кэш " + UserRepository.CACHE_NAME);
+    }
+
+    public void evictAfterCommit(int userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.evict(userId);
+                }
+            });
+        } else {
+            cache.evict(userId);
+        }
+    }
+}
@@ -1,10 +1,14 @@
 package ru.practicum.shareit.user.storage;
 
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import ru.practicum.shareit.user.User;
 
-import java.util.List;
 
 public interface UserRepository extends JpaRepository<User, Integer> {
-    List<User> findByEmailContainingIgnoreCase(String emailSearch);
+    String CACHE_NAME = "users";
+
+    @Override
+    @Cacheable(cacheNames = CACHE_NAME, key = "#p0", unless = "!#result")
+    boolean existsById(Integer id);
 }
@@ -14,4 +14,19 @@ public class Helper {
         }
         return user.get();
     }
+
+    /**
+     * Пользователь для связи с новой записью. Существование проверяется через кэш existsById,
+     * а строка users читается, только если у ссылки запросят что-то кроме id.
+     */
+    public static User getUserReference(UserRepository repository, Integer id) {
+        checkUserExists(repository, id);
+        return repository.getReferenceById(id);
+    }
+
+    public static void checkUserExists(UserRepository repository, Integer id) {
+        if (!repository.existsById(id)) {
+            throw new ObjectNotFoundException(String.format("Пользователь не найден! Id=%d", id));
+        }
+    }
 }
@@ -0,0 +1,77 @@
+package ru.practicum.shareit.utils;
+
+import lombok.Getter;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import ru.practicum.shareit.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Непрозрачный курсор для постраничного вывода по ключу (seek) вместо OFFSET.
+ * Курсор кодирует ключ сортировки последней строки страницы: (время, id) или только id.
+ */
+@Getter
+public class PageCursor {
+    public static final String HEADER = "X-Next-Cursor";
+    private static final LocalDateTime MAX_TIME = LocalDateTime.of(9999, 12, 31, 0, 0);
+    private static final String SEPARATOR = "|";
+
+    private final LocalDateTime time;
+    private final long id;
+
+    private PageCursor(LocalDateTime time, long id) {
+        this.time = time;
+        this.id = id;
+    }
+
+    /**
+     * Курсор для сортировки по убыванию; без after возвращает курсор, предшествующий первой строке.
+     */
+    public static PageCursor descending(String after) {
+        return after == null || after.isBlank() ? new PageCursor(MAX_TIME, Long.MAX_VALUE) : decode(after, MAX_TIME);
+    }
+
+    /**
+     * Курсор для сортировки по возрастанию id.
+     */
+    public static PageCursor ascending(String after) {
+        return after == null || after.isBlank() ? new PageCursor(null, Long.MIN_VALUE) : decode(after, null);
+    }
+
+    public static PageRequest pageRequest(Integer from, Integer size, String after, Sort sort) {
+        if (after == null || after.isBlank()) {
+            return PageRequest.of(from > 0 ? from / size : 0, size, sort);
+        }
+        return PageRequest.of(0, size, sort);
+    }
+
+    public static String encode(LocalDateTime time, long id) {
+        return encode(time + SEPARATOR + id);
+    }
+
+    public static String encode(long id) {
+        return encode(String.valueOf(id));
+    }
+
+    private static String encode(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static PageCursor decode(String after, LocalDateTime defaultTime) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(after), StandardCharsets.UTF_8);
+            int separator = value.indexOf(SEPARATOR);
+            if (separator < 0) {
+                return new PageCursor(defaultTime, Long.parseLong(value));
+            }
+            return new PageCursor(LocalDateTime.parse(value.substring(0, separator)),
+                    Long.parseLong(value.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BadRequestException(String.format("Некорректный курсор: %s", after));
+        }
+    }
+}
@@ -0,0 +1,6 @@
+create table if not exists item_ngrams (
+  gram VARCHAR(3) NOT NULL,
+  item_id BIGINT NOT NULL,
+  CONSTRAINT pk_item_ngram PRIMARY KEY (gram, item_id)
+);
+CREATE INDEX if not exists idx_item_ngrams_item_id ON item_ngrams (item_id);
@@ -0,0 +1,2 @@
+CREATE INDEX if not exists idx_bookings_item_end_date ON bookings (item_id, end_date);
+CREATE INDEX if not exists idx_bookings_item_start_date ON bookings (item_id, start_date);
@@ -0,0 +1,26 @@
+CREATE INDEX if not exists idx_items_user_id ON items (user_id, id);
+
+create table if not exists item_summary (
+  item_id BIGINT NOT NULL,
+  last_booking_id BIGINT NULL,
+  last_booking_start TIMESTAMP WITHOUT TIME ZONE NULL,
+  last_booking_end TIMESTAMP WITHOUT TIME ZONE NULL,
+  last_booker_id INT NULL,
+  next_booking_id BIGINT NULL,
+  next_booking_start TIMESTAMP WITHOUT TIME ZONE NULL,
+  next_booking_end TIMESTAMP WITHOUT TIME ZONE NULL,
+  next_booker_id INT NULL,
+  comment_count INT NOT NULL DEFAULT 0,
+  latest_comment_id BIGINT NULL,
+  latest_comment_text VARCHAR(5000) NULL,
+  latest_comment_author VARCHAR(255) NULL,
+  latest_comment_created TIMESTAMP WITHOUT TIME ZONE NULL,
+  refreshed_at TIMESTAMP WITHOUT TIME ZONE NULL,
+  valid_until TIMESTAMP WITHOUT TIME ZONE NULL,
+  CONSTRAINT pk_item_summary PRIMARY KEY (item_id)
+);
+CREATE INDEX if not exists idx_item_summary_valid_until ON item_summary (valid_until);
+
+-- сводки существующих вещей заполнит фоновая задача по valid_until
+insert into item_summary (item_id, comment_count, valid_until)
+select i.id, 0, CURRENT_TIMESTAMP from items i where not exists (select 1 from item_summary s where s.item_id = i.id);
@@ -0,0 +1,4 @@
+CREATE INDEX if not exists idx_bookings_booker_start_date ON bookings (booker_id, start_date, id);
+CREATE INDEX if not exists idx_bookings_item_status_dates ON bookings (item_id, status, start_date, end_date);
+CREATE INDEX if not exists idx_comments_item_created ON comments (item_id, created, id);
+CREATE INDEX if not exists idx_item_requests_user_created ON item_requests (user_id, created);
@@ -0,0 +1,4 @@
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS owner_id INT;
+UPDATE bookings b SET owner_id = (SELECT i.user_id FROM items i WHERE i.id = b.item_id) WHERE b.owner_id IS NULL;
+ALTER TABLE bookings ALTER COLUMN owner_id SET NOT NULL;
+CREATE INDEX if not exists idx_bookings_owner_start_date ON bookings (owner_id, start_date, id);
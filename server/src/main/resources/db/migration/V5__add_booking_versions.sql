@@ -0,0 +1,3 @@
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+-- одобрения бронирований одной вещи по очереди увеличивают этот счётчик, см. BookingServiceImpl.approve
+ALTER TABLE items ADD COLUMN IF NOT EXISTS approval_version BIGINT DEFAULT 0 NOT NULL;
@@ -0,0 +1,176 @@
+package ru.practicum.shareit;
+
+import org.hibernate.Session;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.greaterThan;
+
+/**
+ * Проверяет планы выполнения всех запросов, объявленных в репозиториях: каждый метод вызывается
+ * с тестовыми аргументами, перехваченный SQL прогоняется через EXPLAIN, и полный просмотр таблицы
+ * допускается только там, где он перечислен в EXPECTED_SCANS.
+ */
+@Transactional
+@SpringBootTest(
+        properties = {
+                "spring.datasource.url=jdbc:h2:mem:query-plans;MODE=PostgreSQL",
+                "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+                        "ru.practicum.shareit.RepositoryQueryPlanDBTest$SqlRecorder"
+        },
+        webEnvironment = SpringBootTest.WebEnvironment.NONE)
+public class RepositoryQueryPlanDBTest {
+    private static final Pattern TABLE_SCAN = Pattern.compile("/\\* \"?PUBLIC\"?\\.\"?(\\w+)\"?\\.tableScan");
+
+    private static final Map<String, Set<String>> EXPECTED_SCANS = Map.of(
+            // Чужие запросы: условие user_id <> ? выбирает почти всю таблицу
+            "ItemRequestRepository.findOtherItemRequests", Set.of("ITEM_REQUESTS")
+    );
+
+    private final ApplicationContext context;
+    private final EntityManager em;
+
+    @Autowired
+    public RepositoryQueryPlanDBTest(ApplicationContext context, EntityManager em) {
+        this.context = context;
+        this.em = em;
+    }
+
+    @Test
+    void testRepositoryQueriesUseIndexes() throws Exception {
+        Repositories repositories = new Repositories(context);
+        List<String> violations = new ArrayList<>();
+        int checkedMethods = 0;
+        for (Class<?> domainType : repositories) {
+            Class<?> repositoryInterface = repositories.getRequiredRepositoryInformation(domainType).getRepositoryInterface();
+            Object repository = repositories.getRepositoryFor(domainType).orElseThrow();
+            for (Method method : repositoryInterface.getDeclaredMethods()) {
+                if (method.isDefault() || Modifier.isStatic(method.getModifiers()) || isInherited(method)) {
+                    continue;
+                }
+                String name = repositoryInterface.getSimpleName() + "." + method.getName();
+                SqlRecorder.STATEMENTS.get().clear();
+                method.invoke(repository, arguments(method));
+                em.flush();
+                List<String> statements = new ArrayList<>(SqlRecorder.STATEMENTS.get());
+                if (statements.isEmpty()) {
+                    violations.add(name + ": запрос не выполнен");
+                }
+                Set<String> scanned = new TreeSet<>();
+                for (String sql : statements) {
+                    scanned.addAll(scannedTables(sql));
+                }
+                scanned.removeAll(EXPECTED_SCANS.getOrDefault(name, Set.of()));
+                if (!scanned.isEmpty()) {
+                    violations.add(name + ": полный просмотр " + scanned + " в " + statements);
+                }
+                checkedMethods++;
+            }
+        }
+        assertThat(checkedMethods, greaterThan(0));
+        assertThat(violations, empty());
+    }
+
+    private static boolean isInherited(Method method) {
+        return Arrays.stream(JpaRepository.class.getMethods())
+                .anyMatch(parent -> parent.getName().equals(method.getName())
+                        && parent.getParameterCount() == method.getParameterCount());
+    }
+
+    private Set<String> scannedTables(String sql) {
+        return em.unwrap(Session.class).doReturningWork(connection -> {
+            Set<String> tables = new TreeSet<>();
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+                for (int i = 1; i <= statement.getParameterMetaData().getParameterCount(); i++) {
+                    statement.setObject(i, null);
+                }
+                try (ResultSet plan = statement.executeQuery()) {
+                    while (plan.next()) {
+                        Matcher matcher = TABLE_SCAN.matcher(plan.getString(1));
+                        while (matcher.find()) {
+                            tables.add(matcher.group(1));
+                        }
+                    }
+                }
+            }
+            return tables;
+        });
+    }
+
+    private static Object[] arguments(Method method) {
+        Type[] types = method.getGenericParameterTypes();
+        Object[] arguments = new Object[types.length];
+        for (int i = 0; i < types.length; i++) {
+            arguments[i] = argument(types[i]);
+        }
+        return arguments;
+    }
+
+    private static Object argument(Type type) {
+        if (type instanceof ParameterizedType) {
+            ParameterizedType parameterized = (ParameterizedType) type;
+            if (Collection.class.isAssignableFrom((Class<?>) parameterized.getRawType())) {
+                return List.of(argument(parameterized.getActualTypeArguments()[0]));
+            }
+            return argument(parameterized.getRawType());
+        }
+        Class<?> clazz = (Class<?>) type;
+        if (clazz == Long.class || clazz == long.class) {
+            return 1L;
+        } else if (clazz == Integer.class || clazz == int.class) {
+            return 1;
+        } else if (clazz == Boolean.class || clazz == boolean.class) {
+            return true;
+        } else if (clazz == String.class) {
+            return "abc";
+        } else if (clazz == LocalDateTime.class) {
+            return LocalDateTime.now();
+        } else if (clazz == Pageable.class) {
+            return PageRequest.of(0, 10);
+        } else if (clazz == Sort.class) {
+            return Sort.unsorted();
+        } else if (clazz.isEnum()) {
+            return clazz.getEnumConstants()[0];
+        }
+        throw new IllegalArgumentException("Нет тестового значения для параметра типа " + type);
+    }
+
+    public static class SqlRecorder implements StatementInspector {
+        static final ThreadLocal<List<String>> STATEMENTS = ThreadLocal.withInitial(ArrayList::new);
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.get().add(sql);
+            return sql;
+        }
+    }
+}
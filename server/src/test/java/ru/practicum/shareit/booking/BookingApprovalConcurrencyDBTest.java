@@ -0,0 +1,227 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.dto.BookItemRequestDto;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.exception.BadRequestException;
+import ru.practicum.shareit.exception.ObjectSaveException;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.user.UserDto;
+import ru.practicum.shareit.user.UserService;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Параллельные одобрения без общей транзакции теста: каждое идёт в своей транзакции, как запросы
+ * к серверу. Отдельная база, чтобы зафиксированные данные не попадали в другие тесты.
+ */
+@SpringBootTest(
+        properties = "spring.datasource.url=jdbc:h2:mem:booking-approvals;MODE=PostgreSQL;LOCK_TIMEOUT=10000",
+        webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class BookingApprovalConcurrencyDBTest {
+    private static final int THREADS = 32;
+    private static final int SLOTS = 20;
+    private static final int BOOKINGS_PER_SLOT = 10;
+
+    private final UserService userService;
+    private final ItemService itemService;
+    private final BookingService bookingService;
+    private final BookingRepository bookingRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Test
+    void testParallelApprovalsApproveOneBookingPerOverlappingSlot() throws Exception {
+        UserDto owner = userService.create(new UserDto(null, "slots-owner@etcdev.ru", "Owner"));
+        UserDto booker = userService.create(new UserDto(null, "slots-booker@etcdev.ru", "Booker"));
+        ItemDto item = itemService.create(owner.getId(), ItemDto.builder()
+                .name("Перфоратор")
+                .description("Электрический")
+                .available(true)
+                .build());
+
+        // Бронирования одного слота пересекаются друг с другом, слоты между собой — нет
+        LocalDateTime base = LocalDateTime.now().plusDays(10).truncatedTo(ChronoUnit.SECONDS);
+        Map<Long, Integer> slotByBooking = new ConcurrentHashMap<>();
+        List<Long> bookingIds = new ArrayList<>();
+        for (int slot = 0; slot < SLOTS; slot++) {
+            for (int i = 0; i < BOOKINGS_PER_SLOT; i++) {
+                LocalDateTime start = base.plusDays(slot * 3L).plusHours(i);
+                BookingDto booking = bookingService.create(new BookItemRequestDto(item.getId(), start,
+                        start.plusDays(1), item.getId(), booker.getId()), booker.getId());
+                slotByBooking.put(booking.getId(), slot);
+                bookingIds.add(booking.getId());
+            }
+        }
+        Collections.shuffle(bookingIds);
+
+        List<Callable<BookingDto>> approvals = new ArrayList<>();
+        for (Long bookingId : bookingIds) {
+            approvals.add(() -> bookingService.approve(bookingId, owner.getId(), true));
+        }
+        Outcome outcome = runConcurrently(approvals);
+
+        assertThat(outcome.unexpected, empty());
+        assertThat(outcome.succeeded.size(), equalTo(SLOTS));
+        assertThat(outcome.conflicts.get(), equalTo(SLOTS * (BOOKINGS_PER_SLOT - 1)));
+        int[] approvedBySlot = new int[SLOTS];
+        for (Booking booking : bookingRepository.findAllById(slotByBooking.keySet())) {
+            if (booking.getStatus() == Booking.BookingStatus.APPROVED) {
+                approvedBySlot[slotByBooking.get(booking.getId())]++;
+            }
+        }
+        for (int slot = 0; slot < SLOTS; slot++) {
+            assertThat("слот " + slot, approvedBySlot[slot], equalTo(1));
+        }
+    }
+
+    @Test
+    void testParallelApproveAndRejectChangeBookingOnce() throws Exception {
+        UserDto owner = userService.create(new UserDto(null, "single-owner@etcdev.ru", "Owner"));
+        UserDto booker = userService.create(new UserDto(null, "single-booker@etcdev.ru", "Booker"));
+        ItemDto item = itemService.create(owner.getId(), ItemDto.builder()
+                .name("Дрель")
+                .description("Ударная")
+                .available(true)
+                .build());
+        LocalDateTime start = LocalDateTime.now().plusDays(5).truncatedTo(ChronoUnit.SECONDS);
+        BookingDto booking = bookingService.create(new BookItemRequestDto(item.getId(), start, start.plusDays(1),
+                item.getId(), booker.getId()), booker.getId());
+
+        List<Callable<BookingDto>> changes = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            boolean approve = i % 2 == 0;
+            changes.add(() -> bookingService.approve(booking.getId(), owner.getId(), approve));
+        }
+        Outcome outcome = runConcurrently(changes);
+
+        assertThat(outcome.unexpected, empty());
+        assertThat(outcome.succeeded.size(), equalTo(1));
+        Booking stored = bookingRepository.findById(booking.getId()).orElseThrow();
+        assertThat(stored.getStatus(), equalTo(outcome.succeeded.get(0).getStatus()));
+        assertThat(stored.getVersion(), equalTo(1L));
+    }
+
+    /**
+     * Второе одобрение пересекающегося бронирования приходит, пока первое ещё не зафиксировано.
+     * В READ COMMITTED условие not exists второго не видит чужое незафиксированное одобрение, и без
+     * счётчика в строке вещи оба бронирования становились APPROVED. Со счётчиком второе ждёт фиксации
+     * первого и получает конфликт. На H2 ограничения исключения нет, поэтому здесь проверяется именно
+     * очередь через счётчик (ApprovedOverlapGuard); на PostgreSQL второе так же ждёт и получает конфликт
+     * от ограничения.
+     */
+    @Test
+    void testApprovalWaitsForUncommittedOverlappingApproval() throws Exception {
+        UserDto owner = userService.create(new UserDto(null, "skew-owner@etcdev.ru", "Owner"));
+        UserDto booker = userService.create(new UserDto(null, "skew-booker@etcdev.ru", "Booker"));
+        ItemDto item = itemService.create(owner.getId(), ItemDto.builder()
+                .name("Шуруповёрт")
+                .description("Аккумуляторный")
+                .available(true)
+                .build());
+        LocalDateTime start = LocalDateTime.now().plusDays(5).truncatedTo(ChronoUnit.SECONDS);
+        BookingDto first = bookingService.create(new BookItemRequestDto(item.getId(), start, start.plusDays(2),
+                item.getId(), booker.getId()), booker.getId());
+        BookingDto second = bookingService.create(new BookItemRequestDto(item.getId(), start.plusDays(1),
+                start.plusDays(3), item.getId(), booker.getId()), booker.getId());
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        CountDownLatch firstApproved = new CountDownLatch(1);
+        CountDownLatch secondFinished = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<BookingDto> firstApproval = executor.submit(() -> transactionTemplate.execute(status -> {
+                BookingDto approved = bookingService.approve(first.getId(), owner.getId(), true);
+                firstApproved.countDown();
+                try {
+                    // Фиксация откладывается, пока второе одобрение не завершится или не упрётся в блокировку
+                    secondFinished.await(500, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return approved;
+            }));
+            assertThat(firstApproved.await(10, TimeUnit.SECONDS), equalTo(true));
+            Future<BookingDto> secondApproval = executor.submit(() -> {
+                try {
+                    return bookingService.approve(second.getId(), owner.getId(), true);
+                } finally {
+                    secondFinished.countDown();
+                }
+            });
+
+            assertThat(firstApproval.get(10, TimeUnit.SECONDS).getStatus(), equalTo(Booking.BookingStatus.APPROVED));
+            ExecutionException conflict = assertThrows(ExecutionException.class,
+                    () -> secondApproval.get(10, TimeUnit.SECONDS));
+            assertThat(conflict.getCause(), instanceOf(ObjectSaveException.class));
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(bookingRepository.findById(first.getId()).orElseThrow().getStatus(),
+                equalTo(Booking.BookingStatus.APPROVED));
+        assertThat(bookingRepository.findById(second.getId()).orElseThrow().getStatus(),
+                equalTo(Booking.BookingStatus.WAITING));
+    }
+
+    private static Outcome runConcurrently(List<Callable<BookingDto>> tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        Outcome outcome = new Outcome();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Callable<BookingDto> task : tasks) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        outcome.succeeded.add(task.call());
+                    } catch (ObjectSaveException | BadRequestException e) {
+                        outcome.conflicts.incrementAndGet();
+                    } catch (Exception e) {
+                        outcome.unexpected.add(e.toString());
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return outcome;
+    }
+
+    private static class Outcome {
+        private final List<BookingDto> succeeded = Collections.synchronizedList(new ArrayList<>());
+        private final List<String> unexpected = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicInteger conflicts = new AtomicInteger();
+    }
+}
@@ -11,6 +11,7 @@ import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import ru.practicum.shareit.booking.dto.BookItemRequestDto;
@@ -32,10 +33,13 @@ import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static ru.practicum.shareit.booking.Booking.BookingStatus.APPROVED;
 import static ru.practicum.shareit.booking.Booking.BookingStatus.REJECTED;
@@ -46,6 +50,9 @@ public class BookingControllerTest {
     @Mock
     private BookingService bookingService;
 
+    @Mock
+    private BookingExporter bookingExporter;
+
     @InjectMocks
     private BookingController bookingController;
 
@@ -144,7 +151,7 @@ public class BookingControllerTest {
 
     @Test
     void testFindBookingsBySearchStateALL() throws Exception {
-        Mockito.when(bookingService.findBookingsBySearchState(2, BookingState.ALL, 0, 2))
+        Mockito.when(bookingService.findBookingsBySearchState(2, BookingState.ALL, 0, 2, null))
                 .thenReturn(Collections.singletonList(bookingDto));
 
         mvc.perform(get("/bookings")
@@ -162,7 +169,7 @@ public class BookingControllerTest {
 
     @Test
     void testFindBookingsBySearchStatePAST() throws Exception {
-        Mockito.when(bookingService.findBookingsBySearchState(2, BookingState.PAST, 0, 2))
+        Mockito.when(bookingService.findBookingsBySearchState(2, BookingState.PAST, 0, 2, null))
                 .thenReturn(new ArrayList<>());
 
         mvc.perform(get("/bookings")
@@ -179,7 +186,7 @@ public class BookingControllerTest {
 
     @Test
     void testFindBookingsBySearchStateFUTURE() throws Exception {
-        Mockito.when(bookingService.findBookingsBySearchState(2, BookingState.FUTURE, 0, 2))
+        Mockito.when(bookingService.findBookingsBySearchState(2, BookingState.FUTURE, 0, 2, null))
                 .thenReturn(Collections.singletonList(bookingDto));
 
         mvc.perform(get("/bookings")
@@ -198,7 +205,7 @@ public class BookingControllerTest {
 
     @Test
     void testFindBookingsByItemsOwnerStateALL() throws Exception {
-        Mockito.when(bookingService.findBookingsByItemsOwner(1, BookingState.ALL, 0, 2))
+        Mockito.when(bookingService.findBookingsByItemsOwner(1, BookingState.ALL, 0, 2, null))
                 .thenReturn(Collections.singletonList(bookingDto));
 
         mvc.perform(get("/bookings/owner")
@@ -216,7 +223,7 @@ public class BookingControllerTest {
 
     @Test
     void testFindBookingsByItemsOwnerStatePAST() throws Exception {
-        Mockito.when(bookingService.findBookingsByItemsOwner(1, BookingState.PAST, 0, 2))
+        Mockito.when(bookingService.findBookingsByItemsOwner(1, BookingState.PAST, 0, 2, null))
                 .thenReturn(new ArrayList<>());
 
         mvc.perform(get("/bookings/owner")
@@ -233,7 +240,7 @@ public class BookingControllerTest {
 
     @Test
     void testFindBookingsByItemsOwnerStateFUTURE() throws Exception {
-        Mockito.when(bookingService.findBookingsByItemsOwner(1, BookingState.FUTURE, 0, 2))
+        Mockito.when(bookingService.findBookingsByItemsOwner(1, BookingState.FUTURE, 0, 2, null))
                 .thenReturn(Collections.singletonList(bookingDto));
 
         mvc.perform(get("/bookings/owner")
@@ -312,4 +319,30 @@ public class BookingControllerTest {
                 .andDo(MockMvcResultHandlers.print())
                 .andExpect(status().is(400));
     }
+
+    @Test
+    void testExportBookings() throws Exception {
+        Mockito.when(bookingExporter.exportByBooker(anyInt(), any(BookingState.class)))
+                .thenReturn(out -> out.write("{\"id\":1}\n{\"id\":2}\n".getBytes(StandardCharsets.UTF_8)));
+
+        MvcResult result = mvc.perform(get("/bookings/export")
+                        .header("X-Sharer-User-Id", 2)
+                        .param("state", "ALL"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(BookingController.NDJSON))
+                .andExpect(content().string("{\"id\":1}\n{\"id\":2}\n"));
+    }
+
+    @Test
+    void testExportBookingsUnknownUser() throws Exception {
+        Mockito.when(bookingExporter.exportByItemsOwner(anyInt(), any(BookingState.class)))
+                .thenThrow(ObjectNotFoundException.class);
+
+        mvc.perform(get("/bookings/owner/export")
+                        .header("X-Sharer-User-Id", 99))
+                .andExpect(status().is(404));
+    }
 }
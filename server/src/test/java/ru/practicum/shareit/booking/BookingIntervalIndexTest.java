@@ -0,0 +1,103 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
+import ru.practicum.shareit.booking.storage.BookingIntervalIndex;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.user.User;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static ru.practicum.shareit.booking.Booking.BookingStatus.APPROVED;
+
+@ExtendWith(MockitoExtension.class)
+public class BookingIntervalIndexTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2030, 1, 1, 12, 0);
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    private BookingIntervalIndex bookingIntervalIndex;
+
+    @BeforeEach
+    void setUp() {
+        bookingIntervalIndex = new BookingIntervalIndex(bookingRepository, 100);
+    }
+
+    @Test
+    void testHasOverlapDetectsSpanningBooking() {
+        User user = new User(1, "test@etcdev.ru", "Test Test");
+        Item item = new Item(1L, "Перфоратор", "Электрический", true, user, null);
+        Booking booking = new Booking(1L, APPROVED, BASE.plusDays(1), BASE.plusDays(10), item, user);
+
+        Mockito.when(bookingRepository.findApprovedBookings(anyCollection(), any(Sort.class)))
+                .thenReturn(List.of(booking));
+
+        Assertions.assertTrue(bookingIntervalIndex.hasOverlap(1L, BASE.plusDays(3), BASE.plusDays(4)));
+        Assertions.assertTrue(bookingIntervalIndex.hasOverlap(1L, BASE, BASE.plusDays(11)));
+        Assertions.assertTrue(bookingIntervalIndex.hasOverlap(1L, BASE, BASE.plusDays(1)));
+        Assertions.assertFalse(bookingIntervalIndex.hasOverlap(1L, BASE, BASE.plusHours(23)));
+        Assertions.assertFalse(bookingIntervalIndex.hasOverlap(1L, BASE.plusDays(11), BASE.plusDays(12)));
+
+        Mockito.verify(bookingRepository, Mockito.times(1))
+                .findApprovedBookings(anyCollection(), any(Sort.class));
+    }
+
+    @Test
+    void testRegisterApprovedMergesIntervals() {
+        Mockito.when(bookingRepository.findApprovedBookings(anyCollection(), any(Sort.class)))
+                .thenReturn(Collections.emptyList());
+
+        Assertions.assertFalse(bookingIntervalIndex.hasOverlap(1L, BASE, BASE.plusDays(30)));
+
+        bookingIntervalIndex.registerApproved(1L, BASE.plusDays(1), BASE.plusDays(2));
+        bookingIntervalIndex.registerApproved(1L, BASE.plusDays(5), BASE.plusDays(6));
+        bookingIntervalIndex.registerApproved(1L, BASE.plusDays(2), BASE.plusDays(5));
+
+        Assertions.assertTrue(bookingIntervalIndex.hasOverlap(1L, BASE.plusDays(3), BASE.plusDays(4)));
+        Assertions.assertTrue(bookingIntervalIndex.hasOverlap(1L, BASE.plusHours(140), BASE.plusDays(8)));
+        Assertions.assertFalse(bookingIntervalIndex.hasOverlap(1L, BASE.plusDays(7), BASE.plusDays(8)));
+
+        Mockito.verify(bookingRepository, Mockito.times(1))
+                .findApprovedBookings(anyCollection(), any(Sort.class));
+    }
+
+    @Test
+    void testRegisterApprovedSkipsNotLoadedItem() {
+        bookingIntervalIndex.registerApproved(2L, BASE.plusDays(1), BASE.plusDays(2));
+
+        Mockito.verifyNoInteractions(bookingRepository);
+    }
+
+    @Test
+    void testFindBusyLoadsMissingItemsInOneQuery() {
+        User user = new User(1, "test@etcdev.ru", "Test Test");
+        Item item1 = new Item(1L, "Перфоратор", "Электрический", true, user, null);
+        Item item2 = new Item(2L, "Дрель", "Аккумуляторная", true, user, null);
+        Mockito.when(bookingRepository.findApprovedBookings(anyCollection(), any(Sort.class)))
+                .thenReturn(List.of(
+                        new Booking(1L, APPROVED, BASE.plusDays(1), BASE.plusDays(3), item1, user),
+                        new Booking(2L, APPROVED, BASE.plusDays(5), BASE.plusDays(6), item2, user)));
+
+        Assertions.assertEquals(Set.of(1L),
+                bookingIntervalIndex.findBusy(List.of(1L, 2L, 3L), BASE.plusDays(2), BASE.plusDays(4)));
+        Assertions.assertEquals(Set.of(2L),
+                bookingIntervalIndex.findBusy(List.of(1L, 2L, 3L), BASE.plusDays(4), BASE.plusDays(5)));
+        Assertions.assertFalse(bookingIntervalIndex.hasOverlap(3L, BASE, BASE.plusDays(10)));
+
+        Mockito.verify(bookingRepository, Mockito.times(1))
+                .findApprovedBookings(anyCollection(), any(Sort.class));
+    }
+}
@@ -1,20 +1,31 @@
 package ru.practicum.shareit.booking;
 
 import lombok.RequiredArgsConstructor;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.dto.BookItemRequestDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.item.Item;
 import ru.practicum.shareit.item.ItemService;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserDto;
 import ru.practicum.shareit.user.UserService;
+import ru.practicum.shareit.utils.PageCursor;
 
 import javax.persistence.EntityManager;
 import javax.persistence.TypedQuery;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -32,6 +43,8 @@ public class BookingServiceImplDBTest {
     private final ItemService itemService;
     private final UserService userService;
     private final BookingService bookingService;
+    private final BookingExporter bookingExporter;
+    private final ObjectMapper objectMapper;
 
     @Test
     void testFindBookingsByItemsOwnerAll() {
@@ -94,4 +107,138 @@ public class BookingServiceImplDBTest {
         assertThat(bookings.size(), equalTo(2));
 
     }
+
+    @Test
+    void testFindBookingsBySearchStateWithCursor() {
+        UserDto owner = userService.create(new UserDto(null, "owner@etcdev.ru", "Owner"));
+        UserDto booker = userService.create(new UserDto(null, "booker@etcdev.ru", "Booker"));
+        ItemDto item = itemService.create(owner.getId(), ItemDto.builder()
+                .name("Лобзик")
+                .description("Мощный")
+                .available(true)
+                .build());
+
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+        for (int i = 0; i < 3; i++) {
+            bookingService.create(new BookItemRequestDto(0, start.plusDays(i * 2L), start.plusDays(i * 2L + 1),
+                    item.getId(), booker.getId()), booker.getId());
+        }
+
+        List<BookingDto> firstPage = bookingService.findBookingsBySearchState(booker.getId(), BookingState.ALL, 0, 2, null);
+        assertThat(firstPage.size(), equalTo(2));
+
+        BookingDto last = firstPage.get(1);
+        String cursor = PageCursor.encode(last.getStart(), last.getId());
+        List<BookingDto> secondPage = bookingService.findBookingsBySearchState(booker.getId(), BookingState.ALL, 0, 2, cursor);
+        assertThat(secondPage.size(), equalTo(1));
+        assertThat(secondPage.get(0).getStart().isBefore(last.getStart()), equalTo(true));
+    }
+
+    @Test
+    void testFindBookingsBySearchStateStatementCountDoesNotDependOnPageSize() {
+        UserDto booker = userService.create(new UserDto(null, "fetch-booker@etcdev.ru", "Booker"));
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        for (int i = 0; i < 6; i++) {
+            UserDto owner = userService.create(new UserDto(null, "fetch-owner" + i + "@etcdev.ru", "Owner " + i));
+            ItemDto item = itemService.create(owner.getId(), ItemDto.builder()
+                    .name("Вещь " + i)
+                    .description("Описание " + i)
+                    .available(true)
+                    .build());
+            bookingService.create(new BookItemRequestDto(0, start.plusDays(i), start.plusDays(i).plusHours(1),
+                    item.getId(), booker.getId()), booker.getId());
+        }
+
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        bookingService.findBookingsBySearchState(booker.getId(), BookingState.ALL, 0, 1, null);
+
+        em.flush();
+        em.clear();
+        statistics.clear();
+        assertBookingsMapped(bookingService.findBookingsBySearchState(booker.getId(), BookingState.ALL, 0, 2, null), 2, booker.getId());
+        long smallPageStatements = statistics.getPrepareStatementCount();
+
+        em.clear();
+        statistics.clear();
+        assertBookingsMapped(bookingService.findBookingsBySearchState(booker.getId(), BookingState.ALL, 0, 6, null), 6, booker.getId());
+        long largePageStatements = statistics.getPrepareStatementCount();
+
+        statistics.setStatisticsEnabled(false);
+        assertThat(largePageStatements, equalTo(smallPageStatements));
+    }
+
+    // Обходит каждый DTO страницы, чтобы счётчик запросов учитывал загрузку вещи, владельца и арендатора
+    private static void assertBookingsMapped(List<BookingDto> bookings, int size, int bookerId) {
+        assertThat(bookings.size(), equalTo(size));
+        for (BookingDto booking : bookings) {
+            assertThat(booking.getItem().getName(), notNullValue());
+            assertThat(booking.getBooker().getId(), equalTo(bookerId));
+        }
+    }
+
+    @Test
+    void testCreateBookingStoresItemOwner() {
+        UserDto owner = userService.create(new UserDto(null, "owner@etcdev.ru", "Owner"));
+        UserDto booker = userService.create(new UserDto(null, "booker@etcdev.ru", "Booker"));
+        ItemDto item = itemService.create(owner.getId(), ItemDto.builder()
+                .name("Перфоратор")
+                .description("Электрический")
+                .available(true)
+                .build());
+
+        BookingDto booking = bookingService.create(new BookItemRequestDto(0, LocalDateTime.now().plusDays(1),
+                LocalDateTime.now().plusDays(2), item.getId(), 0), booker.getId());
+        em.flush();
+        em.clear();
+
+        assertThat(em.find(Booking.class, booking.getId()).getOwnerId(), equalTo(owner.getId()));
+        List<BookingDto> ownerBookings = bookingService.findBookingsByItemsOwner(owner.getId(), BookingState.ALL, 0, 10, null);
+        assertThat(ownerBookings.size(), equalTo(1));
+        assertThat(ownerBookings.get(0).getId(), equalTo(booking.getId()));
+        assertThat(bookingService.findBookingsByItemsOwner(booker.getId(), BookingState.ALL, 0, 10, null).size(), equalTo(0));
+    }
+
+    @Test
+    void testExportBookingsStreamsNdjson() throws Exception {
+        UserDto owner = userService.create(new UserDto(null, "owner@etcdev.ru", "Owner"));
+        UserDto bookerDto = userService.create(new UserDto(null, "booker@etcdev.ru", "Booker"));
+        ItemDto itemDto = itemService.create(owner.getId(), ItemDto.builder()
+                .name("Перфоратор")
+                .description("Электрический")
+                .available(true)
+                .build());
+        Item item = em.find(Item.class, itemDto.getId());
+        User booker = em.find(User.class, bookerDto.getId());
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        List<Booking> bookings = List.of(
+                new Booking(null, Booking.BookingStatus.APPROVED, now.minusDays(5), now.minusDays(4), item, booker),
+                new Booking(null, Booking.BookingStatus.APPROVED, now.plusDays(1), now.plusDays(2), item, booker),
+                new Booking(null, Booking.BookingStatus.WAITING, now.plusDays(3), now.plusDays(4), item, booker));
+        bookings.forEach(em::persist);
+        em.flush();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bookingExporter.exportByBooker(booker.getId(), BookingState.ALL).writeTo(out);
+        List<JsonNode> exported = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            exported.add(objectMapper.readTree(line));
+        }
+        assertThat(exported.size(), equalTo(3));
+        assertThat(exported.get(0).get("id").asLong(), equalTo(bookings.get(2).getId()));
+        assertThat(exported.get(0).get("status").asText(), equalTo("WAITING"));
+        assertThat(exported.get(0).get("item").get("name").asText(), equalTo("Перфоратор"));
+        assertThat(exported.get(0).get("booker").get("name").asText(), equalTo("Booker"));
+        assertThat(exported.get(2).get("start").asText(), equalTo(now.minusDays(5).toString()));
+
+        out.reset();
+        bookingExporter.exportByItemsOwner(owner.getId(), BookingState.PAST).writeTo(out);
+        String[] past = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(past.length, equalTo(1));
+        assertThat(objectMapper.readTree(past[0]).get("id").asLong(), equalTo(bookings.get(0).getId()));
+
+        out.reset();
+        bookingExporter.exportByItemsOwner(booker.getId(), BookingState.ALL).writeTo(out);
+        assertThat(out.size(), equalTo(0));
+    }
 }
@@ -7,15 +7,20 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
 import ru.practicum.shareit.booking.dto.BookItemRequestDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.storage.ApprovedOverlapGuard;
+import ru.practicum.shareit.booking.storage.BookingIntervalIndex;
 import ru.practicum.shareit.booking.storage.BookingRepository;
 import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.exception.ObjectNotFoundException;
 import ru.practicum.shareit.exception.ObjectSaveException;
 import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.item.storage.ItemAvailabilityCalendar;
 import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.item.storage.ItemSummaryUpdater;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.storage.UserRepository;
 
@@ -26,6 +31,7 @@ import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static ru.practicum.shareit.booking.Booking.BookingStatus.APPROVED;
 import static ru.practicum.shareit.booking.Booking.BookingStatus.REJECTED;
 import static ru.practicum.shareit.booking.Booking.BookingStatus.WAITING;
@@ -38,6 +44,14 @@ public class BookingServiceImplTest {
     private ItemRepository itemRepository;
     @Mock
     private UserRepository userRepository;
+    @Mock
+    private BookingIntervalIndex bookingIntervalIndex;
+    @Mock
+    private ItemSummaryUpdater itemSummaryUpdater;
+    @Mock
+    private ItemAvailabilityCalendar itemAvailabilityCalendar;
+    @Mock
+    private ApprovedOverlapGuard approvedOverlapGuard;
 
     @InjectMocks
     private BookingServiceImpl bookingService;
@@ -53,11 +67,13 @@ public class BookingServiceImplTest {
         bookItemRequestDto.setStart(LocalDateTime.now().plusDays(5));
         bookItemRequestDto.setEnd(LocalDateTime.now().plusDays(10));
 
-        Mockito.when(userRepository.findById(2))
-                .thenReturn(Optional.of(user2));
+        Mockito.when(userRepository.existsById(2))
+                .thenReturn(true);
+        Mockito.when(userRepository.getReferenceById(2))
+                .thenReturn(user2);
         Mockito.when(itemRepository.findById(1L))
                 .thenReturn(Optional.of(item));
-        Mockito.when(bookingRepository.hasApprovedBookingInPeriod(1L,
+        Mockito.when(bookingIntervalIndex.hasOverlap(1L,
                         bookItemRequestDto.getStart(), bookItemRequestDto.getEnd()))
                 .thenReturn(false);
         Mockito.when(bookingRepository.save(any(Booking.class)))
@@ -66,13 +82,17 @@ public class BookingServiceImplTest {
         bookingService.create(bookItemRequestDto, user2.getId());
 
         Mockito.verify(userRepository, Mockito.times(1))
-                .findById(2);
+                .existsById(2);
+        Mockito.verify(userRepository, Mockito.times(1))
+                .getReferenceById(2);
         Mockito.verify(itemRepository, Mockito.times(1))
                 .findById(1L);
-        Mockito.verify(bookingRepository, Mockito.times(1))
-                .hasApprovedBookingInPeriod(1L, bookItemRequestDto.getStart(), bookItemRequestDto.getEnd());
+        Mockito.verify(bookingIntervalIndex, Mockito.times(1))
+                .hasOverlap(1L, bookItemRequestDto.getStart(), bookItemRequestDto.getEnd());
         Mockito.verify(bookingRepository, Mockito.times(1))
                 .save(any(Booking.class));
+        Mockito.verify(itemAvailabilityCalendar, Mockito.times(1))
+                .invalidate(1L);
 
     }
 
@@ -87,8 +107,10 @@ public class BookingServiceImplTest {
         bookItemRequestDto.setStart(LocalDateTime.now().plusDays(5));
         bookItemRequestDto.setEnd(LocalDateTime.now().plusDays(10));
 
-        Mockito.when(userRepository.findById(2))
-                .thenReturn(Optional.of(user2));
+        Mockito.when(userRepository.existsById(2))
+                .thenReturn(true);
+        Mockito.when(userRepository.getReferenceById(2))
+                .thenReturn(user2);
         Mockito.when(itemRepository.findById(1L))
                 .thenReturn(Optional.of(item));
 
@@ -100,7 +122,9 @@ public class BookingServiceImplTest {
         Assertions.assertEquals("Вещь недоступна для бронирования! Id=1", exception.getMessage());
 
         Mockito.verify(userRepository, Mockito.times(1))
-                .findById(2);
+                .existsById(2);
+        Mockito.verify(userRepository, Mockito.times(1))
+                .getReferenceById(2);
         Mockito.verify(itemRepository, Mockito.times(1))
                 .findById(1L);
         Mockito.verifyNoInteractions(bookingRepository);
@@ -114,24 +138,112 @@ public class BookingServiceImplTest {
         Item item = new Item(1L, "Перфоратор", "Электрический", true, user, null);
         Booking booking = new Booking(1L, WAITING,
                 LocalDateTime.now().plusDays(5), LocalDateTime.now().plusDays(10), item, user2);
+        booking.setVersion(3L);
 
-        Mockito.when(userRepository.findById(1))
-                .thenReturn(Optional.of(user));
+        Mockito.when(userRepository.existsById(1))
+                .thenReturn(true);
         Mockito.when(bookingRepository.findById(1L))
                 .thenReturn(Optional.of(booking));
-        Mockito.when(bookingRepository.save(any(Booking.class)))
-                .thenReturn(booking);
+        Mockito.when(bookingRepository.approveIfWaitingAndFree(1L, 3L, 1L, booking.getStartDate(), booking.getEndDate()))
+                .thenReturn(1);
 
         BookingDto bookingDto = bookingService.approve(1L, 1, true);
         Assertions.assertEquals(APPROVED, bookingDto.getStatus());
 
+        Mockito.verify(bookingIntervalIndex, Mockito.times(1))
+                .registerApproved(1L, booking.getStartDate(), booking.getEndDate());
+        Mockito.verify(itemSummaryUpdater, Mockito.times(1))
+                .refresh(1L);
+        Mockito.verify(itemAvailabilityCalendar, Mockito.times(1))
+                .invalidate(1L);
+
         Mockito.verify(userRepository, Mockito.times(1))
-                .findById(1);
+                .existsById(1);
         Mockito.verify(bookingRepository, Mockito.times(1))
                 .findById(1L);
-        Mockito.verify(bookingRepository, Mockito.times(1))
+        Mockito.verify(approvedOverlapGuard, Mockito.times(1))
+                .beforeApprove(1L);
+        Mockito.verify(bookingRepository, Mockito.never())
                 .save(any(Booking.class));
-        Mockito.verifyNoInteractions(itemRepository);
+
+    }
+
+    @Test
+    void testApproveBookingThrowsObjectSaveExceptionOnOverlap() {
+        User user = new User(1, "test@etcdev.ru", "Test Test");
+        User user2 = new User(2, "test2@etcdev.ru", "Test2 Test2");
+        Item item = new Item(1L, "Перфоратор", "Электрический", true, user, null);
+        Booking booking = new Booking(1L, WAITING,
+                LocalDateTime.now().plusDays(5), LocalDateTime.now().plusDays(10), item, user2);
+        booking.setVersion(0L);
+
+        Mockito.when(userRepository.existsById(1))
+                .thenReturn(true);
+        Mockito.when(bookingRepository.findById(1L))
+                .thenReturn(Optional.of(booking));
+        Mockito.when(bookingRepository.approveIfWaitingAndFree(1L, 0L, 1L, booking.getStartDate(), booking.getEndDate()))
+                .thenReturn(0);
+        Mockito.when(bookingRepository.existsOtherApprovedOverlap(1L, 1L, booking.getStartDate(), booking.getEndDate()))
+                .thenReturn(true);
+
+        final ObjectSaveException exception = Assertions.assertThrows(
+                ObjectSaveException.class,
+                () -> bookingService.approve(1L, 1, true));
+        Assertions.assertEquals("Вещь недоступна для бронирования! Id=1", exception.getMessage());
+
+        Mockito.verifyNoInteractions(bookingIntervalIndex, itemSummaryUpdater, itemAvailabilityCalendar);
+
+    }
+
+    @Test
+    void testApproveBookingThrowsObjectSaveExceptionOnOverlapConstraint() {
+        User user = new User(1, "test@etcdev.ru", "Test Test");
+        User user2 = new User(2, "test2@etcdev.ru", "Test2 Test2");
+        Item item = new Item(1L, "Перфоратор", "Электрический", true, user, null);
+        Booking booking = new Booking(1L, WAITING,
+                LocalDateTime.now().plusDays(5), LocalDateTime.now().plusDays(10), item, user2);
+        booking.setVersion(0L);
+
+        Mockito.when(userRepository.existsById(1))
+                .thenReturn(true);
+        Mockito.when(bookingRepository.findById(1L))
+                .thenReturn(Optional.of(booking));
+        Mockito.when(bookingRepository.approveIfWaitingAndFree(1L, 0L, 1L, booking.getStartDate(), booking.getEndDate()))
+                .thenThrow(new DataIntegrityViolationException("ex_bookings_approved_overlap"));
+
+        final ObjectSaveException exception = Assertions.assertThrows(
+                ObjectSaveException.class,
+                () -> bookingService.approve(1L, 1, true));
+        Assertions.assertEquals("Вещь недоступна для бронирования! Id=1", exception.getMessage());
+
+        Mockito.verifyNoInteractions(bookingIntervalIndex, itemSummaryUpdater, itemAvailabilityCalendar);
+
+    }
+
+    @Test
+    void testApproveBookingThrowsBadRequestExceptionWhenChangedConcurrently() {
+        User user = new User(1, "test@etcdev.ru", "Test Test");
+        User user2 = new User(2, "test2@etcdev.ru", "Test2 Test2");
+        Item item = new Item(1L, "Перфоратор", "Электрический", true, user, null);
+        Booking booking = new Booking(1L, WAITING,
+                LocalDateTime.now().plusDays(5), LocalDateTime.now().plusDays(10), item, user2);
+        booking.setVersion(0L);
+
+        Mockito.when(userRepository.existsById(1))
+                .thenReturn(true);
+        Mockito.when(bookingRepository.findById(1L))
+                .thenReturn(Optional.of(booking));
+        Mockito.when(bookingRepository.approveIfWaitingAndFree(1L, 0L, 1L, booking.getStartDate(), booking.getEndDate()))
+                .thenReturn(0);
+        Mockito.when(bookingRepository.existsOtherApprovedOverlap(1L, 1L, booking.getStartDate(), booking.getEndDate()))
+                .thenReturn(false);
+
+        final BadRequestException exception = Assertions.assertThrows(
+                BadRequestException.class,
+                () -> bookingService.approve(1L, 1, true));
+        Assertions.assertEquals("Изменение статуса бронирования недоступно! Id=1", exception.getMessage());
+
+        Mockito.verifyNoInteractions(bookingIntervalIndex, itemSummaryUpdater);
 
     }
 
@@ -143,8 +255,8 @@ public class BookingServiceImplTest {
         Booking booking = new Booking(1L, WAITING,
                 LocalDateTime.now().plusDays(5), LocalDateTime.now().plusDays(10), item, user2);
 
-        Mockito.when(userRepository.findById(1))
-                .thenReturn(Optional.of(user));
+        Mockito.when(userRepository.existsById(1))
+                .thenReturn(true);
         Mockito.when(bookingRepository.findById(1L))
                 .thenReturn(Optional.of(booking));
 
@@ -152,7 +264,7 @@ public class BookingServiceImplTest {
         Assertions.assertEquals(WAITING, bookingDto.getStatus());
 
         Mockito.verify(userRepository, Mockito.times(1))
-                .findById(1);
+                .existsById(1);
         Mockito.verify(bookingRepository, Mockito.times(1))
                 .findById(1L);
         Mockito.verifyNoInteractions(itemRepository);
@@ -163,8 +275,8 @@ public class BookingServiceImplTest {
     void testFindByIdBookingObjectNotFoundException() {
         User user = new User(1, "test@etcdev.ru", "Test Test");
 
-        Mockito.when(userRepository.findById(1))
-                .thenReturn(Optional.of(user));
+        Mockito.when(userRepository.existsById(1))
+                .thenReturn(true);
         Mockito.when(bookingRepository.findById(1L))
                 .thenReturn(Optional.empty());
 
@@ -174,7 +286,7 @@ public class BookingServiceImplTest {
         Assertions.assertEquals("Бронирование не найдено! Id=1", exception.getMessage());
 
         Mockito.verify(userRepository, Mockito.times(1))
-                .findById(1);
+                .existsById(1);
         Mockito.verify(bookingRepository, Mockito.times(1))
                 .findById(1L);
         Mockito.verifyNoInteractions(itemRepository);
@@ -183,8 +295,8 @@ public class BookingServiceImplTest {
 
     @Test
     void testFindByIdThrowsUserObjectNotFoundException() {
-        Mockito.when(userRepository.findById(1))
-                .thenReturn(Optional.empty());
+        Mockito.when(userRepository.existsById(1))
+                .thenReturn(false);
 
         final ObjectNotFoundException exception = Assertions.assertThrows(
                 ObjectNotFoundException.class,
@@ -192,7 +304,7 @@ public class BookingServiceImplTest {
         Assertions.assertEquals("Пользователь не найден! Id=1", exception.getMessage());
 
         Mockito.verify(userRepository, Mockito.times(1))
-                .findById(1);
+                .existsById(1);
         Mockito.verifyNoInteractions(itemRepository, bookingRepository);
 
     }
@@ -205,22 +317,26 @@ public class BookingServiceImplTest {
         Booking booking = new Booking(1L, WAITING,
                 LocalDateTime.now().plusDays(5), LocalDateTime.now().plusDays(10), item, user2);
 
-        Mockito.when(userRepository.findById(1))
-                .thenReturn(Optional.of(user));
+        Mockito.when(userRepository.existsById(1))
+                .thenReturn(true);
         Mockito.when(bookingRepository.findById(1L))
                 .thenReturn(Optional.of(booking));
-        Mockito.when(bookingRepository.save(any(Booking.class)))
-                .thenReturn(booking);
+        Mockito.when(bookingRepository.rejectIfWaiting(1L, null))
+                .thenReturn(1);
 
         BookingDto bookingDto = bookingService.approve(1L, 1, false);
         Assertions.assertEquals(REJECTED, bookingDto.getStatus());
 
+        Mockito.verifyNoInteractions(bookingIntervalIndex);
+        Mockito.verify(itemAvailabilityCalendar, Mockito.times(1))
+                .invalidate(1L);
+
         Mockito.verify(userRepository, Mockito.times(1))
-                .findById(1);
+                .existsById(1);
         Mockito.verify(bookingRepository, Mockito.times(1))
                 .findById(1L);
         Mockito.verify(bookingRepository, Mockito.times(1))
-                .save(any(Booking.class));
+                .rejectIfWaiting(1L, null);
         Mockito.verifyNoInteractions(itemRepository);
 
     }
@@ -233,8 +349,8 @@ public class BookingServiceImplTest {
         Booking booking = new Booking(1L, REJECTED,
                 LocalDateTime.now().plusDays(5), LocalDateTime.now().plusDays(10), item, user2);
 
-        Mockito.when(userRepository.findById(1))
-                .thenReturn(Optional.of(user));
+        Mockito.when(userRepository.existsById(1))
+                .thenReturn(true);
         Mockito.when(bookingRepository.findById(1L))
                 .thenReturn(Optional.of(booking));
 
@@ -244,7 +360,7 @@ public class BookingServiceImplTest {
         Assertions.assertEquals("Изменение статуса бронирования недоступно! Id=1", exception.getMessage());
 
         Mockito.verify(userRepository, Mockito.times(1))
-                .findById(1);
+                .existsById(1);
         Mockito.verify(bookingRepository, Mockito.times(1))
                 .findById(1L);
         Mockito.verifyNoInteractions(itemRepository);
@@ -259,18 +375,18 @@ public class BookingServiceImplTest {
         Booking booking = new Booking(1L, WAITING,
                 LocalDateTime.now().minusDays(5), LocalDateTime.now().plusDays(10), item, user2);
 
-        Mockito.when(userRepository.findById(2))
-                .thenReturn(Optional.of(user));
-        Mockito.when(bookingRepository.findByBookerId(anyInt(), any(PageRequest.class)))
+        Mockito.when(userRepository.existsById(2))
+                .thenReturn(true);
+        Mockito.when(bookingRepository.findByBookerId(anyInt(), any(LocalDateTime.class), anyLong(), any(PageRequest.class)))
                 .thenReturn(Collections.singletonList(booking));
-        List<BookingDto> bookingDtoList = bookingService.findBookingsBySearchState(2, BookingState.ALL, 0, 10);
+        List<BookingDto> bookingDtoList = bookingService.findBookingsBySearchState(2, BookingState.ALL, 0, 10, null);
 
         Assertions.assertEquals(1, bookingDtoList.size());
 
         Mockito.verify(userRepository, Mockito.times(1))
-                .findById(2);
+                .existsById(2);
         Mockito.verify(bookingRepository, Mockito.times(1))
-                .findByBookerId(anyInt(), any(PageRequest.class));
+                .findByBookerId(anyInt(), any(LocalDateTime.class), anyLong(), any(PageRequest.class));
         Mockito.verifyNoInteractions(itemRepository);
 
     }
@@ -283,18 +399,18 @@ public class BookingServiceImplTest {
         Booking booking = new Booking(1L, WAITING,
                 LocalDateTime.now().minusDays(5), LocalDateTime.now().plusDays(10), item, user2);
 
-        Mockito.when(userRepository.findById(2))
-                .thenReturn(Optional.of(user));
-        Mockito.when(bookingRepository.findCurrentBookingsByBookerId(anyInt(), any(PageRequest.class)))
+        Mockito.when(userRepository.existsById(2))
+                .thenReturn(true);
+        Mockito.when(bookingRepository.findCurrentBookingsByBookerId(anyInt(), any(LocalDateTime.class), anyLong(), any(PageRequest.class)))
                 .thenReturn(Collections.singletonList(booking));
-        List<BookingDto> bookingDtoList = bookingService.findBookingsBySearchState(2, BookingState.CURRENT, 0, 10);
+        List<BookingDto> bookingDtoList = bookingService.findBookingsBySearchState(2, BookingState.CURRENT, 0, 10, null);
 
         Assertions.assertEquals(1, bookingDtoList.size());
 
         Mockito.verify(userRepository, Mockito.times(1))
-                .findById(2);
+                .existsById(2);
         Mockito.verify(bookingRepository, Mockito.times(1))
-                .findCurrentBookingsByBookerId(anyInt(), any(PageRequest.class));
+                .findCurrentBookingsByBookerId(anyInt(), any(LocalDateTime.class), anyLong(), any(PageRequest.class));
         Mockito.verifyNoInteractions(itemRepository);
 
     }
@@ -307,18 +423,18 @@ public class BookingServiceImplTest {
         Booking booking = new Booking(1L, APPROVED,
                 LocalDateTime.now().minusDays(5), LocalDateTime.now().minusDays(2), item, user2);
 
-        Mockito.when(userRepository.findById(2))
-                .thenReturn(Optional.of(user));
-        Mockito.when(bookingRepository.findPastBookingsByBookerId(anyInt(), any(PageRequest.class)))
+        Mockito.when(userRepository.existsById(2))
+                .thenReturn(true);
+        Mockito.when(bookingRepository.findPastBookingsByBookerId(anyInt(), any(LocalDateTime.class), anyLong(), any(PageRequest.class)))
                 .thenReturn(Collections.singletonList(booking));
-        List<BookingDto> bookingDtoList = bookingService.findBookingsBySearchState(2, BookingState.PAST, 0, 10);
+        List<BookingDto> bookingDtoList = bookingService.findBookingsBySearchState(2, BookingState.PAST, 0, 10, null);
 
         Assertions.assertEquals(1, bookingDtoList.size());
 
         Mockito.verify(userRepository, Mockito.times(1))
-                .findById(2);
+                .existsById(2);
         Mockito.verify(bookingRepository, Mockito.times(1))
-                .findPastBookingsByBookerId(anyInt(), any(PageRequest.class));
+                .findPastBookingsByBookerId(anyInt(), any(LocalDateTime.class), anyLong(), any(PageRequest.class));
         Mockito.verifyNoInteractions(itemRepository);
 
     }
@@ -331,18 +447,18 @@ public class BookingServiceImplTest {
         Booking booking = new Booking(1L, APPROVED,
                 LocalDateTime.now().plusDays(5), LocalDateTime.now().plusDays(12), item, user2);
 
-        Mockito.when(userRepository.findById(2))
-                .thenReturn(Optional.of(user));
-        Mockito.when(bookingRepository.findFutureBookingsByBookerId(anyInt(), any(PageRequest.class)))
+        Mockito.when(userRepository.existsById(2))
+                .thenReturn(true);
+        Mockito.when(bookingRepository.findFutureBookingsByBookerId(anyInt(), any(LocalDateTime.class), anyLong(), any(PageRequest.class)))
                 .thenReturn(Collections.singletonList(booking));
-        List<BookingDto> bookingDtoList = bookingService.findBookingsBySearchState(2, BookingState.FUTURE, 0, 10);
+        List<BookingDto> bookingDtoList = bookingService.findBookingsBySearchState(2, BookingState.FUTURE, 0, 10, null);
 
         Assertions.assertEquals(1, bookingDtoList.size());
 
         Mockito.verify(userRepository, Mockito.times(1))
-                .findById(2);
+                .existsById(2);
         Mockito.verify(bookingRepository, Mockito.times(1))
-                .findFutureBookingsByBookerId(anyInt(), any(PageRequest.class));
+                .findFutureBookingsByBookerId(anyInt(), any(LocalDateTime.class), anyLong(), any(PageRequest.class));
         Mockito.verifyNoInteractions(itemRepository);
 
     }
@@ -355,18 +471,18 @@ public class BookingServiceImplTest {
         Booking booking = new Booking(1L, WAITING,
                 LocalDateTime.now().plusDays(5), LocalDateTime.now().plusDays(12), item, user2);
 
-        Mockito.when(userRepository.findById(2))
-                .thenReturn(Optional.of(user));
-        Mockito.when(bookingRepository.findBookingsByBookerIdAndBookingStatus(anyInt(), any(Booking.BookingStatus.class), any(PageRequest.class)))
+        Mockito.when(userRepository.existsById(2))
+                .thenReturn(true);
+        Mockito.when(bookingRepository.findBookingsByBookerIdAndBookingStatus(anyInt(), any(Booking.BookingStatus.class), any(LocalDateTime.class), anyLong(), any(PageRequest.class)))
                 .thenReturn(Collections.singletonList(booking));
-        List<BookingDto> bookingDtoList = bookingService.findBookingsBySearchState(2, BookingState.WAITING, 0, 10);
+        List<BookingDto> bookingDtoList = bookingService.findBookingsBySearchState(2, BookingState.WAITING, 0, 10, null);
 
         Assertions.assertEquals(1, bookingDtoList.size());
 
         Mockito.verify(userRepository, Mockito.times(1))
-                .findById(2);
+                .existsById(2);
         Mockito.verify(bookingRepository, Mockito.times(1))
-                .findBookingsByBookerIdAndBookingStatus(anyInt(), any(Booking.BookingStatus.class), any(PageRequest.class));
+                .findBookingsByBookerIdAndBookingStatus(anyInt(), any(Booking.BookingStatus.class), any(LocalDateTime.class), anyLong(), any(PageRequest.class));
         Mockito.verifyNoInteractions(itemRepository);
 
     }
@@ -379,18 +495,18 @@ public class BookingServiceImplTest {
         Booking booking = new Booking(1L, REJECTED,
                 LocalDateTime.now().plusDays(5), LocalDateTime.now().plusDays(12), item, user2);
 
-        Mockito.when(userRepository.findById(2))
-                .thenReturn(Optional.of(user));
-        Mockito.when(bookingRepository.findBookingsByBookerIdAndBookingStatus(anyInt(), any(Booking.BookingStatus.class), any(PageRequest.class)))
+        Mockito.when(userRepository.existsById(2))
+                .thenReturn(true);
+        Mockito.when(bookingRepository.findBookingsByBookerIdAndBookingStatus(anyInt(), any(Booking.BookingStatus.class), any(LocalDateTime.class), anyLong(), any(PageRequest.class)))
                 .thenReturn(Collections.singletonList(booking));
-        List<BookingDto> bookingDtoList = bookingService.findBookingsBySearchState(2, BookingState.REJECTED, 0, 10);
+        List<BookingDto> bookingDtoList = bookingService.findBookingsBySearchState(2, BookingState.REJECTED, 0, 10, null);
 
         Assertions.assertEquals(1, bookingDtoList.size());
 
         Mockito.verify(userRepository, Mockito.times(1))
-                .findById(2);
+                .existsById(2);
         Mockito.verify(bookingRepository, Mockito.times(1))
-                .findBookingsByBookerIdAndBookingStatus(anyInt(), any(Booking.BookingStatus.class), any(PageRequest.class));
+                .findBookingsByBookerIdAndBookingStatus(anyInt(), any(Booking.BookingStatus.class), any(LocalDateTime.class), anyLong(), any(PageRequest.class));
         Mockito.verifyNoInteractions(itemRepository);
 
     }
@@ -403,18 +519,18 @@ public class BookingServiceImplTest {
         Booking booking = new Booking(1L, WAITING,
                 LocalDateTime.now().minusDays(5), LocalDateTime.now().plusDays(10), item, user2);
 
-        Mockito.when(userRepository.findById(1))
-                .thenReturn(Optional.of(user));
-        Mockito.when(bookingRepository.findByOwnerId(anyInt(), any(PageRequest.class)))
+        Mockito.when(userRepository.existsById(1))
+                .thenReturn(true);
+        Mockito.when(bookingRepository.findByOwnerId(anyInt(), any(LocalDateTime.class), anyLong(), any(PageRequest.class)))
                 .thenReturn(Collections.singletonList(booking));
-        List<BookingDto> bookingDtoList = bookingService.findBookingsByItemsOwner(1, BookingState.ALL, 0, 10);
+        List<BookingDto> bookingDtoList = bookingService.findBookingsByItemsOwner(1, BookingState.ALL, 0, 10, null);
 
         Assertions.assertEquals(1, bookingDtoList.size());
 
         Mockito.verify(userRepository, Mockito.times(1))
-                .findById(1);
+                .existsById(1);
         Mockito.verify(bookingRepository, Mockito.times(1))
-                .findByOwnerId(anyInt(), any(PageRequest.class));
+                .findByOwnerId(anyInt(), any(LocalDateTime.class), anyLong(), any(PageRequest.class));
         Mockito.verifyNoInteractions(itemRepository);
 
     }
@@ -427,18 +543,18 @@ public class BookingServiceImplTest {
         Booking booking = new Booking(1L, WAITING,
                 LocalDateTime.now().minusDays(5), LocalDateTime.now().plusDays(10), item, user2);
 
-        Mockito.when(userRepository.findById(1))
-                .thenReturn(Optional.of(user));
-        Mockito.when(bookingRepository.findCurrentBookingsByOwnerId(anyInt(), any(PageRequest.class)))
+        Mockito.when(userRepository.existsById(1))
+                .thenReturn(true);
+        Mockito.when(bookingRepository.findCurrentBookingsByOwnerId(anyInt(), any(LocalDateTime.class), anyLong(), any(PageRequest.class)))
                 .thenReturn(Collections.singletonList(booking));
-        List<BookingDto> bookingDtoList = bookingService.findBookingsByItemsOwner(1, BookingState.CURRENT, 0, 10);
+        List<BookingDto> bookingDtoList = bookingService.findBookingsByItemsOwner(1, BookingState.CURRENT, 0, 10, null);
 
         Assertions.assertEquals(1, bookingDtoList.size());
 
         Mockito.verify(userRepository, Mockito.times(1))
-                .findById(1);
+                .existsById(1);
         Mockito.verify(bookingRepository, Mockito.times(1))
-                .findCurrentBookingsByOwnerId(anyInt(), any(PageRequest.class));
+                .findCurrentBookingsByOwnerId(anyInt(), any(LocalDateTime.class), anyLong(), any(PageRequest.class));
         Mockito.verifyNoInteractions(itemRepository);
 
     }
@@ -451,18 +567,18 @@ public class BookingServiceImplTest {
         Booking booking = new Booking(1L, APPROVED,
                 LocalDateTime.now().minusDays(5), LocalDateTime.now().minusDays(2), item, user2);
 
-        Mockito.when(userRepository.findById(1))
-                .thenReturn(Optional.of(user));
-        Mockito.when(bookingRepository.findPastBookingsByOwnerId(anyInt(), any(PageRequest.class)))
+        Mockito.when(userRepository.existsById(1))
+                .thenReturn(true);
+        Mockito.when(bookingRepository.findPastBookingsByOwnerId(anyInt(), any(LocalDateTime.class), anyLong(), any(PageRequest.class)))
                 .thenReturn(Collections.singletonList(booking));
-        List<BookingDto> bookingDtoList = bookingService.findBookingsByItemsOwner(1, BookingState.PAST, 0, 10);
+        List<BookingDto> bookingDtoList = bookingService.findBookingsByItemsOwner(1, BookingState.PAST, 0, 10, null);
 
         Assertions.assertEquals(1, bookingDtoList.size());
 
         Mockito.verify(userRepository, Mockito.times(1))
-                .findById(1);
+                .existsById(1);
         Mockito.verify(bookingRepository, Mockito.times(1))
-                .findPastBookingsByOwnerId(anyInt(), any(PageRequest.class));
+                .findPastBookingsByOwnerId(anyInt(), any(LocalDateTime.class), anyLong(), any(PageRequest.class));
         Mockito.verifyNoInteractions(itemRepository);
 
     }
@@ -475,18 +591,18 @@ public class BookingServiceImplTest {
         Booking booking = new Booking(1L, APPROVED,
                 LocalDateTime.now().plusDays(5), LocalDateTime.now().plusDays(12), item, user2);
 
-        Mockito.when(userRepository.findById(1))
-                .thenReturn(Optional.of(user));
-        Mockito.when(bookingRepository.findFutureBookingsByOwnerId(anyInt(), any(PageRequest.class)))
+        Mockito.when(userRepository.existsById(1))
+                .thenReturn(true);
+        Mockito.when(bookingRepository.findFutureBookingsByOwnerId(anyInt(), any(LocalDateTime.class), anyLong(), any(PageRequest.class)))
                 .thenReturn(Collections.singletonList(booking));
-        List<BookingDto> bookingDtoList = bookingService.findBookingsByItemsOwner(1, BookingState.FUTURE, 0, 10);
+        List<BookingDto> bookingDtoList = bookingService.findBookingsByItemsOwner(1, BookingState.FUTURE, 0, 10, null);
 
         Assertions.assertEquals(1, bookingDtoList.size());
 
         Mockito.verify(userRepository, Mockito.times(1))
-                .findById(1);
+                .existsById(1);
         Mockito.verify(bookingRepository, Mockito.times(1))
-                .findFutureBookingsByOwnerId(anyInt(), any(PageRequest.class));
+                .findFutureBookingsByOwnerId(anyInt(), any(LocalDateTime.class), anyLong(), any(PageRequest.class));
         Mockito.verifyNoInteractions(itemRepository);
 
     }
@@ -499,18 +615,18 @@ public class BookingServiceImplTest {
         Booking booking = new Booking(1L, WAITING,
                 LocalDateTime.now().plusDays(5), LocalDateTime.now().plusDays(12), item, user2);
 
-        Mockito.when(userRepository.findById(1))
-                .thenReturn(Optional.of(user));
-        Mockito.when(bookingRepository.findBookingsByOwnerIdAndBookingStatus(anyInt(), any(Booking.BookingStatus.class), any(PageRequest.class)))
+        Mockito.when(userRepository.existsById(1))
+                .thenReturn(true);
+        Mockito.when(bookingRepository.findBookingsByOwnerIdAndBookingStatus(anyInt(), any(Booking.BookingStatus.class), any(LocalDateTime.class), anyLong(), any(PageRequest.class)))
                 .thenReturn(Collections.singletonList(booking));
-        List<BookingDto> bookingDtoList = bookingService.findBookingsByItemsOwner(1, BookingState.WAITING, 0, 10);
+        List<BookingDto> bookingDtoList = bookingService.findBookingsByItemsOwner(1, BookingState.WAITING, 0, 10, null);
 
         Assertions.assertEquals(1, bookingDtoList.size());
 
         Mockito.verify(userRepository, Mockito.times(1))
-                .findById(1);
+                .existsById(1);
         Mockito.verify(bookingRepository, Mockito.times(1))
-                .findBookingsByOwnerIdAndBookingStatus(anyInt(), any(Booking.BookingStatus.class), any(PageRequest.class));
+                .findBookingsByOwnerIdAndBookingStatus(anyInt(), any(Booking.BookingStatus.class), any(LocalDateTime.class), anyLong(), any(PageRequest.class));
         Mockito.verifyNoInteractions(itemRepository);
 
     }
@@ -523,18 +639,18 @@ public class BookingServiceImplTest {
         Booking booking = new Booking(1L, REJECTED,
                 LocalDateTime.now().plusDays(5), LocalDateTime.now().plusDays(12), item, user2);
 
-        Mockito.when(userRepository.findById(1))
-                .thenReturn(Optional.of(user));
-        Mockito.when(bookingRepository.findBookingsByOwnerIdAndBookingStatus(anyInt(), any(Booking.BookingStatus.class), any(PageRequest.class)))
+        Mockito.when(userRepository.existsById(1))
+                .thenReturn(true);
+        Mockito.when(bookingRepository.findBookingsByOwnerIdAndBookingStatus(anyInt(), any(Booking.BookingStatus.class), any(LocalDateTime.class), anyLong(), any(PageRequest.class)))
                 .thenReturn(Collections.singletonList(booking));
-        List<BookingDto> bookingDtoList = bookingService.findBookingsByItemsOwner(1, BookingState.REJECTED, 0, 10);
+        List<BookingDto> bookingDtoList = bookingService.findBookingsByItemsOwner(1, BookingState.REJECTED, 0, 10, null);
 
         Assertions.assertEquals(1, bookingDtoList.size());
 
         Mockito.verify(userRepository, Mockito.times(1))
-                .findById(1);
+                .existsById(1);
         Mockito.verify(bookingRepository, Mockito.times(1))
-                .findBookingsByOwnerIdAndBookingStatus(anyInt(), any(Booking.BookingStatus.class), any(PageRequest.class));
+                .findBookingsByOwnerIdAndBookingStatus(anyInt(), any(Booking.BookingStatus.class), any(LocalDateTime.class), anyLong(), any(PageRequest.class));
         Mockito.verifyNoInteractions(itemRepository);
 
     }
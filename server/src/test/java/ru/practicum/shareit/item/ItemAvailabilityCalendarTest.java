@@ -0,0 +1,131 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import ru.practicum.shareit.booking.storage.BookingPeriod;
+import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.exception.ObjectNotFoundException;
+import ru.practicum.shareit.item.dto.AvailabilityIntervalDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
+import ru.practicum.shareit.item.storage.ItemAvailabilityCalendar;
+import ru.practicum.shareit.item.storage.ItemRepository;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static ru.practicum.shareit.booking.Booking.BookingStatus.APPROVED;
+import static ru.practicum.shareit.booking.Booking.BookingStatus.WAITING;
+
+@ExtendWith(MockitoExtension.class)
+public class ItemAvailabilityCalendarTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2030, 1, 1, 12, 0);
+
+    @Mock
+    private ItemRepository itemRepository;
+    @Mock
+    private BookingRepository bookingRepository;
+
+    private ItemAvailabilityCalendar calendar;
+
+    @BeforeEach
+    void setUp() {
+        calendar = new ItemAvailabilityCalendar(itemRepository, bookingRepository,
+                new ConcurrentMapCacheManager(ItemAvailabilityCalendar.CACHE_NAME));
+    }
+
+    @Test
+    void testFindMergesAndClipsBusyIntervals() {
+        Mockito.when(itemRepository.existsById(1L))
+                .thenReturn(true);
+        Mockito.when(bookingRepository.findBookingPeriods(1L, List.of(APPROVED), BASE, BASE.plusDays(10)))
+                .thenReturn(List.of(
+                        period(BASE.minusDays(1), BASE.plusDays(1)),
+                        period(BASE.plusDays(3), BASE.plusDays(5)),
+                        period(BASE.plusDays(4), BASE.plusDays(6)),
+                        period(BASE.plusDays(9), BASE.plusDays(12))));
+
+        ItemAvailabilityDto availability = calendar.find(1L, BASE, BASE.plusDays(10), false);
+
+        Assertions.assertEquals(List.of(
+                new AvailabilityIntervalDto(BASE, BASE.plusDays(1), false),
+                new AvailabilityIntervalDto(BASE.plusDays(1), BASE.plusDays(3), true),
+                new AvailabilityIntervalDto(BASE.plusDays(3), BASE.plusDays(6), false),
+                new AvailabilityIntervalDto(BASE.plusDays(6), BASE.plusDays(9), true),
+                new AvailabilityIntervalDto(BASE.plusDays(9), BASE.plusDays(10), false)), availability.getIntervals());
+    }
+
+    @Test
+    void testFindReturnsWholePeriodFreeWithoutBookings() {
+        Mockito.when(itemRepository.existsById(1L))
+                .thenReturn(true);
+        Mockito.when(bookingRepository.findBookingPeriods(1L, List.of(APPROVED, WAITING), BASE, BASE.plusDays(10)))
+                .thenReturn(Collections.emptyList());
+
+        ItemAvailabilityDto availability = calendar.find(1L, BASE, BASE.plusDays(10), true);
+
+        Assertions.assertEquals(List.of(new AvailabilityIntervalDto(BASE, BASE.plusDays(10), true)),
+                availability.getIntervals());
+    }
+
+    @Test
+    void testFindUsesCacheUntilInvalidated() {
+        Mockito.when(itemRepository.existsById(1L))
+                .thenReturn(true);
+        Mockito.when(bookingRepository.findBookingPeriods(anyLong(), anyCollection(), any(), any()))
+                .thenReturn(Collections.emptyList());
+
+        calendar.find(1L, BASE, BASE.plusDays(10), false);
+        calendar.find(1L, BASE, BASE.plusDays(10), false);
+        calendar.find(1L, BASE, BASE.plusDays(10), true);
+
+        Mockito.verify(itemRepository, Mockito.times(1))
+                .existsById(1L);
+        Mockito.verify(bookingRepository, Mockito.times(2))
+                .findBookingPeriods(anyLong(), anyCollection(), any(), any());
+
+        calendar.invalidate(1L);
+        calendar.find(1L, BASE, BASE.plusDays(10), false);
+
+        Mockito.verify(itemRepository, Mockito.times(2))
+                .existsById(1L);
+        Mockito.verify(bookingRepository, Mockito.times(3))
+                .findBookingPeriods(anyLong(), anyCollection(), any(), any());
+    }
+
+    @Test
+    void testFindThrowsObjectNotFoundException() {
+        Mockito.when(itemRepository.existsById(1L))
+                .thenReturn(false);
+
+        final ObjectNotFoundException exception = Assertions.assertThrows(
+                ObjectNotFoundException.class,
+                () -> calendar.find(1L, BASE, BASE.plusDays(10), false));
+        Assertions.assertEquals("Вещь не найдена! Id=1", exception.getMessage());
+
+        Mockito.verifyNoInteractions(bookingRepository);
+    }
+
+    private static BookingPeriod period(LocalDateTime start, LocalDateTime end) {
+        return new BookingPeriod() {
+            @Override
+            public LocalDateTime getStartDate() {
+                return start;
+            }
+
+            @Override
+            public LocalDateTime getEndDate() {
+                return end;
+            }
+        };
+    }
+}
@@ -15,14 +15,20 @@ import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import ru.practicum.shareit.exception.ObjectAccessException;
 import ru.practicum.shareit.handler.ErrorHandler;
+import ru.practicum.shareit.item.dto.AvailabilityIntervalDto;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemImportErrorDto;
+import ru.practicum.shareit.item.dto.ItemImportResultDto;
 import ru.practicum.shareit.user.UserDto;
 import ru.practicum.shareit.user.UserMapper;
 
+import java.io.Reader;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.List;
 
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
@@ -40,6 +46,9 @@ public class ItemControllerTest {
     @Mock
     private ItemService itemService;
 
+    @Mock
+    private ItemImporter itemImporter;
+
     @InjectMocks
     private ItemController itemController;
 
@@ -89,6 +98,21 @@ public class ItemControllerTest {
                 .andExpect(jsonPath("$.ownerId", is(itemDto.getOwnerId())));
     }
 
+    @Test
+    void testImportItems() throws Exception {
+        Mockito.when(itemImporter.importItems(anyInt(), any(Reader.class)))
+                .thenReturn(new ItemImportResultDto(1, List.of(new ItemImportErrorDto(2, "Не указано название вещи"))));
+
+        mvc.perform(post("/items/import")
+                        .content(mapper.writeValueAsString(itemDto) + "\n{\"name\":\"\"}\n")
+                        .header("X-Sharer-User-Id", 1)
+                        .contentType(ItemController.NDJSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported", is(1)))
+                .andExpect(jsonPath("$.errors[0].line", is(2)))
+                .andExpect(jsonPath("$.errors[0].message", is("Не указано название вещи")));
+    }
+
     @Test
     void testUpdateItem() throws Exception {
         ItemDto updatedItemDto = new ItemDto(
@@ -118,7 +142,7 @@ public class ItemControllerTest {
     @Test
     void testGetItemById() throws Exception {
 
-        Mockito.when(itemService.getItemById(anyLong(), anyInt()))
+        Mockito.when(itemService.getItemById(anyLong(), anyInt(), anyInt()))
                 .thenReturn(ItemMapper.toOwnerItemDto(ItemMapper.toItemEntity(itemDto, UserMapper.toUserEntity(userDto), null)));
 
         mvc.perform(get("/items/{id}", itemDto.getId())
@@ -134,10 +158,35 @@ public class ItemControllerTest {
                 .andExpect(jsonPath("$.ownerId", is(itemDto.getOwnerId())));
     }
 
+    @Test
+    void testGetItemAvailability() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 12, 0);
+        LocalDateTime to = from.plusDays(10);
+
+        Mockito.when(itemService.getItemAvailability(1L, from, to, true))
+                .thenReturn(new ItemAvailabilityDto(1L, from, to, List.of(
+                        new AvailabilityIntervalDto(from, from.plusDays(2), false),
+                        new AvailabilityIntervalDto(from.plusDays(2), to, true))));
+
+        mvc.perform(get("/items/{id}/availability", itemDto.getId())
+                        .param("from", "2030-01-01T12:00:00")
+                        .param("to", "2030-01-11T12:00:00")
+                        .param("waiting", "true")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.itemId", is(1)))
+                .andExpect(jsonPath("$.intervals[0].free", is(false)))
+                .andExpect(jsonPath("$.intervals[1].free", is(true)));
+
+        Mockito.verify(itemService, Mockito.times(1))
+                .getItemAvailability(1L, from, to, true);
+    }
+
     @Test
     void testItemByOwnerId() throws Exception {
 
-        Mockito.when(itemService.getItemsByOwnerId(anyInt(), anyInt(), anyInt()))
+        Mockito.when(itemService.getItemsByOwnerId(anyInt(), anyInt(), anyInt(), any()))
                 .thenReturn(Collections.singletonList(ItemMapper.toOwnerItemDto(ItemMapper.toItemEntity(itemDto,
                         UserMapper.toUserEntity(userDto), null))));
 
@@ -157,7 +206,7 @@ public class ItemControllerTest {
     @Test
     void testSearchItems() throws Exception {
 
-        Mockito.when(itemService.searchItems(anyString(), anyInt(), anyInt()))
+        Mockito.when(itemService.searchItems(anyString(), anyInt(), anyInt(), any()))
                 .thenReturn(Collections.singletonList(ItemMapper.toOwnerItemDto(ItemMapper.toItemEntity(itemDto,
                         UserMapper.toUserEntity(userDto), null))));
 
@@ -175,6 +224,38 @@ public class ItemControllerTest {
                 .andExpect(jsonPath("$[0].ownerId", is(itemDto.getOwnerId())));
     }
 
+    @Test
+    void testSearchAvailableItems() throws Exception {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 4, 12, 0);
+
+        Mockito.when(itemService.searchAvailableItems("Перфоратор", start, start.plusDays(2), 0, 20, null))
+                .thenReturn(List.of(itemDto));
+
+        mvc.perform(get("/items/search")
+                        .param("text", "Перфоратор")
+                        .param("start", "2030-01-04T12:00:00")
+                        .param("end", "2030-01-06T12:00:00")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id", is(1)));
+
+        Mockito.verify(itemService, Mockito.never())
+                .searchItems(anyString(), anyInt(), anyInt(), any());
+    }
+
+    @Test
+    void testSearchAvailableItemsWithoutEndBadRequest() throws Exception {
+        mvc.perform(get("/items/search")
+                        .param("text", "Перфоратор")
+                        .param("start", "2030-01-04T12:00:00")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        Mockito.verifyNoInteractions(itemService);
+    }
+
     @Test
     void testSaveComment() throws Exception {
 
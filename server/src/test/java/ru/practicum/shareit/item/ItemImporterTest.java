@@ -0,0 +1,83 @@
+package ru.practicum.shareit.item;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import ru.practicum.shareit.item.dto.ItemImportErrorDto;
+import ru.practicum.shareit.item.dto.ItemImportResultDto;
+import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.item.storage.ItemSearchIndex;
+import ru.practicum.shareit.item.storage.ItemSummaryUpdater;
+import ru.practicum.shareit.request.storage.ItemRequestRepository;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.storage.UserRepository;
+
+import javax.persistence.EntityManager;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+
+@ExtendWith(MockitoExtension.class)
+public class ItemImporterTest {
+    @Mock
+    private ItemRepository itemRepository;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private ItemRequestRepository itemRequestRepository;
+    @Mock
+    private ItemSearchIndex itemSearchIndex;
+    @Mock
+    private ItemSummaryUpdater itemSummaryUpdater;
+    @Mock
+    private EntityManager entityManager;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ItemImporter itemImporter;
+
+    @BeforeEach
+    void setUp() {
+        Mockito.when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        itemImporter = new ItemImporter(itemRepository, userRepository, itemRequestRepository, itemSearchIndex,
+                itemSummaryUpdater, entityManager, transactionManager, new ObjectMapper(), 10);
+    }
+
+    @Test
+    void testImportItemsRetriesFailedChunkLineByLine() throws Exception {
+        User user = new User(1, "test@etcdev.ru", "Test Test");
+        Mockito.when(userRepository.existsById(1)).thenReturn(true);
+        Mockito.when(userRepository.findById(1)).thenReturn(Optional.of(user));
+        Mockito.when(itemRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Item> items = invocation.getArgument(0);
+            if (items.stream().anyMatch(item -> item.getName().equals("Сломанная"))) {
+                throw new DataIntegrityViolationException("constraint violation");
+            }
+            return items;
+        });
+        String lines = "{\"name\":\"Дрель\",\"description\":\"Ударная\",\"available\":true}\n" +
+                "{\"name\":\"Сломанная\",\"description\":\"Ударная\",\"available\":true}\n" +
+                "{\"name\":\"Пила\",\"description\":\"Ручная\",\"available\":true}\n";
+
+        ItemImportResultDto result = itemImporter.importItems(1, new StringReader(lines));
+
+        Assertions.assertEquals(2, result.getImported());
+        Assertions.assertEquals(List.of(2L), result.getErrors().stream()
+                .map(ItemImportErrorDto::getLine)
+                .collect(Collectors.toList()));
+        Assertions.assertEquals("Строка не сохранена: constraint violation", result.getErrors().get(0).getMessage());
+        Mockito.verify(itemRepository, Mockito.times(4)).saveAll(anyList());
+    }
+}
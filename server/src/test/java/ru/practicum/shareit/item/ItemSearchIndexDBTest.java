@@ -0,0 +1,92 @@
+package ru.practicum.shareit.item;
+
+import db.migration.V6__Backfill_item_ngrams;
+import lombok.RequiredArgsConstructor;
+import org.flywaydb.core.api.configuration.Configuration;
+import org.flywaydb.core.api.migration.Context;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.storage.ItemNgramRepository;
+import ru.practicum.shareit.item.storage.ItemSearchIndex;
+import ru.practicum.shareit.user.UserDto;
+import ru.practicum.shareit.user.UserService;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * Заполнение индекса миграцией для уже существующих вещей, без общей транзакции теста.
+ */
+@SpringBootTest(
+        properties = "spring.datasource.url=jdbc:h2:mem:item-search;MODE=PostgreSQL",
+        webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class ItemSearchIndexDBTest {
+    private final UserService userService;
+    private final ItemService itemService;
+    private final ItemNgramRepository itemNgramRepository;
+    private final DataSource dataSource;
+
+    private final Locale defaultLocale = Locale.getDefault();
+
+    @AfterEach
+    void restoreLocale() {
+        Locale.setDefault(defaultLocale);
+    }
+
+    @Test
+    void testNgramsIgnoreDefaultLocale() {
+        Locale.setDefault(new Locale("tr", "TR"));
+
+        assertThat(ItemSearchIndex.ngrams("DRILL"), equalTo(Set.of("dri", "ril", "ill")));
+        assertThat(ItemSearchIndex.ngrams("drill"), equalTo(ItemSearchIndex.ngrams("DRILL")));
+        assertThat(ItemSearchIndex.queryGrams("DI"), equalTo(Set.of("di")));
+        assertThat(ItemSearchIndex.indexGrams("DIR"), equalTo(Set.of("d", "i", "r", "di", "ir", "dir")));
+    }
+
+    @Test
+    void testBackfillMigrationIndexesAvailableItemsInChunks() throws Exception {
+        UserDto owner = userService.create(new UserDto(null, "search-owner@etcdev.ru", "Owner"));
+        for (int i = 0; i < 5; i++) {
+            itemService.create(owner.getId(), ItemDto.builder()
+                    .name("Дрель " + i)
+                    .description("Ударная")
+                    .available(true)
+                    .build());
+        }
+        itemService.create(owner.getId(), ItemDto.builder()
+                .name("Дрель в ремонте")
+                .description("Ударная")
+                .available(false)
+                .build());
+        itemNgramRepository.deleteAll();
+
+        try (Connection connection = dataSource.getConnection()) {
+            new V6__Backfill_item_ngrams(2).migrate(new Context() {
+                @Override
+                public Configuration getConfiguration() {
+                    return null;
+                }
+
+                @Override
+                public Connection getConnection() {
+                    return connection;
+                }
+            });
+        }
+
+        List<ItemDto> found = itemService.searchItems("ДРЕЛЬ", 0, 10, null);
+        assertThat(found.stream().map(ItemDto::getName).collect(Collectors.toSet()).size(), equalTo(5));
+        assertThat(itemService.searchItems("ЛЬ", 0, 10, null).size(), equalTo(5));
+    }
+}
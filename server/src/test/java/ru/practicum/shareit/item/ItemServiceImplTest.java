@@ -9,33 +9,51 @@ import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.storage.BookingIntervalIndex;
 import ru.practicum.shareit.booking.storage.BookingRepository;
+import ru.practicum.shareit.exception.BadRequestException;
 import ru.practicum.shareit.exception.ObjectAccessException;
 import ru.practicum.shareit.exception.ObjectNotFoundException;
 import ru.practicum.shareit.exception.ObjectSaveException;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.OwnerItemDto;
 import ru.practicum.shareit.item.storage.CommentRepository;
+import ru.practicum.shareit.item.storage.ItemAvailabilityCalendar;
+import ru.practicum.shareit.item.storage.ItemDetailRow;
 import ru.practicum.shareit.item.storage.ItemRepository;
+import ru.practicum.shareit.item.storage.ItemSearchIndex;
+import ru.practicum.shareit.item.storage.ItemSummaryRepository;
+import ru.practicum.shareit.item.storage.ItemSummaryUpdater;
+import ru.practicum.shareit.item.storage.OwnerItemRow;
 import ru.practicum.shareit.request.ItemRequestMapper;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.storage.ItemRequestRepository;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.storage.UserRepository;
+import ru.practicum.shareit.utils.PageCursor;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static ru.practicum.shareit.booking.Booking.BookingStatus.APPROVED;
 
 @ExtendWith(MockitoExtension.class)
@@ -50,6 +68,16 @@ public class ItemServiceImplTest {
     private CommentRepository commentRepository;
     @Mock
     private ItemRequestRepository itemRequestRepository;
+    @Mock
+    private ItemSearchIndex itemSearchIndex;
+    @Mock
+    private ItemSummaryRepository itemSummaryRepository;
+    @Mock
+    private ItemSummaryUpdater itemSummaryUpdater;
+    @Mock
+    private ItemAvailabilityCalendar itemAvailabilityCalendar;
+    @Mock
+    private BookingIntervalIndex bookingIntervalIndex;
 
     @InjectMocks
     private ItemServiceImpl itemService;
@@ -58,17 +86,23 @@ public class ItemServiceImplTest {
     void testCreateItemOk() {
         User user = new User(1, "test@etcdev.ru", "Test Test");
         Item item = new Item(1L, "Перфоратор", "Электрический", true, user, null);
-        Mockito.when(userRepository.findById(1))
-                .thenReturn(Optional.of(user));
+        Mockito.when(userRepository.existsById(1))
+                .thenReturn(true);
+        Mockito.when(userRepository.getReferenceById(1))
+                .thenReturn(user);
         Mockito.when(itemRepository.save(any(Item.class)))
                 .thenReturn(item);
 
         itemService.create(1, ItemMapper.toItemDto(item));
 
         Mockito.verify(userRepository, Mockito.times(1))
-                .findById(1);
+                .existsById(1);
+        Mockito.verify(userRepository, Mockito.times(1))
+                .getReferenceById(1);
         Mockito.verify(itemRepository, Mockito.times(1))
                 .save(any(Item.class));
+        Mockito.verify(itemSummaryUpdater, Mockito.times(1))
+                .register(item);
 
         Mockito.verifyNoMoreInteractions(userRepository, itemRepository);
 
@@ -78,8 +112,8 @@ public class ItemServiceImplTest {
     void testCreateItemThrowsException() {
         User user = new User(1, "test@etcdev.ru", "Test Test");
         Item item = new Item(1L, "Перфоратор", "Электрический", true, user, null);
-        Mockito.when(userRepository.findById(1))
-                .thenReturn(Optional.empty());
+        Mockito.when(userRepository.existsById(1))
+                .thenReturn(false);
 
         final ObjectNotFoundException exception = Assertions.assertThrows(
                 ObjectNotFoundException.class,
@@ -88,7 +122,7 @@ public class ItemServiceImplTest {
         Assertions.assertEquals("Пользователь не найден! Id=1", exception.getMessage());
 
         Mockito.verify(userRepository, Mockito.times(1))
-                .findById(1);
+                .existsById(1);
         Mockito.verify(itemRepository, Mockito.times(0))
                 .save(any(Item.class));
 
@@ -107,8 +141,10 @@ public class ItemServiceImplTest {
                 .build();
         Item item = new Item(1L, "Лобзик", "мощный", true, user,
                 ItemRequestMapper.toItemRequestEntity(itemRequestDto, user2));
-        Mockito.when(userRepository.findById(1))
-                .thenReturn(Optional.of(user));
+        Mockito.when(userRepository.existsById(1))
+                .thenReturn(true);
+        Mockito.when(userRepository.getReferenceById(1))
+                .thenReturn(user);
         Mockito.when(itemRequestRepository.findById(1L))
                 .thenReturn(Optional.empty());
 
@@ -119,7 +155,9 @@ public class ItemServiceImplTest {
         Assertions.assertEquals("Запрос не найден! Id=1", exception.getMessage());
 
         Mockito.verify(userRepository, Mockito.times(1))
-                .findById(1);
+                .existsById(1);
+        Mockito.verify(userRepository, Mockito.times(1))
+                .getReferenceById(1);
         Mockito.verify(itemRequestRepository, Mockito.times(1))
                 .findById(1L);
 
@@ -131,35 +169,27 @@ public class ItemServiceImplTest {
         User user = new User(1, "test@etcdev.ru", "Test Test");
         Item item = new Item(1L, "Перфоратор", "Электрический", true, user, null);
         Item toUpdateItem = new Item(1L, "Перфоратор-дрель", "Электрический, беспроводной", true, user, null);
-        Mockito.when(userRepository.findById(1))
-                .thenReturn(Optional.of(user));
+        Mockito.when(userRepository.existsById(1))
+                .thenReturn(true);
+        Mockito.when(userRepository.getReferenceById(1))
+                .thenReturn(user);
         Mockito.when(itemRepository.findById(1L))
                 .thenReturn(Optional.of(item));
-        Mockito.when(bookingRepository.findOwnerLastBooking(anyLong(), any(Sort.class)))
-                .thenReturn(new ArrayList<>());
-        Mockito.when(bookingRepository.findOwnerNextBooking(anyLong(), any(Sort.class)))
-                .thenReturn(new ArrayList<>());
-        Mockito.when(commentRepository.findByItem_IdIsOrderByCreatedDesc(1L))
-                .thenReturn(new ArrayList<>());
         Mockito.when(itemRepository.save(any(Item.class)))
                 .thenReturn(toUpdateItem);
 
         itemService.update(1, 1L, ItemMapper.toItemDto(toUpdateItem));
 
-        Mockito.verify(userRepository, Mockito.times(2))
-                .findById(1);
+        Mockito.verify(userRepository, Mockito.times(1))
+                .existsById(1);
+        Mockito.verify(userRepository, Mockito.times(1))
+                .getReferenceById(1);
         Mockito.verify(itemRepository, Mockito.times(1))
                 .findById(1L);
-        Mockito.verify(bookingRepository, Mockito.times(1))
-                .findOwnerLastBooking(anyLong(), any(Sort.class));
-        Mockito.verify(bookingRepository, Mockito.times(1))
-                .findOwnerNextBooking(anyLong(), any(Sort.class));
-        Mockito.verify(commentRepository, Mockito.times(1))
-                .findByItem_IdIsOrderByCreatedDesc(1L);
         Mockito.verify(itemRepository, Mockito.times(1))
                 .save(any(Item.class));
 
-        Mockito.verifyNoInteractions(itemRequestRepository);
+        Mockito.verifyNoInteractions(bookingRepository, commentRepository, itemRequestRepository);
 
     }
 
@@ -169,8 +199,10 @@ public class ItemServiceImplTest {
         User user2 = new User(2, "test2@etcdev.ru", "Test2 Test2");
         Item item = new Item(1L, "Перфоратор", "Электрический", true, user, null);
 
-        Mockito.when(userRepository.findById(2))
-                .thenReturn(Optional.of(user2));
+        Mockito.when(userRepository.existsById(2))
+                .thenReturn(true);
+        Mockito.when(userRepository.getReferenceById(2))
+                .thenReturn(user2);
         Mockito.when(itemRepository.findById(1L))
                 .thenReturn(Optional.of(item));
 
@@ -180,8 +212,10 @@ public class ItemServiceImplTest {
 
         Assertions.assertEquals("Ошибка доступа к вещи. Доступ к изменению информации о вещи запрещен! Id пользователя=2", exception.getMessage());
 
-        Mockito.verify(userRepository, Mockito.times(2))
-                .findById(2);
+        Mockito.verify(userRepository, Mockito.times(1))
+                .existsById(2);
+        Mockito.verify(userRepository, Mockito.times(1))
+                .getReferenceById(2);
         Mockito.verify(itemRepository, Mockito.times(1))
                 .findById(1L);
         Mockito.verifyNoMoreInteractions(userRepository, itemRepository);
@@ -192,8 +226,8 @@ public class ItemServiceImplTest {
         User user = new User(1, "test@etcdev.ru", "Test Test");
         Item item = new Item(1L, "Перфоратор", "Электрический", true, user, null);
 
-        Mockito.when(userRepository.findById(2))
-                .thenReturn(Optional.empty());
+        Mockito.when(userRepository.existsById(2))
+                .thenReturn(false);
 
         final ObjectNotFoundException exception = Assertions.assertThrows(
                 ObjectNotFoundException.class,
@@ -202,118 +236,229 @@ public class ItemServiceImplTest {
         Assertions.assertEquals("Пользователь не найден! Id=2", exception.getMessage());
 
         Mockito.verify(userRepository, Mockito.times(1))
-                .findById(2);
+                .existsById(2);
         Mockito.verifyNoMoreInteractions(userRepository);
     }
 
     @Test
     void testGetItemsByOwnerIdOk() {
         User user = new User(1, "test@etcdev.ru", "Test Test");
-        User user2 = new User(2, "test2@etcdev.ru", "Test2 Test2");
         Item item1 = new Item(1L, "Перфоратор", "Электрический", true, user, null);
         Item item2 = new Item(2L, "Перфоратор2", "Электрический2", true, user, null);
-
-        Booking booking1 = new Booking(1L, APPROVED,
-                LocalDateTime.now().plusDays(5), LocalDateTime.now().plusDays(12), item1, user2);
-        Booking booking2 = new Booking(1L, APPROVED,
-                LocalDateTime.now().minusDays(5), LocalDateTime.now().minusDays(2), item1, user2);
-
-        Booking booking3 = new Booking(1L, APPROVED,
-                LocalDateTime.now().plusDays(2), LocalDateTime.now().plusDays(3), item1, user2);
-        Booking booking4 = new Booking(1L, APPROVED,
-                LocalDateTime.now().minusDays(2), LocalDateTime.now().minusDays(1), item1, user2);
-
-        Mockito.when(userRepository.findById(1))
-                .thenReturn(Optional.of(user));
-        Mockito.when(itemRepository.findByOwnerIdIs(anyInt(), any(PageRequest.class)))
-                .thenReturn(Arrays.asList(item1, item2));
-        Mockito.when(bookingRepository.findApprovedBookings(anyCollection(), any(Sort.class)))
-                .thenReturn(Arrays.asList(booking1, booking2, booking3, booking4));
-        Mockito.when(commentRepository.findCommentsByItems(anyCollection(), any(Sort.class)))
-                .thenReturn(new ArrayList<>());
-
-        Collection<OwnerItemDto> items = itemService.getItemsByOwnerId(1, 0, 2);
+        Item item3 = new Item(3L, "Перфоратор3", "Электрический3", true, user, null);
+        LocalDateTime now = LocalDateTime.now();
+
+        ItemSummary summary1 = new ItemSummary(item1);
+        summary1.setItemId(1L);
+        summary1.setLastBookingId(2L);
+        summary1.setLastBookingStart(now.minusDays(2));
+        summary1.setLastBookingEnd(now.minusDays(1));
+        summary1.setLastBookerId(2);
+        summary1.setNextBookingId(3L);
+        summary1.setNextBookingStart(now.plusDays(2));
+        summary1.setNextBookingEnd(now.plusDays(3));
+        summary1.setNextBookerId(2);
+        summary1.setCommentCount(1);
+        summary1.setLatestCommentId(5L);
+        summary1.setLatestCommentText("Хорошо");
+        summary1.setLatestCommentAuthor("Test2 Test2");
+        summary1.setLatestCommentCreated(now.minusHours(1));
+        ItemSummary summary2 = new ItemSummary(item2);
+        summary2.setItemId(2L);
+        ItemSummary summary3 = new ItemSummary(item3);
+        summary3.setItemId(3L);
+        summary3.setCommentCount(2);
+        Comment comment1 = new Comment(6L, "Первый", item3, user, now.minusHours(2));
+        Comment comment2 = new Comment(7L, "Второй", item3, user, now.minusHours(1));
+
+        Mockito.when(userRepository.existsById(1))
+                .thenReturn(true);
+        ProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+        Mockito.when(itemSummaryRepository.findOwnerItems(anyInt(), anyLong(), any(PageRequest.class)))
+                .thenReturn(Arrays.asList(
+                        projectionFactory.createProjection(OwnerItemRow.class, Map.of("item", item1, "summary", summary1)),
+                        projectionFactory.createProjection(OwnerItemRow.class, Map.of("item", item2, "summary", summary2)),
+                        projectionFactory.createProjection(OwnerItemRow.class, Map.of("item", item3, "summary", summary3))));
+        Mockito.when(commentRepository.findCommentsByItems(eq(Set.of(3L)), any(Sort.class)))
+                .thenReturn(List.of(comment2, comment1));
+
+        Collection<OwnerItemDto> items = itemService.getItemsByOwnerId(1, 0, 3, null);
         Assertions.assertNotNull(items);
-        Assertions.assertEquals(2, items.size());
+        Assertions.assertEquals(3, items.size());
+        OwnerItemDto ownerItem1 = items.stream().filter(item -> item.getId() == 1L).findFirst().orElseThrow();
+        Assertions.assertEquals(2L, ownerItem1.getLastBooking().getId());
+        Assertions.assertEquals(3L, ownerItem1.getNextBooking().getId());
+        Assertions.assertEquals(1, ownerItem1.getComments().size());
+        Assertions.assertEquals("Хорошо", ownerItem1.getComments().get(0).getText());
+        OwnerItemDto ownerItem2 = items.stream().filter(item -> item.getId() == 2L).findFirst().orElseThrow();
+        Assertions.assertNull(ownerItem2.getLastBooking());
+        Assertions.assertTrue(ownerItem2.getComments().isEmpty());
+        OwnerItemDto ownerItem3 = items.stream().filter(item -> item.getId() == 3L).findFirst().orElseThrow();
+        Assertions.assertEquals(2, ownerItem3.getComments().size());
 
         Mockito.verify(userRepository, Mockito.times(1))
-                .findById(1);
-        Mockito.verify(itemRepository, Mockito.times(1))
-                .findByOwnerIdIs(anyInt(), any(PageRequest.class));
-        Mockito.verify(bookingRepository, Mockito.times(1))
-                .findApprovedBookings(anyCollection(), any(Sort.class));
+                .existsById(1);
+        Mockito.verify(itemSummaryRepository, Mockito.times(1))
+                .findOwnerItems(anyInt(), anyLong(), any(PageRequest.class));
         Mockito.verify(commentRepository, Mockito.times(1))
-                .findCommentsByItems(anyCollection(), any(Sort.class));
+                .findCommentsByItems(eq(Set.of(3L)), any(Sort.class));
 
-        Mockito.verifyNoInteractions(itemRequestRepository);
+        Mockito.verifyNoInteractions(itemRepository, bookingRepository, itemRequestRepository, itemSummaryUpdater);
     }
 
     @Test
-    void testGetItemByIdByOwnerUserOk() {
+    void testGetItemsByOwnerIdRefreshesMissingAndStaleSummaries() {
         User user = new User(1, "test@etcdev.ru", "Test Test");
-        User user2 = new User(2, "test2@etcdev.ru", "Test2 Test2");
-        User user3 = new User(3, "test3@etcdev.ru", "Test3 Test3");
-        Item item = new Item(1L, "Перфоратор", "Электрический", true, user, null);
-        Booking booking1 = new Booking(1L, Booking.BookingStatus.APPROVED,
-                LocalDateTime.now().minusDays(5), LocalDateTime.now().minusDays(3), item, user2);
-        Booking booking2 = new Booking(2L, Booking.BookingStatus.APPROVED,
-                LocalDateTime.now().plusDays(3), LocalDateTime.now().plusDays(5), item, user3);
-        Mockito.when(userRepository.findById(1))
-                .thenReturn(Optional.of(user));
-        Mockito.when(itemRepository.findById(1L))
-                .thenReturn(Optional.of(item));
-        Mockito.when(bookingRepository.findOwnerLastBooking(anyLong(), any(Sort.class)))
-                .thenReturn(Collections.singletonList(booking1));
-        Mockito.when(bookingRepository.findOwnerNextBooking(anyLong(), any(Sort.class)))
-                .thenReturn(Collections.singletonList(booking2));
-        Mockito.when(commentRepository.findByItem_IdIsOrderByCreatedDesc(1L))
-                .thenReturn(new ArrayList<>());
+        Item item1 = new Item(1L, "Перфоратор", "Электрический", true, user, null);
+        Item item2 = new Item(2L, "Перфоратор2", "Электрический2", true, user, null);
+        LocalDateTime now = LocalDateTime.now();
+
+        ItemSummary stale = new ItemSummary(item2);
+        stale.setItemId(2L);
+        stale.setNextBookingId(3L);
+        stale.setNextBookingStart(now.minusHours(1));
+        stale.setNextBookingEnd(now.plusDays(1));
+        stale.setValidUntil(now.minusHours(1));
+        ItemSummary refreshed1 = new ItemSummary(item1);
+        refreshed1.setItemId(1L);
+        ItemSummary refreshed2 = new ItemSummary(item2);
+        refreshed2.setItemId(2L);
+        refreshed2.setLastBookingId(3L);
+        refreshed2.setLastBookingStart(now.minusHours(1));
+        refreshed2.setLastBookingEnd(now.plusDays(1));
+
+        Map<String, Object> missingRow = new HashMap<>();
+        missingRow.put("item", item1);
+        missingRow.put("summary", null);
+        ProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+        Mockito.when(userRepository.existsById(1))
+                .thenReturn(true);
+        Mockito.when(itemSummaryRepository.findOwnerItems(anyInt(), anyLong(), any(PageRequest.class)))
+                .thenReturn(Arrays.asList(
+                        projectionFactory.createProjection(OwnerItemRow.class, Map.of("item", item2, "summary", stale)),
+                        projectionFactory.createProjection(OwnerItemRow.class, missingRow)));
+        Mockito.when(itemSummaryUpdater.refresh(2L))
+                .thenReturn(refreshed2);
+        Mockito.when(itemSummaryUpdater.refresh(1L))
+                .thenReturn(refreshed1);
+
+        List<OwnerItemDto> items = itemService.getItemsByOwnerId(1, 0, 2, null);
+        Assertions.assertEquals(List.of(2L, 1L), items.stream().map(OwnerItemDto::getId).collect(Collectors.toList()));
+        Assertions.assertEquals(3L, items.get(0).getLastBooking().getId());
+        Assertions.assertNull(items.get(0).getNextBooking());
+        Assertions.assertNull(items.get(1).getLastBooking());
+
+        Mockito.verify(itemSummaryUpdater, Mockito.times(1))
+                .refresh(2L);
+        Mockito.verify(itemSummaryUpdater, Mockito.times(1))
+                .refresh(1L);
+        Mockito.verifyNoInteractions(commentRepository);
+    }
 
-        OwnerItemDto receivedItem = itemService.getItemById(1, 1);
+    @Test
+    void testGetItemByIdByOwnerUserOk() {
+        ProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, Object> itemRow = new HashMap<>();
+        itemRow.put("kind", ItemDetailRow.ITEM);
+        itemRow.put("id", 1L);
+        itemRow.put("name", "Перфоратор");
+        itemRow.put("description", "Электрический");
+        itemRow.put("available", true);
+        itemRow.put("ownerId", 1);
+        List<ItemDetailRow> rows = List.of(
+                projectionFactory.createProjection(ItemDetailRow.class, itemRow),
+                projectionFactory.createProjection(ItemDetailRow.class, Map.of("kind", ItemDetailRow.LAST, "id", 1L,
+                        "startDate", now.minusDays(5), "endDate", now.minusDays(3), "bookerId", 2)),
+                projectionFactory.createProjection(ItemDetailRow.class, Map.of("kind", ItemDetailRow.NEXT, "id", 2L,
+                        "startDate", now.plusDays(3), "endDate", now.plusDays(5), "bookerId", 3)),
+                projectionFactory.createProjection(ItemDetailRow.class, Map.of("kind", ItemDetailRow.COMMENT, "id", 1L,
+                        "text", "Старый", "authorName", "Test2 Test2", "created", now.minusDays(2))),
+                projectionFactory.createProjection(ItemDetailRow.class, Map.of("kind", ItemDetailRow.COMMENT, "id", 2L,
+                        "text", "Новый", "authorName", "Test2 Test2", "created", now.minusDays(1))));
+        Mockito.when(userRepository.existsById(1))
+                .thenReturn(true);
+        Mockito.when(itemRepository.findItemDetails(eq(1L), eq(1), any(LocalDateTime.class), eq(20)))
+                .thenReturn(rows);
+
+        OwnerItemDto receivedItem = itemService.getItemById(1, 1, 20);
         Assertions.assertNotNull(receivedItem);
-        Assertions.assertNotNull(receivedItem.getLastBooking());
-        Assertions.assertNotNull(receivedItem.getNextBooking());
+        Assertions.assertEquals("Перфоратор", receivedItem.getName());
+        Assertions.assertEquals(1, receivedItem.getOwnerId());
+        Assertions.assertEquals(1L, receivedItem.getLastBooking().getId());
+        Assertions.assertEquals(1L, receivedItem.getLastBooking().getItemId());
+        Assertions.assertEquals(2, receivedItem.getLastBooking().getBookerId());
+        Assertions.assertEquals(2L, receivedItem.getNextBooking().getId());
+        Assertions.assertEquals(2, receivedItem.getComments().size());
+        Assertions.assertEquals("Новый", receivedItem.getComments().get(0).getText());
 
         Mockito.verify(userRepository, Mockito.times(1))
-                .findById(1);
+                .existsById(1);
         Mockito.verify(itemRepository, Mockito.times(1))
-                .findById(1L);
-        Mockito.verify(bookingRepository, Mockito.times(1))
-                .findOwnerLastBooking(anyLong(), any(Sort.class));
-        Mockito.verify(bookingRepository, Mockito.times(1))
-                .findOwnerNextBooking(anyLong(), any(Sort.class));
-        Mockito.verify(commentRepository, Mockito.times(1))
-                .findByItem_IdIsOrderByCreatedDesc(1L);
+                .findItemDetails(eq(1L), eq(1), any(LocalDateTime.class), eq(20));
 
-        Mockito.verifyNoInteractions(itemRequestRepository);
+        Mockito.verifyNoInteractions(bookingRepository, commentRepository, itemRequestRepository);
 
     }
 
     @Test
     void testGetItemByIdByNonOwnerUserOk() {
-        User user = new User(1, "test@etcdev.ru", "Test Test");
-        Item item = new Item(1L, "Перфоратор", "Электрический", true, user, null);
-        Mockito.when(userRepository.findById(3))
-                .thenReturn(Optional.of(user));
-        Mockito.when(itemRepository.findById(1L))
-                .thenReturn(Optional.of(item));
-        Mockito.when(commentRepository.findByItem_IdIsOrderByCreatedDesc(1L))
-                .thenReturn(new ArrayList<>());
-
-        OwnerItemDto receivedItem = itemService.getItemById(1, 3);
+        ProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+        Map<String, Object> itemRow = new HashMap<>();
+        itemRow.put("kind", ItemDetailRow.ITEM);
+        itemRow.put("id", 1L);
+        itemRow.put("name", "Перфоратор");
+        itemRow.put("description", "Электрический");
+        itemRow.put("available", true);
+        itemRow.put("ownerId", 1);
+        Mockito.when(userRepository.existsById(3))
+                .thenReturn(true);
+        Mockito.when(itemRepository.findItemDetails(eq(1L), eq(3), any(LocalDateTime.class), eq(20)))
+                .thenReturn(List.of(projectionFactory.createProjection(ItemDetailRow.class, itemRow)));
+
+        OwnerItemDto receivedItem = itemService.getItemById(1, 3, 20);
         Assertions.assertNotNull(receivedItem);
         Assertions.assertNull(receivedItem.getLastBooking());
         Assertions.assertNull(receivedItem.getNextBooking());
+        Assertions.assertTrue(receivedItem.getComments().isEmpty());
 
         Mockito.verify(userRepository, Mockito.times(1))
-                .findById(3);
+                .existsById(3);
         Mockito.verify(itemRepository, Mockito.times(1))
-                .findById(1L);
-        Mockito.verify(commentRepository, Mockito.times(1))
-                .findByItem_IdIsOrderByCreatedDesc(1L);
+                .findItemDetails(eq(1L), eq(3), any(LocalDateTime.class), eq(20));
+
+        Mockito.verifyNoInteractions(bookingRepository, commentRepository, itemRequestRepository);
+
+    }
 
-        Mockito.verifyNoInteractions(bookingRepository, itemRequestRepository);
+    @Test
+    void testGetItemByIdNotFound() {
+        Mockito.when(userRepository.existsById(1))
+                .thenReturn(true);
+        Mockito.when(itemRepository.findItemDetails(eq(99L), eq(1), any(LocalDateTime.class), eq(20)))
+                .thenReturn(new ArrayList<>());
+
+        Assertions.assertThrows(ObjectNotFoundException.class, () -> itemService.getItemById(99, 1, 20));
+    }
 
+    @Test
+    void testGetItemCommentsOk() {
+        User user = new User(1, "test@etcdev.ru", "Test Test");
+        User user2 = new User(2, "test2@etcdev.ru", "Test2 Test2");
+        Item item = new Item(1L, "Перфоратор", "Электрический", true, user, null);
+        LocalDateTime created = LocalDateTime.now().minusDays(1);
+        Comment comment = new Comment(5L, "Хорошо", item, user2, created);
+        Mockito.when(userRepository.existsById(1))
+                .thenReturn(true);
+        Mockito.when(commentRepository.findItemComments(eq(1L), eq(created), eq(6L), any(PageRequest.class)))
+                .thenReturn(List.of(comment));
+
+        List<CommentDto> comments = itemService.getItemComments(1, 1, 10, PageCursor.encode(created, 6L));
+        Assertions.assertEquals(1, comments.size());
+        Assertions.assertEquals("Test2 Test2", comments.get(0).getAuthorName());
+
+        Mockito.verify(commentRepository, Mockito.times(1))
+                .findItemComments(eq(1L), eq(created), eq(6L), any(PageRequest.class));
     }
 
     @Test
@@ -329,8 +474,10 @@ public class ItemServiceImplTest {
                 .build();
         Booking booking = new Booking(1L, Booking.BookingStatus.APPROVED,
                 LocalDateTime.now().minusDays(5), LocalDateTime.now().minusDays(3), item, user2);
-        Mockito.when(userRepository.findById(2))
-                .thenReturn(Optional.of(user));
+        Mockito.when(userRepository.existsById(2))
+                .thenReturn(true);
+        Mockito.when(userRepository.getReferenceById(2))
+                .thenReturn(user);
         Mockito.when(itemRepository.findById(1L))
                 .thenReturn(Optional.of(item));
         Mockito.when(bookingRepository.findExpiredByBookerIdAndItemId(2, 1))
@@ -341,13 +488,17 @@ public class ItemServiceImplTest {
         itemService.saveComment(commentDto, 2, 1);
 
         Mockito.verify(userRepository, Mockito.times(1))
-                .findById(2);
+                .existsById(2);
+        Mockito.verify(userRepository, Mockito.times(1))
+                .getReferenceById(2);
         Mockito.verify(itemRepository, Mockito.times(1))
                 .findById(1L);
         Mockito.verify(bookingRepository, Mockito.times(1))
                 .findExpiredByBookerIdAndItemId(2, 1);
         Mockito.verify(commentRepository, Mockito.times(1))
                 .save(any(Comment.class));
+        Mockito.verify(itemSummaryUpdater, Mockito.times(1))
+                .refresh(1L);
 
         Mockito.verifyNoInteractions(itemRequestRepository);
     }
@@ -363,8 +514,10 @@ public class ItemServiceImplTest {
                 .authorName(user2.getName())
                 .created(LocalDateTime.now())
                 .build();
-        Mockito.when(userRepository.findById(2))
-                .thenReturn(Optional.of(user));
+        Mockito.when(userRepository.existsById(2))
+                .thenReturn(true);
+        Mockito.when(userRepository.getReferenceById(2))
+                .thenReturn(user);
         Mockito.when(itemRepository.findById(1L))
                 .thenReturn(Optional.of(item));
         Mockito.when(bookingRepository.findExpiredByBookerIdAndItemId(2, 1))
@@ -376,7 +529,9 @@ public class ItemServiceImplTest {
         Assertions.assertEquals("Вы не можете оставить отзыв этому товару!", exception.getMessage());
 
         Mockito.verify(userRepository, Mockito.times(1))
-                .findById(2);
+                .existsById(2);
+        Mockito.verify(userRepository, Mockito.times(1))
+                .getReferenceById(2);
         Mockito.verify(itemRepository, Mockito.times(1))
                 .findById(1L);
         Mockito.verify(bookingRepository, Mockito.times(1))
@@ -389,14 +544,73 @@ public class ItemServiceImplTest {
     void testSearchItemsOk() {
         User user = new User(1, "test@etcdev.ru", "Test Test");
         Item item = new Item(1L, "Перфоратор", "Электрический", true, user, null);
-        Mockito.when(itemRepository.findItemsByText(anyString(), any(PageRequest.class)))
+        Mockito.when(itemRepository.findItemsByTextNgrams(anyString(), anyCollection(), anyLong(), anyLong(), any(PageRequest.class)))
                 .thenReturn(Collections.singletonList(item));
-        itemService.searchItems("Перфоратор", 0, 2);
+        itemService.searchItems("Перфоратор", 0, 2, null);
 
         Mockito.verify(itemRepository, Mockito.times(1))
-                .findItemsByText(anyString(), any(PageRequest.class));
+                .findItemsByTextNgrams(anyString(), anyCollection(), anyLong(), anyLong(), any(PageRequest.class));
 
         Mockito.verifyNoInteractions(itemRequestRepository, commentRepository, userRepository, bookingRepository);
     }
 
+    @Test
+    void testSearchItemsShortTextOk() {
+        User user = new User(1, "test@etcdev.ru", "Test Test");
+        Item item = new Item(1L, "Перфоратор", "Электрический", true, user, null);
+        Mockito.when(itemRepository.findItemsByTextNgrams(eq("Пе"), eq(Set.of("пе")), eq(1L), anyLong(), any(PageRequest.class)))
+                .thenReturn(Collections.singletonList(item));
+        itemService.searchItems("Пе", 0, 2, null);
+
+        Mockito.verify(itemRepository, Mockito.times(1))
+                .findItemsByTextNgrams(eq("Пе"), eq(Set.of("пе")), eq(1L), anyLong(), any(PageRequest.class));
+
+        Mockito.verifyNoInteractions(itemRequestRepository, commentRepository, userRepository, bookingRepository);
+    }
+
+    @Test
+    void testSearchAvailableItemsSkipsBusyItemsAcrossBatches() {
+        User user = new User(1, "test@etcdev.ru", "Test Test");
+        List<Item> firstBatch = new ArrayList<>();
+        for (long id = 1; id <= 100; id++) {
+            firstBatch.add(new Item(id, "Перфоратор " + id, "Электрический", true, user, null));
+        }
+        List<Item> secondBatch = List.of(
+                new Item(101L, "Перфоратор 101", "Электрический", true, user, null),
+                new Item(102L, "Перфоратор 102", "Электрический", true, user, null));
+        Set<Long> busy = firstBatch.stream()
+                .map(Item::getId)
+                .filter(id -> id != 100L)
+                .collect(Collectors.toSet());
+        LocalDateTime start = LocalDateTime.of(2030, 1, 4, 12, 0);
+        LocalDateTime end = start.plusDays(2);
+
+        Mockito.when(itemRepository.findItemsByTextNgrams(eq("пе"), eq(Set.of("пе")), eq(1L), eq(Long.MIN_VALUE), any(PageRequest.class)))
+                .thenReturn(firstBatch);
+        Mockito.when(itemRepository.findItemsByTextNgrams(eq("пе"), eq(Set.of("пе")), eq(1L), eq(100L), any(PageRequest.class)))
+                .thenReturn(secondBatch);
+        Mockito.when(bookingIntervalIndex.findBusy(anyCollection(), eq(start), eq(end)))
+                .thenReturn(busy, Set.of());
+
+        List<ItemDto> items = itemService.searchAvailableItems("пе", start, end, 0, 2, null);
+
+        Assertions.assertEquals(List.of(100L, 101L), items.stream().map(ItemDto::getId).collect(Collectors.toList()));
+        Mockito.verify(bookingIntervalIndex, Mockito.times(2))
+                .findBusy(anyCollection(), eq(start), eq(end));
+        Mockito.verifyNoInteractions(bookingRepository);
+    }
+
+    @Test
+    void testGetItemAvailabilityThrowsBadRequestExceptionOnEmptyPeriod() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 12, 0);
+
+        final BadRequestException exception = Assertions.assertThrows(
+                BadRequestException.class,
+                () -> itemService.getItemAvailability(1L, from, from, false));
+        Assertions.assertEquals("Начало периода должно быть раньше окончания! from=2030-01-01T12:00, to=2030-01-01T12:00",
+                exception.getMessage());
+
+        Mockito.verifyNoInteractions(itemAvailabilityCalendar);
+    }
+
 }
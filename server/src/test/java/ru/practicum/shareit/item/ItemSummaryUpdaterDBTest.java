@@ -0,0 +1,102 @@
+package ru.practicum.shareit.item;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.storage.ItemSummaryRepository;
+import ru.practicum.shareit.item.storage.ItemSummaryUpdater;
+import ru.practicum.shareit.user.UserDto;
+import ru.practicum.shareit.user.UserService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * Пересчёт сводок в собственных транзакциях, без общей транзакции теста. Отдельная база, чтобы
+ * зафиксированные данные не попадали в другие тесты.
+ */
+@SpringBootTest(
+        properties = "spring.datasource.url=jdbc:h2:mem:item-summaries;MODE=PostgreSQL",
+        webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class ItemSummaryUpdaterDBTest {
+    private static final int THREADS = 8;
+
+    private final UserService userService;
+    private final ItemService itemService;
+    private final ItemSummaryRepository itemSummaryRepository;
+    private final ItemSummaryUpdater itemSummaryUpdater;
+
+    @Test
+    void testParallelRefreshesCreateMissingSummaryOnce() throws Exception {
+        UserDto owner = userService.create(new UserDto(null, "summary-owner@etcdev.ru", "Owner"));
+        ItemDto item = itemService.create(owner.getId(), ItemDto.builder()
+                .name("Перфоратор")
+                .description("Электрический")
+                .available(true)
+                .build());
+        itemSummaryRepository.deleteById(item.getId());
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> refreshes = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                refreshes.add(executor.submit(() -> {
+                    start.await();
+                    itemSummaryUpdater.refresh(item.getId());
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> refresh : refreshes) {
+                refresh.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        ItemSummary summary = itemSummaryRepository.findById(item.getId()).orElseThrow();
+        assertThat(summary.getRefreshedAt(), notNullValue());
+        assertThat(summary.getCommentCount(), equalTo(0));
+    }
+
+    @Test
+    void testRollForwardRefreshesEachStaleItem() {
+        UserDto owner = userService.create(new UserDto(null, "stale-owner@etcdev.ru", "Owner"));
+        List<Long> itemIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            itemIds.add(itemService.create(owner.getId(), ItemDto.builder()
+                    .name("Дрель " + i)
+                    .description("Аккумуляторная")
+                    .available(true)
+                    .build()).getId());
+        }
+        LocalDateTime stale = LocalDateTime.now().minusMinutes(1);
+        for (Long itemId : itemIds) {
+            ItemSummary summary = itemSummaryRepository.findById(itemId).orElseThrow();
+            summary.setValidUntil(stale);
+            itemSummaryRepository.save(summary);
+        }
+
+        itemSummaryUpdater.rollForward();
+
+        for (Long itemId : itemIds) {
+            ItemSummary summary = itemSummaryRepository.findById(itemId).orElseThrow();
+            assertThat(summary.getValidUntil(), nullValue());
+            assertThat(summary.getRefreshedAt().isAfter(stale), equalTo(true));
+        }
+    }
+}
@@ -84,7 +84,7 @@ public class ItemRequestControllerTest {
 
     @Test
     void testFindOtherItemRequests() throws Exception {
-        Mockito.when(itemRequestService.findOtherItemRequests(2, 0, 2))
+        Mockito.when(itemRequestService.findOtherItemRequests(2, 0, 2, null))
                 .thenReturn(Collections.singletonList(itemRequestDto));
 
         mvc.perform(get("/requests/all")
@@ -102,7 +102,7 @@ public class ItemRequestControllerTest {
 
     @Test
     void testFindOtherItemRequestsEmpty() throws Exception {
-        Mockito.when(itemRequestService.findOtherItemRequests(1, 0, 2))
+        Mockito.when(itemRequestService.findOtherItemRequests(1, 0, 2, null))
                 .thenReturn(new ArrayList<>());
 
         mvc.perform(get("/requests/all")
@@ -20,7 +20,9 @@ import ru.practicum.shareit.user.storage.UserRepository;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyCollection;
@@ -48,15 +50,19 @@ public class ItemRequestServiceImplTest {
                 .created(LocalDateTime.now())
                 .build();
 
-        Mockito.when(userRepository.findById(1))
-                .thenReturn(Optional.of(user));
+        Mockito.when(userRepository.existsById(1))
+                .thenReturn(true);
+        Mockito.when(userRepository.getReferenceById(1))
+                .thenReturn(user);
         Mockito.when(itemRequestRepository.save(any(ItemRequest.class)))
                 .thenReturn(ItemRequestMapper.toItemRequestEntity(itemRequestDto, user));
 
         itemRequestServiceImpl.create(1, itemRequestDto);
 
         Mockito.verify(userRepository, Mockito.times(1))
-                .findById(1);
+                .existsById(1);
+        Mockito.verify(userRepository, Mockito.times(1))
+                .getReferenceById(1);
         Mockito.verify(itemRequestRepository, Mockito.times(1))
                 .save(any(ItemRequest.class));
         Mockito.verifyNoInteractions(itemRepository);
@@ -71,8 +77,8 @@ public class ItemRequestServiceImplTest {
                 .created(LocalDateTime.now())
                 .build();
 
-        Mockito.when(userRepository.findById(1))
-                .thenReturn(Optional.of(user));
+        Mockito.when(userRepository.existsById(1))
+                .thenReturn(true);
         Mockito.when(itemRequestRepository.findById(1L))
                 .thenReturn(Optional.of(ItemRequestMapper.toItemRequestEntity(itemRequestDto, user)));
         Mockito.when(itemRepository.findByItemRequestId(anyLong(), any(Sort.class)))
@@ -81,7 +87,7 @@ public class ItemRequestServiceImplTest {
         itemRequestServiceImpl.findById(1, 1L);
 
         Mockito.verify(userRepository, Mockito.times(1))
-                .findById(1);
+                .existsById(1);
         Mockito.verify(itemRequestRepository, Mockito.times(1))
                 .findById(1L);
         Mockito.verify(itemRepository, Mockito.times(1))
@@ -92,8 +98,8 @@ public class ItemRequestServiceImplTest {
     void testFindByIdThrowsObjectNotFoundException() {
         User user = new User(1, "test@etcdev.ru", "Test Test");
 
-        Mockito.when(userRepository.findById(1))
-                .thenReturn(Optional.of(user));
+        Mockito.when(userRepository.existsById(1))
+                .thenReturn(true);
         Mockito.when(itemRequestRepository.findById(1L))
                 .thenReturn(Optional.empty());
 
@@ -104,7 +110,7 @@ public class ItemRequestServiceImplTest {
         Assertions.assertEquals("Запрос вещи не найден! Id=1", exception.getMessage());
 
         Mockito.verify(userRepository, Mockito.times(1))
-                .findById(1);
+                .existsById(1);
         Mockito.verify(itemRequestRepository, Mockito.times(1))
                 .findById(1L);
         Mockito.verifyNoInteractions(itemRepository);
@@ -112,8 +118,8 @@ public class ItemRequestServiceImplTest {
 
     @Test
     void testFindByIdThrowsUserObjectNotFoundException() {
-        Mockito.when(userRepository.findById(1))
-                .thenReturn(Optional.empty());
+        Mockito.when(userRepository.existsById(1))
+                .thenReturn(false);
 
         final ObjectNotFoundException exception = Assertions.assertThrows(
                 ObjectNotFoundException.class,
@@ -122,7 +128,7 @@ public class ItemRequestServiceImplTest {
         Assertions.assertEquals("Пользователь не найден! Id=1", exception.getMessage());
 
         Mockito.verify(userRepository, Mockito.times(1))
-                .findById(1);
+                .existsById(1);
         Mockito.verifyNoInteractions(itemRepository, itemRequestRepository);
     }
 
@@ -138,8 +144,8 @@ public class ItemRequestServiceImplTest {
 
         Item item = new Item(1L, "Лобзик", "Мощный", true, user,
                 ItemRequestMapper.toItemRequestEntity(itemRequestDto, user2));
-        Mockito.when(userRepository.findById(1))
-                .thenReturn(Optional.of(user));
+        Mockito.when(userRepository.existsById(1))
+                .thenReturn(true);
         Mockito.when(itemRequestRepository.findByOwnerIdIs(anyInt(), any(Sort.class)))
                 .thenReturn(Collections.singletonList(ItemRequestMapper.toItemRequestEntity(itemRequestDto, user)));
         Mockito.when(itemRepository.findItemsByRequest(anyCollection(), any(Sort.class)))
@@ -148,7 +154,7 @@ public class ItemRequestServiceImplTest {
         itemRequestServiceImpl.findUserItemRequests(1);
 
         Mockito.verify(userRepository, Mockito.times(1))
-                .findById(1);
+                .existsById(1);
         Mockito.verify(itemRequestRepository, Mockito.times(1))
                 .findByOwnerIdIs(anyInt(), any(Sort.class));
         Mockito.verify(itemRepository, Mockito.times(1))
@@ -164,20 +170,48 @@ public class ItemRequestServiceImplTest {
                 .created(LocalDateTime.now())
                 .build();
 
-        Mockito.when(userRepository.findById(2))
-                .thenReturn(Optional.of(user));
-        Mockito.when(itemRequestRepository.findDistinctByOwnerIdNot(anyInt(), any(PageRequest.class)))
+        Mockito.when(userRepository.existsById(2))
+                .thenReturn(true);
+        Mockito.when(itemRequestRepository.findOtherItemRequests(anyInt(), any(LocalDateTime.class), anyLong(), any(PageRequest.class)))
                 .thenReturn(Collections.singletonList(ItemRequestMapper.toItemRequestEntity(itemRequestDto, user)));
         Mockito.when(itemRepository.findItemsByRequest(anyCollection(), any(Sort.class)))
                 .thenReturn(new ArrayList<>());
 
-        itemRequestServiceImpl.findOtherItemRequests(2, 0, 2);
+        itemRequestServiceImpl.findOtherItemRequests(2, 0, 2, null);
 
         Mockito.verify(userRepository, Mockito.times(1))
-                .findById(2);
+                .existsById(2);
         Mockito.verify(itemRequestRepository, Mockito.times(1))
-                .findDistinctByOwnerIdNot(anyInt(), any(PageRequest.class));
+                .findOtherItemRequests(anyInt(), any(LocalDateTime.class), anyLong(), any(PageRequest.class));
         Mockito.verify(itemRepository, Mockito.times(1))
                 .findItemsByRequest(anyCollection(), any(Sort.class));
     }
+
+    @Test
+    void testFindOtherItemRequestsKeepsPageOrder() {
+        User user = new User(1, "test@etcdev.ru", "Test Test");
+        LocalDateTime now = LocalDateTime.now();
+        List<ItemRequest> page = new ArrayList<>();
+        for (long id = 3; id >= 1; id--) {
+            page.add(ItemRequest.builder()
+                    .id(id)
+                    .description("Нужен лобзик " + id)
+                    .owner(user)
+                    .created(now.minusHours(4 - id))
+                    .build());
+        }
+
+        Mockito.when(userRepository.existsById(2))
+                .thenReturn(true);
+        Mockito.when(itemRequestRepository.findOtherItemRequests(anyInt(), any(LocalDateTime.class), anyLong(), any(PageRequest.class)))
+                .thenReturn(page);
+        Mockito.when(itemRepository.findItemsByRequest(anyCollection(), any(Sort.class)))
+                .thenReturn(new ArrayList<>());
+
+        List<ItemRequestDto> itemRequests = itemRequestServiceImpl.findOtherItemRequests(2, 0, 3, null);
+
+        Assertions.assertEquals(List.of(3L, 2L, 1L), itemRequests.stream()
+                .map(ItemRequestDto::getId)
+                .collect(Collectors.toList()));
+    }
 }
@@ -0,0 +1,89 @@
+package ru.practicum.shareit.user;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.user.storage.UserRepository;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * Кэш существования пользователей вокруг фиксации транзакции удаления. Без общей транзакции теста,
+ * чтобы фиксация действительно происходила; отдельная база, чтобы данные не попадали в другие тесты.
+ */
+@SpringBootTest(
+        properties = "spring.datasource.url=jdbc:h2:mem:user-cache;MODE=PostgreSQL",
+        webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class UserCacheDBTest {
+    private final UserService userService;
+    private final UserRepository userRepository;
+    private final CacheManager cacheManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ItemService itemService;
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void testCreateItemWithCachedUserDoesNotLoadUser() {
+        UserDto user = userService.create(new UserDto(null, "owner-ref@etcdev.ru", "Owner"));
+        userRepository.existsById(user.getId());
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        ItemDto item = itemService.create(user.getId(), ItemDto.builder()
+                .name("Дрель")
+                .description("Ударная")
+                .available(true)
+                .build());
+        long userLoads = statistics.getEntityStatistics(User.class.getName()).getLoadCount();
+        statistics.setStatisticsEnabled(false);
+
+        assertThat(item.getOwnerId(), equalTo(user.getId()));
+        assertThat(userLoads, equalTo(0L));
+    }
+
+    @Test
+    void testDeleteEvictsUserAfterCommit() {
+        UserDto user = userService.create(new UserDto(null, "cached@etcdev.ru", "Cached"));
+        Cache cache = cacheManager.getCache(UserRepository.CACHE_NAME);
+        assertThat(userRepository.existsById(user.getId()), equalTo(true));
+        assertThat(cache.get(user.getId()), notNullValue());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            userService.deleteUserById(user.getId());
+            assertThat(cache.get(user.getId()), notNullValue());
+        });
+
+        assertThat(cache.get(user.getId()), nullValue());
+        assertThat(userRepository.existsById(user.getId()), equalTo(false));
+    }
+
+    @Test
+    void testRolledBackDeleteKeepsUserCached() {
+        UserDto user = userService.create(new UserDto(null, "kept@etcdev.ru", "Kept"));
+        Cache cache = cacheManager.getCache(UserRepository.CACHE_NAME);
+        userRepository.existsById(user.getId());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            userService.deleteUserById(user.getId());
+            status.setRollbackOnly();
+        });
+
+        assertThat(cache.get(user.getId()), notNullValue());
+        assertThat(userRepository.existsById(user.getId()), equalTo(true));
+    }
+}
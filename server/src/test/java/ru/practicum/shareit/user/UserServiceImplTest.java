@@ -8,6 +8,7 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import ru.practicum.shareit.exception.ObjectNotFoundException;
+import ru.practicum.shareit.user.storage.UserExistenceCache;
 import ru.practicum.shareit.user.storage.UserRepository;
 
 import java.util.Collections;
@@ -21,6 +22,9 @@ public class UserServiceImplTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private UserExistenceCache userExistenceCache;
+
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -62,6 +66,8 @@ public class UserServiceImplTest {
 
         Mockito.verify(userRepository, Mockito.times(1))
                 .deleteById(1);
+        Mockito.verify(userExistenceCache, Mockito.times(1))
+                .evictAfterCommit(1);
 
     }
 